@@ -0,0 +1,31 @@
+package org.cyclops.integrateddynamics.core.profiling.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+import org.cyclops.integrateddynamics.core.profiling.IProfilingEvent;
+
+/**
+ * The update of a network element.
+ * @author rubensworks
+ */
+@Name("integrateddynamics.ElementUpdate")
+@Label("Element Update")
+@Description("The update of a network element.")
+@Category({"Integrated Dynamics", "Network"})
+@Threshold("100 us")
+public class ElementUpdateEvent extends Event implements IProfilingEvent {
+
+    @Label("Network Id")
+    public int networkId;
+
+    @Label("Part Type")
+    public String partType;
+
+    @Label("Position")
+    public String position;
+
+}
@@ -0,0 +1,129 @@
+package org.cyclops.integrateddynamics.core.profiling.jfr;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.evaluate.operator.IOperator;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.cyclops.integrateddynamics.api.network.INetworkElement;
+import org.cyclops.integrateddynamics.api.network.IPartNetworkElement;
+import org.cyclops.integrateddynamics.api.network.IPositionedNetworkElement;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.core.profiling.IProfilingEvent;
+import org.cyclops.integrateddynamics.core.profiling.IProfilingEventFactory;
+
+import javax.annotation.Nullable;
+
+/**
+ * Creates Java Flight Recorder events.
+ * Events are only instantiated if their type is enabled in an active recording.
+ * @author rubensworks
+ */
+public class JfrProfilingEventFactory implements IProfilingEventFactory {
+
+    private final EventType networkTick;
+    private final EventType elementUpdate;
+    private final EventType observerDiff;
+    private final EventType operatorEvaluation;
+    private final EventType networkRebuild;
+
+    public JfrProfilingEventFactory() {
+        FlightRecorder.register(NetworkTickEvent.class);
+        FlightRecorder.register(ElementUpdateEvent.class);
+        FlightRecorder.register(ObserverDiffEvent.class);
+        FlightRecorder.register(OperatorEvaluationEvent.class);
+        FlightRecorder.register(NetworkRebuildEvent.class);
+        this.networkTick = EventType.getEventType(NetworkTickEvent.class);
+        this.elementUpdate = EventType.getEventType(ElementUpdateEvent.class);
+        this.observerDiff = EventType.getEventType(ObserverDiffEvent.class);
+        this.operatorEvaluation = EventType.getEventType(OperatorEvaluationEvent.class);
+        this.networkRebuild = EventType.getEventType(NetworkRebuildEvent.class);
+    }
+
+    @Nullable
+    @Override
+    public IProfilingEvent beginNetworkTick(INetwork network) {
+        if (!networkTick.isEnabled()) {
+            return null;
+        }
+        NetworkTickEvent event = new NetworkTickEvent();
+        event.networkId = network.getId();
+        event.elements = network.getElements().size();
+        event.begin();
+        return event;
+    }
+
+    @Nullable
+    @Override
+    public IProfilingEvent beginElementUpdate(INetwork network, INetworkElement element) {
+        if (!elementUpdate.isEnabled()) {
+            return null;
+        }
+        ElementUpdateEvent event = new ElementUpdateEvent();
+        event.networkId = network.getId();
+        if (element instanceof IPartNetworkElement) {
+            IPartNetworkElement<?, ?> partElement = (IPartNetworkElement<?, ?>) element;
+            event.partType = partElement.getPart().getName();
+            event.position = toString(partElement.getTarget().getCenter());
+        } else {
+            event.partType = element.getClass().getSimpleName();
+            if (element instanceof IPositionedNetworkElement) {
+                event.position = toString(((IPositionedNetworkElement) element).getPosition());
+            }
+        }
+        event.begin();
+        return event;
+    }
+
+    @Nullable
+    @Override
+    public IProfilingEvent beginObserverDiff(int networkId, IngredientComponent<?, ?> component, int channel, PartPos pos) {
+        if (!observerDiff.isEnabled()) {
+            return null;
+        }
+        ObserverDiffEvent event = new ObserverDiffEvent();
+        event.networkId = networkId;
+        event.component = component.getName().toString();
+        event.channel = channel;
+        event.position = toString(pos);
+        event.begin();
+        return event;
+    }
+
+    @Nullable
+    @Override
+    public IProfilingEvent beginOperatorEvaluation(IOperator operator) {
+        if (!operatorEvaluation.isEnabled()) {
+            return null;
+        }
+        OperatorEvaluationEvent event = new OperatorEvaluationEvent();
+        event.operator = operator.getUniqueName();
+        event.begin();
+        return event;
+    }
+
+    @Nullable
+    @Override
+    public IProfilingEvent beginNetworkRebuild(INetwork network) {
+        if (!networkRebuild.isEnabled()) {
+            return null;
+        }
+        NetworkRebuildEvent event = new NetworkRebuildEvent();
+        event.networkId = network.getId();
+        event.cables = network.getCablesCount();
+        event.begin();
+        return event;
+    }
+
+    protected static String toString(PartPos pos) {
+        return toString(pos.getPos()) + " " + pos.getSide().getName();
+    }
+
+    protected static String toString(DimPos pos) {
+        BlockPos blockPos = pos.getBlockPos();
+        return String.format("%s:%s,%s,%s", pos.getDimensionId(), blockPos.getX(), blockPos.getY(), blockPos.getZ());
+    }
+
+}
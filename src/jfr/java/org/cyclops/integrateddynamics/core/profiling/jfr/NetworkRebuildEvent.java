@@ -0,0 +1,26 @@
+package org.cyclops.integrateddynamics.core.profiling.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.cyclops.integrateddynamics.core.profiling.IProfilingEvent;
+
+/**
+ * Building a network from its cables and parts.
+ * @author rubensworks
+ */
+@Name("integrateddynamics.NetworkRebuild")
+@Label("Network Rebuild")
+@Description("Building a network from its cables and parts.")
+@Category({"Integrated Dynamics", "Network"})
+public class NetworkRebuildEvent extends Event implements IProfilingEvent {
+
+    @Label("Network Id")
+    public int networkId;
+
+    @Label("Cables")
+    public int cables;
+
+}
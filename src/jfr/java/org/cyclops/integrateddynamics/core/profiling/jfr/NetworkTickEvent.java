@@ -0,0 +1,26 @@
+package org.cyclops.integrateddynamics.core.profiling.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.cyclops.integrateddynamics.core.profiling.IProfilingEvent;
+
+/**
+ * The update of a network in a server tick.
+ * @author rubensworks
+ */
+@Name("integrateddynamics.NetworkTick")
+@Label("Network Tick")
+@Description("The update of a network in a server tick.")
+@Category({"Integrated Dynamics", "Network"})
+public class NetworkTickEvent extends Event implements IProfilingEvent {
+
+    @Label("Network Id")
+    public int networkId;
+
+    @Label("Elements")
+    public int elements;
+
+}
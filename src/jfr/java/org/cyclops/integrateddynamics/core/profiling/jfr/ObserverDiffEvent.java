@@ -0,0 +1,34 @@
+package org.cyclops.integrateddynamics.core.profiling.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+import org.cyclops.integrateddynamics.core.profiling.IProfilingEvent;
+
+/**
+ * Calculating the ingredient changes at a position in an ingredient network.
+ * @author rubensworks
+ */
+@Name("integrateddynamics.ObserverDiff")
+@Label("Observer Diff")
+@Description("Calculating the ingredient changes at a position in an ingredient network.")
+@Category({"Integrated Dynamics", "Ingredients"})
+@Threshold("100 us")
+public class ObserverDiffEvent extends Event implements IProfilingEvent {
+
+    @Label("Network Id")
+    public int networkId;
+
+    @Label("Ingredient Component")
+    public String component;
+
+    @Label("Channel")
+    public int channel;
+
+    @Label("Position")
+    public String position;
+
+}
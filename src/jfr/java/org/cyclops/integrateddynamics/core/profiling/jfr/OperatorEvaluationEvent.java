@@ -0,0 +1,25 @@
+package org.cyclops.integrateddynamics.core.profiling.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+import org.cyclops.integrateddynamics.core.profiling.IProfilingEvent;
+
+/**
+ * The evaluation of an operator.
+ * @author rubensworks
+ */
+@Name("integrateddynamics.OperatorEvaluation")
+@Label("Operator Evaluation")
+@Description("The evaluation of an operator.")
+@Category({"Integrated Dynamics", "Evaluation"})
+@Threshold("1 ms")
+public class OperatorEvaluationEvent extends Event implements IProfilingEvent {
+
+    @Label("Operator")
+    public String operator;
+
+}
@@ -0,0 +1,159 @@
+package org.cyclops.integrateddynamics.core.evaluate.variable;
+
+import com.google.common.collect.Lists;
+import net.minecraft.nbt.NBTTagCompound;
+import org.cyclops.integrateddynamics.api.evaluate.EvaluationException;
+import org.cyclops.integrateddynamics.api.evaluate.variable.IValue;
+import org.cyclops.integrateddynamics.api.evaluate.variable.IVariable;
+import org.cyclops.integrateddynamics.core.evaluate.operator.Operators;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of representative operators, using the dummy variables of the operator tests as inputs.
+ * Lazy list results are iterated completely, so that the cost of their elements is included.
+ * Run with '-PjmhProfilers=gc' to also measure the allocation rate.
+ * @author rubensworks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OperatorBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int elements;
+
+    private DummyVariableInteger i1;
+    private DummyVariableInteger i2;
+    private DummyVariableInteger iHalf;
+    private DummyVariableDouble d1;
+    private DummyVariableDouble d2;
+
+    private DummyVariableString sPattern;
+    private DummyVariableString sText;
+
+    private DummyVariableList lIntegers;
+    private DummyVariableList lIntegersCopy;
+
+    private DummyVariableNbt nHalf;
+    private DummyVariableNbt nAll;
+
+    private DummyVariableOperator oIntegerIncrement;
+    private DummyVariableOperator oArithmeticAddition;
+    private DummyVariableOperator oGreaterThanHalf;
+
+    @Setup
+    public void setup() throws EvaluationException {
+        ValueTypeListProxyFactories.load();
+
+        i1 = new DummyVariableInteger(ValueTypeInteger.ValueInteger.of(1));
+        i2 = new DummyVariableInteger(ValueTypeInteger.ValueInteger.of(2));
+        iHalf = new DummyVariableInteger(ValueTypeInteger.ValueInteger.of(elements / 2));
+        d1 = new DummyVariableDouble(ValueTypeDouble.ValueDouble.of(1.5D));
+        d2 = new DummyVariableDouble(ValueTypeDouble.ValueDouble.of(2.5D));
+
+        sPattern = new DummyVariableString(ValueTypeString.ValueString.of("^(minecraft|integrateddynamics):([a-z_]+)$"));
+        sText = new DummyVariableString(ValueTypeString.ValueString.of("integrateddynamics:variable_transformer"));
+
+        List<ValueTypeInteger.ValueInteger> integers = Lists.newArrayListWithCapacity(elements);
+        for (int i = 0; i < elements; i++) {
+            integers.add(ValueTypeInteger.ValueInteger.of(i));
+        }
+        lIntegers = new DummyVariableList(ValueTypeList.ValueList.ofList(ValueTypes.INTEGER, integers));
+        lIntegersCopy = new DummyVariableList(ValueTypeList.ValueList.ofList(ValueTypes.INTEGER, Lists.newArrayList(integers)));
+
+        NBTTagCompound tagHalf = new NBTTagCompound();
+        NBTTagCompound tagAll = new NBTTagCompound();
+        for (int i = 0; i < elements; i++) {
+            if (i % 2 == 0) {
+                tagHalf.setInteger("key" + i, i);
+            }
+            tagAll.setInteger("key" + i, i);
+        }
+        nHalf = new DummyVariableNbt(ValueTypeNbt.ValueNbt.of(tagHalf));
+        nAll = new DummyVariableNbt(ValueTypeNbt.ValueNbt.of(tagAll));
+
+        oIntegerIncrement = new DummyVariableOperator(ValueTypeOperator.ValueOperator.of(Operators.INTEGER_INCREMENT));
+        oArithmeticAddition = new DummyVariableOperator(ValueTypeOperator.ValueOperator.of(Operators.ARITHMETIC_ADDITION));
+        DummyVariableOperator oRelationalLt = new DummyVariableOperator(ValueTypeOperator.ValueOperator.of(Operators.RELATIONAL_LT));
+        oGreaterThanHalf = new DummyVariableOperator((ValueTypeOperator.ValueOperator) Operators.OPERATOR_APPLY
+                .evaluate(new IVariable[]{oRelationalLt, iHalf}));
+    }
+
+    protected void consumeList(IValue list, Blackhole blackhole) {
+        for (Object value : ((ValueTypeList.ValueList<?, ?>) list).getRawValue()) {
+            blackhole.consume(value);
+        }
+    }
+
+    @Benchmark
+    public IValue arithmeticAdditionInteger() throws EvaluationException {
+        return Operators.ARITHMETIC_ADDITION.evaluate(new IVariable[]{i1, i2});
+    }
+
+    @Benchmark
+    public IValue arithmeticAdditionDouble() throws EvaluationException {
+        return Operators.ARITHMETIC_ADDITION.evaluate(new IVariable[]{d1, d2});
+    }
+
+    @Benchmark
+    public IValue relationalLt() throws EvaluationException {
+        return Operators.RELATIONAL_LT.evaluate(new IVariable[]{i1, i2});
+    }
+
+    @Benchmark
+    public IValue relationalEqualsList() throws EvaluationException {
+        return Operators.RELATIONAL_EQUALS.evaluate(new IVariable[]{lIntegers, lIntegersCopy});
+    }
+
+    @Benchmark
+    public void listMap(Blackhole blackhole) throws EvaluationException {
+        consumeList(Operators.OPERATOR_MAP.evaluate(new IVariable[]{oIntegerIncrement, lIntegers}), blackhole);
+    }
+
+    @Benchmark
+    public void listFilter(Blackhole blackhole) throws EvaluationException {
+        consumeList(Operators.OPERATOR_FILTER.evaluate(new IVariable[]{oGreaterThanHalf, lIntegers}), blackhole);
+    }
+
+    @Benchmark
+    public IValue listReduce() throws EvaluationException {
+        return Operators.OPERATOR_REDUCE.evaluate(new IVariable[]{oArithmeticAddition, lIntegers, i1});
+    }
+
+    @Benchmark
+    public IValue listContains() throws EvaluationException {
+        return Operators.LIST_CONTAINS.evaluate(new IVariable[]{lIntegers, iHalf});
+    }
+
+    @Benchmark
+    public IValue stringMatchesRegex() throws EvaluationException {
+        return Operators.STRING_MATCHES_REGEX.evaluate(new IVariable[]{sPattern, sText});
+    }
+
+    @Benchmark
+    public void stringRegexGroups(Blackhole blackhole) throws EvaluationException {
+        consumeList(Operators.STRING_REGEX_GROUPS.evaluate(new IVariable[]{sPattern, sText}), blackhole);
+    }
+
+    @Benchmark
+    public IValue nbtUnion() throws EvaluationException {
+        return Operators.NBT_UNION.evaluate(new IVariable[]{nHalf, nAll});
+    }
+
+    @Benchmark
+    public IValue nbtSubset() throws EvaluationException {
+        return Operators.NBT_SUBSET.evaluate(new IVariable[]{nHalf, nAll});
+    }
+
+}
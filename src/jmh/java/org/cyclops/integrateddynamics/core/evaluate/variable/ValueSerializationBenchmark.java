@@ -0,0 +1,131 @@
+package org.cyclops.integrateddynamics.core.evaluate.variable;
+
+import com.google.common.collect.Lists;
+import net.minecraft.nbt.NBTTagCompound;
+import org.cyclops.integrateddynamics.api.evaluate.variable.IValue;
+import org.cyclops.integrateddynamics.core.evaluate.operator.Operators;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link ValueHelpers#serialize(IValue)} and {@link ValueHelpers#deserialize(NBTTagCompound)}
+ * round-trips for the value types that do not require a running game,
+ * using the dummy variables of the operator tests as inputs.
+ * Run with '-PjmhProfilers=gc' to also measure the allocation rate.
+ * @author rubensworks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ValueSerializationBenchmark {
+
+    @Param({"BOOLEAN", "INTEGER", "DOUBLE", "LONG", "STRING", "LIST", "NBT", "OPERATOR"})
+    public Type type;
+
+    @Param({"10", "1000"})
+    public int elements;
+
+    private IValue value;
+    private NBTTagCompound tag;
+
+    @Setup
+    public void setup() {
+        ValueTypeListProxyFactories.load();
+        value = type.createVariable(elements).getValue();
+        tag = ValueHelpers.serialize(value);
+    }
+
+    @Benchmark
+    public NBTTagCompound serialize() {
+        return ValueHelpers.serialize(value);
+    }
+
+    @Benchmark
+    public IValue deserialize() {
+        return ValueHelpers.deserialize(tag);
+    }
+
+    @Benchmark
+    public IValue roundTrip() {
+        return ValueHelpers.deserialize(ValueHelpers.serialize(value));
+    }
+
+    public static enum Type {
+        BOOLEAN {
+            @Override
+            public DummyVariable<?> createVariable(int elements) {
+                return new DummyVariableBoolean(ValueTypeBoolean.ValueBoolean.of(true));
+            }
+        },
+        INTEGER {
+            @Override
+            public DummyVariable<?> createVariable(int elements) {
+                return new DummyVariableInteger(ValueTypeInteger.ValueInteger.of(elements));
+            }
+        },
+        DOUBLE {
+            @Override
+            public DummyVariable<?> createVariable(int elements) {
+                return new DummyVariableDouble(ValueTypeDouble.ValueDouble.of(elements + 0.5D));
+            }
+        },
+        LONG {
+            @Override
+            public DummyVariable<?> createVariable(int elements) {
+                return new DummyVariable<>(ValueTypes.LONG, ValueTypeLong.ValueLong.of(Long.MAX_VALUE - elements));
+            }
+        },
+        STRING {
+            @Override
+            public DummyVariable<?> createVariable(int elements) {
+                StringBuilder builder = new StringBuilder();
+                for (int i = 0; i < elements; i++) {
+                    builder.append((char) ('a' + i % 26));
+                }
+                return new DummyVariableString(ValueTypeString.ValueString.of(builder.toString()));
+            }
+        },
+        LIST {
+            @Override
+            public DummyVariable<?> createVariable(int elements) {
+                List<ValueTypeInteger.ValueInteger> integers = Lists.newArrayListWithCapacity(elements);
+                for (int i = 0; i < elements; i++) {
+                    integers.add(ValueTypeInteger.ValueInteger.of(i));
+                }
+                return new DummyVariableList(ValueTypeList.ValueList.ofList(ValueTypes.INTEGER, integers));
+            }
+        },
+        NBT {
+            @Override
+            public DummyVariable<?> createVariable(int elements) {
+                NBTTagCompound tag = new NBTTagCompound();
+                for (int i = 0; i < elements; i++) {
+                    tag.setInteger("key" + i, i);
+                }
+                return new DummyVariableNbt(ValueTypeNbt.ValueNbt.of(tag));
+            }
+        },
+        OPERATOR {
+            @Override
+            public DummyVariable<?> createVariable(int elements) {
+                return new DummyVariableOperator(ValueTypeOperator.ValueOperator.of(Operators.ARITHMETIC_ADDITION));
+            }
+        };
+
+        /**
+         * @param elements The size of the value, for value types that have a size.
+         * @return A variable holding a value of this type.
+         */
+        public abstract DummyVariable<?> createVariable(int elements);
+    }
+
+}
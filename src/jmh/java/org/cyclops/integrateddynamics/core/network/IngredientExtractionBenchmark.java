@@ -0,0 +1,91 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
+import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares extractions by prototype that simulate each storage
+ * with extractions that are planned from the quantities in the network index.
+ * @author rubensworks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IngredientExtractionBenchmark {
+
+    private static final int CAPACITY = 100000;
+
+    @Param({"1000"})
+    public int elements;
+
+    @Param({"false", "true"})
+    public boolean planned;
+
+    private PositionedAddonsNetworkIngredientsBenchmark.EnergyNetworkStub network;
+    private List<PartPos> positions;
+
+    @Setup
+    public void setup() {
+        GeneralConfig.ingredientNetworkPlannedExtraction = planned;
+        network = new PositionedAddonsNetworkIngredientsBenchmark.EnergyNetworkStub();
+        positions = Lists.newArrayListWithCapacity(elements);
+        for (int i = 0; i < elements; i++) {
+            BlockPos pos = new BlockPos(i % 1024, (i / 1024) % 256, i / (1024 * 256));
+            PartPos partPos = PartPos.of(DimPos.of(0, pos), null);
+            positions.add(partPos);
+            network.addPosition(partPos, 0, IPositionedAddonsNetwork.DEFAULT_CHANNEL);
+
+            IngredientCollectionPrototypeMap<Integer, Boolean> instances = new IngredientCollectionPrototypeMap<>(IngredientComponent.ENERGY, false);
+            instances.add(CAPACITY / 2);
+            network.onChange(new IIngredientComponentStorageObservable.StorageChangeEvent<>(IPositionedAddonsNetwork.DEFAULT_CHANNEL,
+                    PrioritizedPartPos.of(partPos, 0), IIngredientComponentStorageObservable.Change.ADDITION, false, instances));
+        }
+    }
+
+    /**
+     * Refill all storages, so that each extraction starts from the indexed state.
+     */
+    @Setup(Level.Invocation)
+    public void resetStorages() {
+        for (PartPos position : positions) {
+            network.addStorage(position, new PositionedAddonsNetworkIngredientsBenchmark.EnergyStorageStub(CAPACITY, CAPACITY / 2));
+        }
+    }
+
+    /**
+     * @return The energy that was extracted from half of the storages.
+     */
+    @Benchmark
+    public int extractPrototype() {
+        return network.getChannel(IPositionedAddonsNetwork.DEFAULT_CHANNEL).extract(elements * CAPACITY / 4, true, false);
+    }
+
+    /**
+     * @return The energy that would be extracted from half of the storages.
+     */
+    @Benchmark
+    public int extractPrototypeSimulated() {
+        return network.getChannel(IPositionedAddonsNetwork.DEFAULT_CHANNEL).extract(elements * CAPACITY / 4, true, true);
+    }
+
+}
@@ -0,0 +1,186 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.cyclops.integrateddynamics.api.network.INetworkElement;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+import org.cyclops.integrateddynamics.api.network.IPositionedNetworkElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a {@link Network} without a world, using stubbed network elements.
+ * This measures the tick cost of the network itself, such as the update scheduling and element bookkeeping,
+ * so that regressions in it are not hidden behind the cost of the parts in a real world.
+ * @author rubensworks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NetworkBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int elements;
+
+    @Param({"1", "20"})
+    public int updateInterval;
+
+    private Network network;
+    private List<INetworkElement> networkElements;
+    private NetworkElementStub extraElement;
+
+    @Setup
+    public void setup() {
+        networkElements = createElements(elements, updateInterval);
+        network = new NetworkStub();
+        network.addNetworkElements(networkElements, false);
+        extraElement = new NetworkElementStub(DimPos.of(1, BlockPos.ORIGIN), updateInterval);
+    }
+
+    /**
+     * @return A single tick of a network in which a part of the elements is updated, depending on the update interval.
+     */
+    @Benchmark
+    public Network update() {
+        network.update();
+        return network;
+    }
+
+    @Benchmark
+    public Network addRemoveElement() {
+        network.addNetworkElement(extraElement, false);
+        if (network.removeNetworkElementPre(extraElement)) {
+            network.removeNetworkElementPost(extraElement);
+        }
+        return network;
+    }
+
+    @Benchmark
+    public Network addElements() {
+        Network network = new NetworkStub();
+        network.addNetworkElements(networkElements, false);
+        return network;
+    }
+
+    @Benchmark
+    public void getElementsAt(Blackhole blackhole) {
+        for (INetworkElement element : networkElements) {
+            blackhole.consume(network.getElementsAt(((IPositionedNetworkElement) element).getPosition()));
+        }
+    }
+
+    public static List<INetworkElement> createElements(int count, int updateInterval) {
+        List<INetworkElement> elements = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++) {
+            BlockPos pos = new BlockPos(i % 1024, (i / 1024) % 256, i / (1024 * 256));
+            elements.add(new NetworkElementStub(DimPos.of(0, pos), updateInterval));
+        }
+        return elements;
+    }
+
+    /**
+     * A network that is initialized immediately and does not require path elements in a world.
+     */
+    public static class NetworkStub extends Network {
+
+        public NetworkStub() {
+            initialize(true);
+        }
+
+        @Override
+        public boolean killIfEmpty() {
+            // The cluster is always empty, as no path elements are added.
+            return false;
+        }
+    }
+
+    /**
+     * A positioned network element that does a trivial amount of work when updated.
+     */
+    public static class NetworkElementStub extends NetworkElementBase implements IPositionedNetworkElement {
+
+        private final DimPos pos;
+        private final int updateInterval;
+        private long updates = 0;
+
+        public NetworkElementStub(DimPos pos, int updateInterval) {
+            this.pos = pos;
+            this.updateInterval = updateInterval;
+        }
+
+        public long getUpdates() {
+            return updates;
+        }
+
+        @Override
+        public int getUpdateInterval() {
+            return updateInterval;
+        }
+
+        @Override
+        public boolean isUpdate() {
+            return true;
+        }
+
+        @Override
+        public void update(INetwork network) {
+            updates++;
+        }
+
+        @Override
+        public void setPriorityAndChannel(INetwork network, int priority, int channel) {
+
+        }
+
+        @Override
+        public int getPriority() {
+            return 0;
+        }
+
+        @Override
+        public int getChannel() {
+            return IPositionedAddonsNetwork.DEFAULT_CHANNEL;
+        }
+
+        @Override
+        public boolean canRevalidate(INetwork network) {
+            return true;
+        }
+
+        @Override
+        public DimPos getPosition() {
+            return pos;
+        }
+
+        @Override
+        public int compareTo(INetworkElement o) {
+            if (o instanceof NetworkElementStub) {
+                return getPosition().compareTo(((NetworkElementStub) o).getPosition());
+            }
+            return this.getClass().getCanonicalName().compareTo(o.getClass().getCanonicalName());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NetworkElementStub && getPosition().equals(((NetworkElementStub) o).getPosition());
+        }
+
+        @Override
+        public int hashCode() {
+            return getPosition().hashCode();
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the position and index bookkeeping of a {@link PositionedAddonsNetworkIngredients}
+ * and the insertion and extraction over its channels without a world,
+ * by backing each position with an in-memory energy storage.
+ * @author rubensworks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PositionedAddonsNetworkIngredientsBenchmark {
+
+    private static final int CAPACITY = 100000;
+
+    @Param({"1000", "10000", "100000"})
+    public int elements;
+
+    @Param({"1", "16"})
+    public int channels;
+
+    private EnergyNetworkStub network;
+    private List<PrioritizedPartPos> positions;
+    private PartPos extraPosition;
+
+    @Setup
+    public void setup() {
+        network = new EnergyNetworkStub();
+        positions = Lists.newArrayListWithCapacity(elements);
+        for (int i = 0; i < elements; i++) {
+            BlockPos pos = new BlockPos(i % 1024, (i / 1024) % 256, i / (1024 * 256));
+            PartPos partPos = PartPos.of(DimPos.of(0, pos), null);
+            network.addStorage(partPos, new EnergyStorageStub(CAPACITY, CAPACITY / 2));
+            network.addPosition(partPos, i % 10, i % channels);
+            PrioritizedPartPos prioritizedPartPos = PrioritizedPartPos.of(partPos, i % 10);
+            positions.add(prioritizedPartPos);
+            network.onChange(createEvent(i % channels, prioritizedPartPos,
+                    IIngredientComponentStorageObservable.Change.ADDITION, CAPACITY / 2));
+        }
+
+        extraPosition = PartPos.of(DimPos.of(1, BlockPos.ORIGIN), null);
+        network.addStorage(extraPosition, new EnergyStorageStub(CAPACITY, 0));
+    }
+
+    protected IIngredientComponentStorageObservable.StorageChangeEvent<Integer, Boolean> createEvent(
+            int channel, PrioritizedPartPos pos, IIngredientComponentStorageObservable.Change change, int quantity) {
+        IngredientCollectionPrototypeMap<Integer, Boolean> instances = new IngredientCollectionPrototypeMap<>(IngredientComponent.ENERGY, false);
+        instances.add(quantity);
+        return new IIngredientComponentStorageObservable.StorageChangeEvent<>(channel, pos, change, false, instances);
+    }
+
+    @Benchmark
+    public EnergyNetworkStub addRemovePosition() {
+        network.addPosition(extraPosition, 0, IPositionedAddonsNetwork.DEFAULT_CHANNEL);
+        network.removePosition(extraPosition);
+        return network;
+    }
+
+    /**
+     * @return The index after a change event was applied at every position, as the observer would emit them.
+     */
+    @Benchmark
+    public EnergyNetworkStub applyChanges() {
+        for (int i = 0; i < positions.size(); i++) {
+            int channel = i % channels;
+            PrioritizedPartPos pos = positions.get(i);
+            network.onChange(createEvent(channel, pos, IIngredientComponentStorageObservable.Change.DELETION, 1));
+            network.onChange(createEvent(channel, pos, IIngredientComponentStorageObservable.Change.ADDITION, 1));
+        }
+        return network;
+    }
+
+    @Benchmark
+    public int insertSimulated() {
+        return network.getChannel(IPositionedAddonsNetwork.DEFAULT_CHANNEL).insert(CAPACITY, true);
+    }
+
+    @Benchmark
+    public int extractSimulated() {
+        return network.getChannel(IPositionedAddonsNetwork.DEFAULT_CHANNEL).extract(CAPACITY, true);
+    }
+
+    @Benchmark
+    public long getMaxQuantity() {
+        return network.getChannel(IPositionedAddonsNetwork.DEFAULT_CHANNEL).getMaxQuantity();
+    }
+
+    /**
+     * An energy network of which the storages are looked up in memory instead of in a world.
+     */
+    public static class EnergyNetworkStub extends EnergyNetwork {
+
+        private final Map<PartPos, IIngredientComponentStorage<Integer, Boolean>> storages = Maps.newHashMap();
+
+        public EnergyNetworkStub() {
+            super(IngredientComponent.ENERGY);
+        }
+
+        public void addStorage(PartPos pos, IIngredientComponentStorage<Integer, Boolean> storage) {
+            storages.put(pos, storage);
+        }
+
+        @Override
+        public IIngredientComponentStorage<Integer, Boolean> getPositionedStorageUnsafe(PartPos pos) {
+            return storages.get(pos);
+        }
+
+        @Override
+        public long getRateLimit() {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * An in-memory energy storage.
+     */
+    public static class EnergyStorageStub implements IIngredientComponentStorage<Integer, Boolean> {
+
+        private final int capacity;
+        private int energy;
+
+        public EnergyStorageStub(int capacity, int energy) {
+            this.capacity = capacity;
+            this.energy = energy;
+        }
+
+        @Override
+        public IngredientComponent<Integer, Boolean> getComponent() {
+            return IngredientComponent.ENERGY;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return energy > 0 ? Iterators.singletonIterator(energy) : Collections.emptyIterator();
+        }
+
+        @Override
+        public Iterator<Integer> iterator(@Nonnull Integer prototype, Boolean matchCondition) {
+            return getComponent().getMatcher().matches(prototype, energy, matchCondition)
+                    ? iterator() : Collections.emptyIterator();
+        }
+
+        @Override
+        public long getMaxQuantity() {
+            return capacity;
+        }
+
+        @Override
+        public Integer insert(@Nonnull Integer ingredient, boolean simulate) {
+            int inserted = Math.min(ingredient, capacity - energy);
+            if (!simulate) {
+                energy += inserted;
+            }
+            return ingredient - inserted;
+        }
+
+        @Override
+        public Integer extract(@Nonnull Integer prototype, Boolean matchCondition, boolean simulate) {
+            if (matchCondition && prototype > energy) {
+                return 0;
+            }
+            return extract(prototype, simulate);
+        }
+
+        @Override
+        public Integer extract(long maxQuantity, boolean simulate) {
+            int extracted = (int) Math.min(maxQuantity, energy);
+            if (!simulate) {
+                energy -= extracted;
+            }
+            return extracted;
+        }
+    }
+
+}
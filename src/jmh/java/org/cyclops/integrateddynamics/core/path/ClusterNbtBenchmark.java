@@ -0,0 +1,109 @@
+package org.cyclops.integrateddynamics.core.path;
+
+import com.google.common.collect.Lists;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
+import org.cyclops.integrateddynamics.capability.path.SidedPathElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares saving and loading a cluster of cables in the old list format and the compact format,
+ * including the gzip compression of the world storage file.
+ * @author rubensworks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ClusterNbtBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    private List<ISidedPathElement> elements;
+    private byte[] legacyData;
+    private byte[] compactData;
+
+    @Setup
+    public void setup() throws IOException {
+        elements = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            BlockPos pos = PathFinderBenchmark.Topology.TREE.getPosition(i, size);
+            PathElementStub element = new PathElementStub(DimPos.of(0, pos));
+            elements.add(SidedPathElement.of(element, i % 8 == 0 ? EnumFacing.VALUES[i % 6] : null));
+        }
+        legacyData = compress(writeLegacy(elements));
+        compactData = compress(Cluster.writeElements(elements));
+    }
+
+    @Benchmark
+    public byte[] saveLegacy() throws IOException {
+        return compress(writeLegacy(elements));
+    }
+
+    @Benchmark
+    public byte[] saveCompact() throws IOException {
+        return compress(Cluster.writeElements(elements));
+    }
+
+    @Benchmark
+    public long loadLegacy() throws IOException {
+        return read(CompressedStreamTools.readCompressed(new ByteArrayInputStream(legacyData)));
+    }
+
+    @Benchmark
+    public long loadCompact() throws IOException {
+        return read(CompressedStreamTools.readCompressed(new ByteArrayInputStream(compactData)));
+    }
+
+    protected static long read(NBTTagCompound tag) {
+        long[] checksum = {0};
+        Cluster.readElements(tag, (dimensionId, pos, side) -> checksum[0] += pos + dimensionId + (side == null ? 0 : side.ordinal()));
+        return checksum[0];
+    }
+
+    protected static byte[] compress(NBTTagCompound tag) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        CompressedStreamTools.writeCompressed(tag, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Write the elements in the list format that was used before the compact format.
+     * @param elements The path elements.
+     * @return The NBT tag.
+     */
+    protected static NBTTagCompound writeLegacy(List<ISidedPathElement> elements) {
+        NBTTagCompound tag = new NBTTagCompound();
+        NBTTagList list = new NBTTagList();
+        for(ISidedPathElement e : elements) {
+            NBTTagCompound elementTag = new NBTTagCompound();
+            elementTag.setInteger("dimension", e.getPathElement().getPosition().getDimensionId());
+            elementTag.setLong("pos", e.getPathElement().getPosition().getBlockPos().toLong());
+            if (e.getSide() != null) {
+                elementTag.setInteger("side", e.getSide().ordinal());
+            }
+            list.appendTag(elementTag);
+        }
+        tag.setTag("list", list);
+        return tag;
+    }
+
+}
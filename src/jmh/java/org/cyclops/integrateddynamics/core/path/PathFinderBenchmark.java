@@ -0,0 +1,117 @@
+package org.cyclops.integrateddynamics.core.path;
+
+import com.google.common.collect.Sets;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
+import org.cyclops.integrateddynamics.capability.path.SidedPathElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the iterative {@link PathFinder} with the original {@link RecursivePathFinder} on synthetic topologies.
+ * The recursive implementation is expected to fail with a {@link StackOverflowError}
+ * for long lines and deep trees at the larger sizes.
+ * @author rubensworks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PathFinderBenchmark {
+
+    @Param({"LINE", "GRID", "TREE"})
+    public Topology topology;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private ISidedPathElement head;
+
+    @Setup
+    public void setup() {
+        PathElementStub[] elements = new PathElementStub[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = new PathElementStub(DimPos.of(0, topology.getPosition(i, size)));
+        }
+        for (int i = 0; i < size; i++) {
+            for (int neighbour : topology.getNeighbours(i, size)) {
+                if (neighbour >= 0 && neighbour < size) {
+                    elements[i].getReachableElements().add(SidedPathElement.of(elements[neighbour], null));
+                }
+            }
+        }
+        head = SidedPathElement.of(elements[0], null);
+    }
+
+    @Benchmark
+    public TreeSet<ISidedPathElement> iterative() {
+        return PathFinder.getConnectedElements(head);
+    }
+
+    @Benchmark
+    public TreeSet<ISidedPathElement> recursive() {
+        return RecursivePathFinder.getConnectedElements(head, Sets.newTreeSet());
+    }
+
+    public static enum Topology {
+        LINE {
+            @Override
+            public BlockPos getPosition(int index, int size) {
+                return new BlockPos(index, 0, 0);
+            }
+
+            @Override
+            public int[] getNeighbours(int index, int size) {
+                return new int[]{index - 1, index + 1};
+            }
+        },
+        GRID {
+            @Override
+            public BlockPos getPosition(int index, int size) {
+                int width = getWidth(size);
+                return new BlockPos(index % width, 0, index / width);
+            }
+
+            @Override
+            public int[] getNeighbours(int index, int size) {
+                int width = getWidth(size);
+                int x = index % width;
+                return new int[]{
+                        x > 0 ? index - 1 : -1,
+                        x < width - 1 ? index + 1 : -1,
+                        index - width,
+                        index + width
+                };
+            }
+
+            private int getWidth(int size) {
+                return (int) Math.ceil(Math.sqrt(size));
+            }
+        },
+        TREE {
+            @Override
+            public BlockPos getPosition(int index, int size) {
+                return new BlockPos(index % 1024, (index / 1024) % 256, index / (1024 * 256));
+            }
+
+            @Override
+            public int[] getNeighbours(int index, int size) {
+                return new int[]{index == 0 ? -1 : (index - 1) / 2, index * 2 + 1, index * 2 + 2};
+            }
+        };
+
+        public abstract BlockPos getPosition(int index, int size);
+
+        public abstract int[] getNeighbours(int index, int size);
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.cyclops.integrateddynamics.core.persist.world;
+
+import com.google.common.collect.Lists;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
+import org.cyclops.integrateddynamics.capability.path.SidedPathElement;
+import org.cyclops.integrateddynamics.core.path.Cluster;
+import org.cyclops.integrateddynamics.core.path.PathElementStub;
+import org.cyclops.integrateddynamics.core.path.PathFinderBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures how long the server thread is paused when saving networks,
+ * both when networks are serialized and written on the server thread,
+ * and when only snapshots are taken that are written by the {@link NetworkStorageWriter}.
+ * @author rubensworks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NetworkSaveBenchmark {
+
+    @Param({"100"})
+    public int networks;
+
+    @Param({"1000"})
+    public int cables;
+
+    private List<List<ISidedPathElement>> clusters;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        clusters = Lists.newArrayListWithCapacity(networks);
+        for (int n = 0; n < networks; n++) {
+            List<ISidedPathElement> elements = Lists.newArrayListWithCapacity(cables);
+            for (int i = 0; i < cables; i++) {
+                BlockPos pos = PathFinderBenchmark.Topology.TREE.getPosition(i, cables).add(n * 256, 0, 0);
+                PathElementStub element = new PathElementStub(DimPos.of(0, pos));
+                elements.add(SidedPathElement.of(element, i % 8 == 0 ? EnumFacing.VALUES[i % 6] : null));
+            }
+            clusters.add(elements);
+        }
+        file = File.createTempFile("networks", ".dat");
+    }
+
+    @Setup(Level.Invocation)
+    public void awaitWrites() {
+        // Make sure that background writes of the previous invocation do not pile up.
+        NetworkStorageWriter.awaitWrites();
+    }
+
+    @TearDown
+    public void tearDown() {
+        NetworkStorageWriter.awaitWrites();
+        file.delete();
+    }
+
+    @Benchmark
+    public File saveOnServerThread() throws IOException {
+        NBTTagList list = new NBTTagList();
+        for (List<ISidedPathElement> cluster : clusters) {
+            list.appendTag(createNetworkTag(Cluster.writeElements(cluster)));
+        }
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setTag("networks", list);
+        NetworkStorageWriter.writeAtomically(file, tag);
+        return file;
+    }
+
+    @Benchmark
+    public File saveOnWriterThread() {
+        List<Supplier<NBTTagCompound>> snapshots = Lists.newArrayListWithCapacity(clusters.size());
+        for (List<ISidedPathElement> cluster : clusters) {
+            Cluster.Snapshot snapshot = new Cluster.Snapshot(cluster);
+            snapshots.add(() -> createNetworkTag(snapshot.toNBT()));
+        }
+        NetworkStorageWriter.write(file, snapshots);
+        return file;
+    }
+
+    protected static NBTTagCompound createNetworkTag(NBTTagCompound clusterTag) {
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setTag("baseCluster", clusterTag);
+        tag.setBoolean("crashed", false);
+        return tag;
+    }
+
+}
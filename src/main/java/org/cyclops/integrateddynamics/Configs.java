@@ -7,6 +7,7 @@ import org.cyclops.integrateddynamics.capability.cable.CableFakeableConfig;
 import org.cyclops.integrateddynamics.capability.dynamiclight.DynamicLightConfig;
 import org.cyclops.integrateddynamics.capability.dynamicredstone.DynamicRedstoneConfig;
 import org.cyclops.integrateddynamics.capability.facadeable.FacadeableConfig;
+import org.cyclops.integrateddynamics.capability.ingredient.IngredientComponentStorageChangeNotifierConfig;
 import org.cyclops.integrateddynamics.capability.ingredient.IngredientComponentValueHandlerConfig;
 import org.cyclops.integrateddynamics.capability.network.EnergyNetworkConfig;
 import org.cyclops.integrateddynamics.capability.network.NetworkCarrierConfig;
@@ -49,6 +50,7 @@ public class Configs {
         configHandler.add(new ValueInterfaceConfig());
         configHandler.add(new PositionedAddonsNetworkIngredientsHandlerConfig());
         configHandler.add(new IngredientComponentValueHandlerConfig());
+        configHandler.add(new IngredientComponentStorageChangeNotifierConfig());
 
         // Fluids
         configHandler.add(new FluidMenrilResinConfig());
@@ -143,6 +143,90 @@ public class GeneralConfig extends DummyConfig {
     @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If the ingredient network observer can work on separate thread.", isCommandable = true)
     public static boolean ingredientNetworkObserverEnableMultithreading = true;
 
+    /**
+     * The number of positions that are observed together by one ingredient network observer job.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The number of positions that are observed together by one ingredient network observer job. Lower values spread the work over more threads.", minimalValue = 1, isCommandable = true)
+    public static int ingredientNetworkObserverShardSize = 64;
+
+    /**
+     * If the ingredient network observer should listen to changes of storages that notify about them, instead of polling these.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If the ingredient network observer should listen to changes of storages that notify about them, instead of polling these. Storages without change notifications are always polled.", isCommandable = true)
+    public static boolean ingredientNetworkObserverChangeNotifications = true;
+
+    /**
+     * If ingredient extractions should be planned from the network index, instead of simulating them at each storage.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If ingredient extractions should be planned from the network index, instead of simulating them at each storage.", isCommandable = true)
+    public static boolean ingredientNetworkPlannedExtraction = true;
+
+    /**
+     * If networks should be updated in parallel. Network elements are still updated on the main server thread.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If networks should be updated in parallel. Network elements are still updated on the main server thread.", isCommandable = true)
+    public static boolean parallelNetworkUpdates = false;
+
+    /**
+     * The number of threads that can be used for updating networks in parallel.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The number of threads that can be used for updating networks in parallel.", minimalValue = 1, requiresMcRestart = true)
+    public static int parallelNetworkUpdatesThreads = 4;
+
+    /**
+     * The maximum time in microseconds that a single network can spend on updating its elements each tick, 0 disables this limit.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The maximum time in microseconds that a single network can spend on updating its elements each tick, 0 disables this limit. Elements that do not fit within this budget are deferred to the next tick.", isCommandable = true, minimalValue = 0)
+    public static int networkUpdateBudget = 0;
+
+    /**
+     * The maximum time in microseconds that all networks together can spend on updating their elements each tick, 0 disables this limit.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The maximum time in microseconds that all networks together can spend on updating their elements each tick, 0 disables this limit. Elements that do not fit within this budget are deferred to the next tick.", isCommandable = true, minimalValue = 0)
+    public static int globalNetworkUpdateBudget = 0;
+
+    /**
+     * The number of consecutive ticks an element update can be deferred before it is forced to run.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The number of consecutive ticks an element update can be deferred because of the network update budgets before it is forced to run.", isCommandable = true, minimalValue = 0)
+    public static int networkUpdateMaxDeferrals = 20;
+
+    /**
+     * If networks without pending work should stop being updated until something happens in them.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If networks without pending work should stop being updated until something happens in them.", isCommandable = true)
+    public static boolean networkDormancy = true;
+
+    /**
+     * The maximum time in milliseconds that can be spent each tick on restoring networks after the world is loaded, 0 restores them all at once.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The maximum time in milliseconds that can be spent each tick on restoring networks after the world is loaded, 0 restores them all at once. Networks are not updated until they are fully restored.", isCommandable = true, minimalValue = 0)
+    public static int networkRestoreBudget = 10;
+
+    /**
+     * If networks should be serialized and saved on a background thread, in a separate file.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If networks should be serialized and saved on a background thread, in a separate file. This reduces the server pause during world saves for large networks.", isCommandable = true)
+    public static boolean asyncNetworkSave = false;
+
+    /**
+     * One in how many network element and aspect updates should be timed for the network metrics, 0 disables them.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "One in how many network element and aspect updates should be timed for the network metrics, 0 disables them.", isCommandable = true, minimalValue = 0)
+    public static int networkMetricsSampleInterval = 64;
+
+    /**
+     * The interval in seconds at which network metrics are written to the world folder, 0 disables this.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "The interval in seconds at which network metrics are written as CSV and JSON to the integrateddynamics folder of the world, 0 disables this.", isCommandable = true, minimalValue = 0)
+    public static int networkMetricsDumpInterval = 0;
+
+    /**
+     * If the bytes that are allocated during network updates should be counted for the network metrics.
+     */
+    @ConfigurableProperty(category = ConfigurableTypeCategory.CORE, comment = "If the bytes that are allocated during network updates, element updates and storage observations should be counted for the network metrics. This is only supported on JVMs that can count the allocated bytes per thread.", isCommandable = true)
+    public static boolean networkAllocationTracking = false;
+
     /**
      * If network change events should be logged. Only enable this when debugging.
      */
@@ -54,6 +54,8 @@ import org.cyclops.integrateddynamics.client.render.valuetype.ValueTypeWorldRend
 import org.cyclops.integrateddynamics.client.render.valuetype.ValueTypeWorldRenderers;
 import org.cyclops.integrateddynamics.command.CommandCrash;
 import org.cyclops.integrateddynamics.command.CommandNetworkDiagnostics;
+import org.cyclops.integrateddynamics.command.CommandNetworkMetrics;
+import org.cyclops.integrateddynamics.command.CommandNetworkStats;
 import org.cyclops.integrateddynamics.command.CommandTest;
 import org.cyclops.integrateddynamics.core.NoteBlockEventReceiver;
 import org.cyclops.integrateddynamics.core.TickHandler;
@@ -174,6 +176,8 @@ public class IntegratedDynamics extends ModBaseVersionable {
             commands.put(CommandTest.NAME, new CommandTest(this));
         }
         commands.put(CommandNetworkDiagnostics.NAME, new CommandNetworkDiagnostics(this));
+        commands.put(CommandNetworkStats.NAME, new CommandNetworkStats(this));
+        commands.put(CommandNetworkMetrics.NAME, new CommandNetworkMetrics(this));
         commands.put(CommandCrash.NAME, new CommandCrash(this));
         return new CommandMod(this, commands);
     }
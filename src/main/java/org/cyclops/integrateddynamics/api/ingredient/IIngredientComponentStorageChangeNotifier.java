@@ -0,0 +1,61 @@
+package org.cyclops.integrateddynamics.api.ingredient;
+
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientCollection;
+
+/**
+ * A capability for storages that notify listeners about their changes,
+ * so that ingredient networks do not have to poll their contents.
+ *
+ * Storages exposing this capability MUST notify about all changes of their contents
+ * for the ingredient components for which listeners are accepted,
+ * and MUST call {@link IChangeListener#onInvalidated()} when they can not notify anymore,
+ * for example when they are removed or unloaded.
+ * Listeners can be added and removed from any thread.
+ * @author rubensworks
+ */
+public interface IIngredientComponentStorageChangeNotifier {
+
+    /**
+     * Add a listener for changes to the instances of the given ingredient component.
+     * @param component The ingredient component.
+     * @param listener A change listener.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return If the listener was added,
+     *         false if changes of the given ingredient component are not notified by this storage.
+     */
+    public <T, M> boolean addChangeListener(IngredientComponent<T, M> component, IChangeListener<T, M> listener);
+
+    /**
+     * Remove the given change listener.
+     * This will silently fail if the given listener was not added.
+     * @param component The ingredient component.
+     * @param listener A change listener.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     */
+    public <T, M> void removeChangeListener(IngredientComponent<T, M> component, IChangeListener<T, M> listener);
+
+    /**
+     * A listener for storage changes.
+     * @param <T> The instance type.
+     * @param <M> The match condition type.
+     */
+    public static interface IChangeListener<T, M> {
+        /**
+         * Called after instances were added to or removed from the storage.
+         * This is usually called on the main server thread.
+         * @param change The type of change.
+         * @param instances The instances that were added or removed.
+         *                  This must not be modified by the storage afterwards.
+         */
+        public void onChange(IIngredientComponentStorageObservable.Change change, IIngredientCollection<T, M> instances);
+
+        /**
+         * Called when the storage will not notify about changes anymore.
+         */
+        public void onInvalidated();
+    }
+
+}
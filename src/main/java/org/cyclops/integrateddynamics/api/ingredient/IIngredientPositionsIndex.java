@@ -4,6 +4,7 @@ import org.cyclops.cyclopscore.ingredient.collection.IIngredientCollection;
 import org.cyclops.integrateddynamics.api.part.PartPos;
 import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 
+import java.util.Collections;
 import java.util.Iterator;
 
 /**
@@ -45,6 +46,50 @@ public interface IIngredientPositionsIndex<T, M> extends IIngredientCollection<T
      */
     public void removePosition(T instance, PrioritizedPartPos pos);
 
+    /**
+     * Indicate that the quantity of the given instance is removed from the given position.
+     *
+     * This will not remove the given position,
+     * use {@link #removePosition(Object, PrioritizedPartPos)} for that.
+     *
+     * This does nothing if this index does not track quantities per position.
+     *
+     * @param instance An instance.
+     * @param pos A position.
+     */
+    public default void removePositionQuantity(T instance, PrioritizedPartPos pos) {
+
+    }
+
+    /**
+     * Get the quantity of the given instance that is indexed in the given position.
+     * @param instance An instance, of which the quantity is ignored.
+     * @param pos A position.
+     * @return The indexed quantity in the position,
+     *         or zero if this index does not track quantities per position.
+     */
+    public default long getPositionQuantity(T instance, PartPos pos) {
+        return 0;
+    }
+
+    /**
+     * Get the instances that are indexed in the given position.
+     * @param pos A position.
+     * @return The instances with a quantity of one,
+     *         or no instances if this index does not track quantities per position.
+     */
+    public default Iterator<T> getPositionInstances(PartPos pos) {
+        return Collections.emptyIterator();
+    }
+
+    /**
+     * @return If this index tracks the quantities of instances per position,
+     *         see {@link #getPositionQuantity(Object, PartPos)}.
+     */
+    public default boolean hasPositionQuantities() {
+        return false;
+    }
+
     /**
      * Get the available quantity for the given instance.
      * @param instance An instance to match.
@@ -1,8 +1,12 @@
 package org.cyclops.integrateddynamics.api.network;
 
+import com.google.common.collect.Lists;
 import net.minecraft.util.EnumFacing;
 import org.cyclops.integrateddynamics.api.path.IPathElement;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * This should be implemented on network capabilities that wish to listen to all network events.
  * @author rubensworks
@@ -18,6 +22,24 @@ public interface IFullNetworkListener {
      */
     public boolean addNetworkElement(INetworkElement element, boolean networkPreinit);
 
+    /**
+     * Add the given network elements to the network in one batch.
+     * This is equivalent to calling {@link #addNetworkElement(INetworkElement, boolean)} for each element,
+     * but allows the network to be notified of the change only once.
+     * @param elements The network elements.
+     * @param networkPreinit If the network is still in the process of being initialized.
+     * @return The elements for which the addition succeeded.
+     */
+    public default Collection<INetworkElement> addNetworkElements(Collection<INetworkElement> elements, boolean networkPreinit) {
+        List<INetworkElement> addedElements = Lists.newArrayListWithCapacity(elements.size());
+        for (INetworkElement element : elements) {
+            if (addNetworkElement(element, networkPreinit)) {
+                addedElements.add(element);
+            }
+        }
+        return addedElements;
+    }
+
     /**
      * Checks if the given network element can be removed from the network
      * @param element The network element.
@@ -42,6 +64,14 @@ public interface IFullNetworkListener {
      */
     public void update();
 
+    /**
+     * @return If this listener has no pending work in {@link #update()},
+     *         so that the network may skip its updates.
+     */
+    public default boolean isDormant() {
+        return false;
+    }
+
     /**
      * Remove the given path element from the network.
      * If the path element had any network elements registered in the network, these will be killed and removed as well.
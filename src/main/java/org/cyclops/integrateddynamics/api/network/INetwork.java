@@ -1,10 +1,13 @@
 package org.cyclops.integrateddynamics.api.network;
 
 import net.minecraftforge.common.capabilities.Capability;
+import org.cyclops.cyclopscore.datastructure.DimPos;
 import org.cyclops.cyclopscore.persist.nbt.INBTSerializable;
 import org.cyclops.integrateddynamics.api.network.event.INetworkEventBus;
 import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.Set;
 
 /**
@@ -24,6 +27,63 @@ public interface INetwork extends IFullNetworkListener, INBTSerializable {
      */
     public INetworkEventBus getEventBus();
 
+    /**
+     * @return The unique id of this network, which is persisted with the network.
+     */
+    public int getId();
+
+    /**
+     * Start updating this network, this must be called on the main server thread.
+     * {@link #update()} is equivalent to calling this method,
+     * followed by {@link #updateConcurrent()} and {@link #finishUpdate()} if this returned true.
+     * @return If the network is still alive and the update should continue.
+     */
+    public boolean startUpdate();
+
+    /**
+     * Update the network listeners, such as the observation of ingredient positions.
+     * This may be called from a worker thread when networks are being updated in parallel,
+     * in which case modifications to the world must be deferred until {@link #finishUpdate()}.
+     */
+    public void updateConcurrent();
+
+    /**
+     * Finish updating this network on the main server thread.
+     * This applies the deferred world modifications, and updates the network elements that are due.
+     */
+    public void finishUpdate();
+
+    /**
+     * @return The wall-clock duration of the last update of this network in nanoseconds.
+     */
+    public long getLastUpdateDuration();
+
+    /**
+     * This is only counted if allocation tracking is enabled in the config and supported by the JVM.
+     * @return The number of bytes allocated during the last update of this network.
+     */
+    public long getLastUpdateAllocatedBytes();
+
+    /**
+     * @return The number of element updates that did not fit within the update budget of the last tick,
+     *         and were deferred to the next tick.
+     */
+    public int getDeferredUpdatesCount();
+
+    /**
+     * A network is dormant if it has no pending work, in which case it does not have to be updated.
+     * It stops being dormant when one of its element updates becomes due,
+     * when one of its network listeners is not dormant anymore, or when it is woken up.
+     * @return If this network can skip its update in the current tick.
+     */
+    public boolean isDormant();
+
+    /**
+     * Make sure that this network is updated in the next tick,
+     * this should be called when something happened that may cause work in this network.
+     */
+    public void wakeUp();
+
     /**
      * Add a given network element to the tickable elements set.
      * @param element The network element.
@@ -65,6 +125,16 @@ public interface INetwork extends IFullNetworkListener, INBTSerializable {
      */
     public boolean hasChanged();
 
+    /**
+     * Mark the structure of this network as modified, so that it is fully serialized again on the next world save.
+     */
+    public void markDirty();
+
+    /**
+     * @return If the structure of this network was modified since it was last serialized.
+     */
+    public boolean isDirty();
+
     /**
      * @return The number of cables in the network.
      */
@@ -77,6 +147,19 @@ public interface INetwork extends IFullNetworkListener, INBTSerializable {
      */
     public long getLastSecondDuration(INetworkElement networkElement);
 
+    /**
+     * @param networkElement The network element.
+     * @return The number of times the given network element was updated in this network.
+     */
+    public long getElementUpdates(INetworkElement networkElement);
+
+    /**
+     * The sum of the durations of the updates of the given network element that were sampled by the network metrics.
+     * @param networkElement The network element.
+     * @return Duration in nanoseconds
+     */
+    public long getElementSampledDuration(INetworkElement networkElement);
+
     /**
      * Reset the last second duration counts.
      */
@@ -127,6 +210,16 @@ public interface INetwork extends IFullNetworkListener, INBTSerializable {
      */
     public boolean containsSidedPathElement(ISidedPathElement sidedPathElement);
 
+    /**
+     * Get the elements of this network at the given position, without creating them from their provider.
+     * @param pos A position.
+     * @return An unmodifiable view of the elements at the given position,
+     *         or null if this is unknown because this network contains elements without a position.
+     *         In that case, the elements have to be created from the {@link INetworkElementProvider} at that position.
+     */
+    @Nullable
+    public Collection<INetworkElement> getElementsAt(DimPos pos);
+
     /**
      * @return All registered network listeners.
      */
@@ -1,7 +1,9 @@
 package org.cyclops.integrateddynamics.api.network;
 
+import com.google.common.collect.Lists;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraftforge.common.capabilities.Capability;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
 import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorageWrapperHandler;
@@ -12,6 +14,7 @@ import org.cyclops.integrateddynamics.api.part.PartPos;
 
 import javax.annotation.Nullable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -85,6 +88,104 @@ public interface IPositionedAddonsNetworkIngredients<T, M> extends IPositionedAd
         return wrapperHandler != null ? wrapperHandler.wrapStorage(getChannel(channel)) : null;
     }
 
+    /**
+     * Insert the given instances into the given channel as a single unit.
+     *
+     * The positions of the channel are walked once for the whole batch,
+     * and each position receives all operations that fit into it.
+     * If not all operations can be inserted completely, the batch is rolled back.
+     *
+     * By default, the operations are inserted one by one into the channel,
+     * and the inserted operations are extracted again if one of them does not fit.
+     *
+     * @param channel A channel id.
+     * @param operations The instances to insert. Match conditions are ignored.
+     * @return The result of the batch.
+     */
+    public default TransferResult<T> insertBatch(int channel, List<TransferOperation<T, M>> operations) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        IIngredientComponentStorage<T, M> storage = getChannel(channel);
+        List<T> instances = Lists.newArrayListWithCapacity(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            instances.add(matcher.getEmptyInstance());
+        }
+        if (!TransferOperation.isWithinRateLimit(operations, getRateLimit())) {
+            return new TransferResult<>(false, instances);
+        }
+
+        boolean committed = true;
+        for (int i = 0; i < operations.size() && committed; i++) {
+            TransferOperation<T, M> operation = operations.get(i);
+            long quantity = Math.max(0, operation.getQuantity());
+            T instance = matcher.withQuantity(operation.getPrototype(), quantity);
+            long inserted = quantity - matcher.getQuantity(storage.insert(instance, false));
+            instances.set(i, matcher.withQuantity(instance, inserted));
+            committed = inserted == quantity;
+        }
+
+        // Undo the insertions in reverse order
+        if (!committed) {
+            M exactMatchFlags = matcher.withoutCondition(matcher.getExactMatchCondition(),
+                    getComponent().getPrimaryQuantifier().getMatchCondition());
+            for (int i = instances.size() - 1; i >= 0; i--) {
+                T instance = instances.get(i);
+                if (!matcher.isEmpty(instance)) {
+                    long undone = matcher.getQuantity(storage.extract(instance, exactMatchFlags, false));
+                    instances.set(i, matcher.withQuantity(instance, matcher.getQuantity(instance) - undone));
+                }
+            }
+        }
+        return new TransferResult<>(committed, instances);
+    }
+
+    /**
+     * Extract the given instances from the given channel as a single unit.
+     *
+     * The positions of the channel are walked once for the whole batch,
+     * and all operations are extracted from each position that contains them.
+     * Once an operation has extracted an instance, it will only extract more of that exact instance.
+     * If not all operations can be extracted completely, the batch is rolled back.
+     *
+     * By default, the operations are extracted one by one from the channel,
+     * and the extracted operations are inserted again if one of them is not available.
+     *
+     * @param channel A channel id.
+     * @param operations The instances to extract.
+     * @return The result of the batch.
+     */
+    public default TransferResult<T> extractBatch(int channel, List<TransferOperation<T, M>> operations) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        IIngredientComponentStorage<T, M> storage = getChannel(channel);
+        List<T> instances = Lists.newArrayListWithCapacity(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            instances.add(matcher.getEmptyInstance());
+        }
+        if (!TransferOperation.isWithinRateLimit(operations, getRateLimit())) {
+            return new TransferResult<>(false, instances);
+        }
+
+        boolean committed = true;
+        for (int i = 0; i < operations.size() && committed; i++) {
+            TransferOperation<T, M> operation = operations.get(i);
+            long quantity = Math.max(0, operation.getQuantity());
+            T extracted = storage.extract(matcher.withQuantity(operation.getPrototype(), quantity),
+                    matcher.withCondition(operation.getMatchCondition(), getComponent().getPrimaryQuantifier().getMatchCondition()), false);
+            instances.set(i, extracted);
+            committed = matcher.getQuantity(extracted) == quantity;
+        }
+
+        // Undo the extractions in reverse order
+        if (!committed) {
+            for (int i = instances.size() - 1; i >= 0; i--) {
+                T instance = instances.get(i);
+                if (!matcher.isEmpty(instance)) {
+                    instances.set(i, storage.insert(instance, false));
+                }
+            }
+        }
+        return new TransferResult<>(committed, instances);
+    }
+
     /**
      * Get the last tick duration of the index observer.
      * @return Duration in nanoseconds
@@ -96,4 +197,92 @@ public interface IPositionedAddonsNetworkIngredients<T, M> extends IPositionedAd
      */
     public void resetLastSecondDurationsIndex();
 
+    /**
+     * An operation within a batched transfer.
+     * @param <T> The instance type.
+     * @param <M> The match condition type.
+     */
+    public static class TransferOperation<T, M> {
+        private final T prototype;
+        private final long quantity;
+        private final M matchCondition;
+
+        public TransferOperation(T prototype, long quantity, M matchCondition) {
+            this.prototype = prototype;
+            this.quantity = quantity;
+            this.matchCondition = matchCondition;
+        }
+
+        /**
+         * @return The instance to transfer, of which the quantity is ignored.
+         */
+        public T getPrototype() {
+            return prototype;
+        }
+
+        /**
+         * @return The quantity to transfer.
+         */
+        public long getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * @return The condition to match instances with, the quantity condition is ignored.
+         */
+        public M getMatchCondition() {
+            return matchCondition;
+        }
+
+        /**
+         * Check if the total quantity of the given operations does not exceed the given rate limit.
+         * @param operations Transfer operations.
+         * @param rateLimit A rate limit.
+         * @param <T> The instance type.
+         * @param <M> The match condition type.
+         * @return If the operations are within the rate limit.
+         */
+        public static <T, M> boolean isWithinRateLimit(List<TransferOperation<T, M>> operations, long rateLimit) {
+            long total = 0;
+            for (TransferOperation<T, M> operation : operations) {
+                total += Math.max(0, operation.getQuantity());
+                if (total > rateLimit || total < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The result of a batched transfer.
+     * @param <T> The instance type.
+     */
+    public static class TransferResult<T> {
+        private final boolean committed;
+        private final List<T> instances;
+
+        public TransferResult(boolean committed, List<T> instances) {
+            this.committed = committed;
+            this.instances = instances;
+        }
+
+        /**
+         * @return If all operations were transferred completely.
+         */
+        public boolean isCommitted() {
+            return committed;
+        }
+
+        /**
+         * The transferred instances, in the order of the operations.
+         * If the batch was rolled back, these are the instances that could not be rolled back,
+         * which will usually be empty, but must be handled by the caller to avoid losing them.
+         * @return The transferred instances.
+         */
+        public List<T> getInstances() {
+            return instances;
+        }
+    }
+
 }
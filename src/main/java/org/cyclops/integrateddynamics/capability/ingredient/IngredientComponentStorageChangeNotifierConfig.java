@@ -0,0 +1,45 @@
+package org.cyclops.integrateddynamics.capability.ingredient;
+
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.CapabilityInject;
+import org.cyclops.commoncapabilities.CommonCapabilities;
+import org.cyclops.cyclopscore.config.extendedconfig.CapabilityConfig;
+import org.cyclops.cyclopscore.modcompat.capabilities.DefaultCapabilityStorage;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageChangeNotifier;
+
+/**
+ * Config for the ingredient component storage change notifier capability.
+ * @author rubensworks
+ *
+ */
+public class IngredientComponentStorageChangeNotifierConfig extends CapabilityConfig<IIngredientComponentStorageChangeNotifier> {
+
+    /**
+     * The unique instance.
+     */
+    public static IngredientComponentStorageChangeNotifierConfig _instance;
+
+    @CapabilityInject(IIngredientComponentStorageChangeNotifier.class)
+    public static Capability<IIngredientComponentStorageChangeNotifier> CAPABILITY = null;
+
+    /**
+     * Make a new instance.
+     */
+    public IngredientComponentStorageChangeNotifierConfig() {
+        super(
+                CommonCapabilities._instance,
+                true,
+                "ingredientComponentStorageChangeNotifier",
+                "Notifies ingredient networks about changes in storages, so that these do not have to be polled",
+                IIngredientComponentStorageChangeNotifier.class,
+                new DefaultCapabilityStorage<IIngredientComponentStorageChangeNotifier>(),
+                IngredientComponentStorageChangeNotifierDefault.class
+        );
+    }
+
+    @Override
+    public boolean isDisableable() {
+        return false;
+    }
+
+}
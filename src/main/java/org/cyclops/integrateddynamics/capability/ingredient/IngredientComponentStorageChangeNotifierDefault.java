@@ -0,0 +1,93 @@
+package org.cyclops.integrateddynamics.capability.ingredient;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientCollection;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageChangeNotifier;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Default implementation of {@link IIngredientComponentStorageChangeNotifier}.
+ * Storages call {@link #notifyChange(IngredientComponent, IIngredientComponentStorageObservable.Change, IIngredientCollection)}
+ * after each change, and {@link #invalidate()} when they are removed or unloaded.
+ * @author rubensworks
+ */
+public class IngredientComponentStorageChangeNotifierDefault implements IIngredientComponentStorageChangeNotifier {
+
+    private final Set<IngredientComponent<?, ?>> components;
+    private final Map<IngredientComponent<?, ?>, List<IChangeListener<?, ?>>> listeners = Maps.newIdentityHashMap();
+
+    /**
+     * @param components The ingredient components of which changes are notified.
+     */
+    public IngredientComponentStorageChangeNotifierDefault(IngredientComponent<?, ?>... components) {
+        this.components = Sets.newHashSet(components);
+        for (IngredientComponent<?, ?> component : components) {
+            this.listeners.put(component, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    @Override
+    public <T, M> boolean addChangeListener(IngredientComponent<T, M> component, IChangeListener<T, M> listener) {
+        if (!components.contains(component)) {
+            return false;
+        }
+        listeners.get(component).add(listener);
+        return true;
+    }
+
+    @Override
+    public <T, M> void removeChangeListener(IngredientComponent<T, M> component, IChangeListener<T, M> listener) {
+        List<IChangeListener<?, ?>> componentListeners = listeners.get(component);
+        if (componentListeners != null) {
+            componentListeners.remove(listener);
+        }
+    }
+
+    /**
+     * @param component An ingredient component.
+     * @return If any listeners were added for the given ingredient component.
+     *         This can be used to avoid creating change collections.
+     */
+    public boolean hasListeners(IngredientComponent<?, ?> component) {
+        List<IChangeListener<?, ?>> componentListeners = listeners.get(component);
+        return componentListeners != null && !componentListeners.isEmpty();
+    }
+
+    /**
+     * Notify all listeners of the given ingredient component about a change.
+     * @param component The ingredient component.
+     * @param change The type of change.
+     * @param instances The instances that were added or removed.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     */
+    public <T, M> void notifyChange(IngredientComponent<T, M> component, IIngredientComponentStorageObservable.Change change,
+                                    IIngredientCollection<T, M> instances) {
+        List<IChangeListener<?, ?>> componentListeners = listeners.get(component);
+        if (componentListeners != null) {
+            for (IChangeListener<?, ?> listener : componentListeners) {
+                ((IChangeListener<T, M>) listener).onChange(change, instances);
+            }
+        }
+    }
+
+    /**
+     * Indicate that changes will not be notified anymore, and remove all listeners.
+     */
+    public void invalidate() {
+        for (List<IChangeListener<?, ?>> componentListeners : listeners.values()) {
+            for (IChangeListener<?, ?> listener : componentListeners) {
+                listener.onInvalidated();
+            }
+            componentListeners.clear();
+        }
+    }
+
+}
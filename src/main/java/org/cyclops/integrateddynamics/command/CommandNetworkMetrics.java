@@ -0,0 +1,85 @@
+package org.cyclops.integrateddynamics.command;
+
+import com.google.common.collect.Lists;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
+import org.cyclops.cyclopscore.command.CommandMod;
+import org.cyclops.cyclopscore.init.ModBase;
+import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.core.network.metrics.AllocationCounter;
+import org.cyclops.integrateddynamics.core.network.metrics.LatencyHistogram;
+import org.cyclops.integrateddynamics.core.network.metrics.NetworkMetrics;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command for showing the sampled network metrics and the allocated bytes per tick,
+ * or dumping and resetting them with the 'dump' and 'reset' arguments.
+ * @author rubensworks
+ *
+ */
+public class CommandNetworkMetrics extends CommandMod {
+
+    public static final String NAME = "networkmetrics";
+    private static final int TOP_ENTRIES = 5;
+
+    public CommandNetworkMetrics(ModBase mod) {
+        super(mod, NAME);
+    }
+
+    @Override
+    public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] parts, BlockPos blockPos) {
+        return parts.length <= 1 ? Lists.newArrayList("dump", "reset") : null;
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] parts) {
+        NetworkMetrics metrics = NetworkMetrics.getInstance();
+        if (parts.length > 0 && "dump".equals(parts[0])) {
+            File folder = NetworkMetrics.getDumpFolder();
+            metrics.dump(folder);
+            sender.sendMessage(new TextComponentString("Wrote network metrics to " + folder));
+        } else if (parts.length > 0 && "reset".equals(parts[0])) {
+            metrics.reset();
+            sender.sendMessage(new TextComponentString("Reset network metrics"));
+        } else {
+            sender.sendMessage(new TextComponentString(String.format("Sampling one in %s updates",
+                    GeneralConfig.networkMetricsSampleInterval)));
+            sendHistograms(sender, "Parts", metrics.getPartTypeLatencies());
+            sendHistograms(sender, "Aspects", metrics.getAspectLatencies());
+            if (AllocationCounter.isEnabled()) {
+                long ticks = metrics.getAllocationTicks();
+                sender.sendMessage(new TextComponentString(String.format("Allocations over %s ticks", ticks)));
+                sendAllocations(sender, "Parts", metrics.getPartTypeAllocations(), ticks);
+                sendAllocations(sender, "Observers", metrics.getObserverAllocations(), ticks);
+            } else if (GeneralConfig.networkAllocationTracking) {
+                sender.sendMessage(new TextComponentString("Allocation tracking is not supported by this JVM"));
+            }
+        }
+    }
+
+    protected void sendAllocations(ICommandSender sender, String title, List<Map.Entry<String, Long>> allocations, long ticks) {
+        sender.sendMessage(new TextComponentString(title + ":"));
+        for (int i = 0; i < Math.min(TOP_ENTRIES, allocations.size()); i++) {
+            Map.Entry<String, Long> entry = allocations.get(i);
+            sender.sendMessage(new TextComponentString(String.format(" %s: %.1f KB/tick",
+                    entry.getKey(), ticks > 0 ? entry.getValue() / 1024D / ticks : 0D)));
+        }
+    }
+
+    protected void sendHistograms(ICommandSender sender, String title, List<Map.Entry<String, LatencyHistogram>> histograms) {
+        sender.sendMessage(new TextComponentString(title + ":"));
+        for (int i = 0; i < Math.min(TOP_ENTRIES, histograms.size()); i++) {
+            Map.Entry<String, LatencyHistogram> entry = histograms.get(i);
+            LatencyHistogram histogram = entry.getValue();
+            sender.sendMessage(new TextComponentString(String.format(" %s: %s samples, p50 %.1f us, p99 %.1f us, max %.1f us",
+                    entry.getKey(), histogram.getCount(), histogram.getPercentile(0.5) / 1000D,
+                    histogram.getPercentile(0.99) / 1000D, histogram.getMax() / 1000D)));
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.cyclops.integrateddynamics.command;
+
+import com.google.common.collect.Lists;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
+import org.cyclops.cyclopscore.command.CommandMod;
+import org.cyclops.cyclopscore.init.ModBase;
+import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.IntegratedDynamics;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.cyclops.integrateddynamics.core.TickHandler;
+import org.cyclops.integrateddynamics.core.network.NetworkRestorer;
+import org.cyclops.integrateddynamics.core.network.metrics.AllocationCounter;
+import org.cyclops.integrateddynamics.core.persist.world.NetworkWorldStorage;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Command for showing how long the networks took to update in the last tick,
+ * and how many bytes they allocated if allocation tracking is enabled.
+ * @author rubensworks
+ *
+ */
+public class CommandNetworkStats extends CommandMod {
+
+    public static final String NAME = "networkstats";
+    private static final int TOP_NETWORKS = 5;
+
+    public CommandNetworkStats(ModBase mod) {
+        super(mod, NAME);
+    }
+
+    @Override
+    public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] parts, BlockPos blockPos) {
+        return null;
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] parts) {
+        long tickDuration = TickHandler.getInstance().getLastTickDuration();
+        long networksDuration = TickHandler.getInstance().getLastTickNetworksDuration();
+        List<INetwork> networks = Lists.newArrayList(NetworkWorldStorage.getInstance(IntegratedDynamics._instance).getNetworks());
+
+        int dormant = 0;
+        for (INetwork network : networks) {
+            if (network.isDormant()) {
+                dormant++;
+            }
+        }
+        sender.sendMessage(new TextComponentString(String.format("Networks: %s, dormant: %s (parallel updates: %s, threads: %s)",
+                networks.size(), dormant, GeneralConfig.parallelNetworkUpdates, GeneralConfig.parallelNetworkUpdatesThreads)));
+        NetworkRestorer restorer = NetworkRestorer.getInstance();
+        if (restorer.getPendingNetworks() > 0) {
+            sender.sendMessage(new TextComponentString(String.format("Restoring networks: %.1f%% (%s/%s restored)",
+                    restorer.getProgress() * 100, restorer.getRestoredNetworks(), restorer.getTotalNetworks())));
+        }
+        sender.sendMessage(new TextComponentString(String.format("Last tick: %.3f ms wall time, %.3f ms network time (x%.2f)",
+                tickDuration / 1000000D, networksDuration / 1000000D,
+                tickDuration > 0 ? (double) networksDuration / tickDuration : 0D)));
+
+        networks.sort(Comparator.comparingLong(INetwork::getLastUpdateDuration).reversed());
+        boolean trackAllocations = AllocationCounter.isEnabled();
+        for (int i = 0; i < Math.min(TOP_NETWORKS, networks.size()); i++) {
+            INetwork network = networks.get(i);
+            sender.sendMessage(new TextComponentString(String.format(" %s. %.3f ms, %s cables, %s elements, %s deferred%s",
+                    i + 1, network.getLastUpdateDuration() / 1000000D, network.getCablesCount(), network.getElements().size(),
+                    network.getDeferredUpdatesCount(),
+                    trackAllocations ? String.format(", %.1f KB allocated", network.getLastUpdateAllocatedBytes() / 1024D) : "")));
+        }
+
+        if (trackAllocations) {
+            networks.sort(Comparator.comparingLong(INetwork::getLastUpdateAllocatedBytes).reversed());
+            sender.sendMessage(new TextComponentString("Most allocating networks:"));
+            for (int i = 0; i < Math.min(TOP_NETWORKS, networks.size()); i++) {
+                INetwork network = networks.get(i);
+                sender.sendMessage(new TextComponentString(String.format(" %s. %.1f KB, %.3f ms, %s cables, %s elements",
+                        i + 1, network.getLastUpdateAllocatedBytes() / 1024D, network.getLastUpdateDuration() / 1000000D,
+                        network.getCablesCount(), network.getElements().size())));
+            }
+        }
+    }
+
+}
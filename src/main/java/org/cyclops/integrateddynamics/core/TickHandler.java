@@ -1,16 +1,26 @@
 package org.cyclops.integrateddynamics.core;
 
+import com.google.common.collect.Lists;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
 import org.cyclops.cyclopscore.helper.MinecraftHelpers;
+import org.cyclops.integrateddynamics.GeneralConfig;
 import org.cyclops.integrateddynamics.IntegratedDynamics;
 import org.cyclops.integrateddynamics.api.network.IFullNetworkListener;
 import org.cyclops.integrateddynamics.api.network.INetwork;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
 import org.cyclops.integrateddynamics.core.helper.NetworkHelpers;
+import org.cyclops.integrateddynamics.core.network.NetworkRestorer;
+import org.cyclops.integrateddynamics.core.network.diagnostics.EvaluationProfiler;
 import org.cyclops.integrateddynamics.core.network.diagnostics.NetworkDiagnostics;
+import org.cyclops.integrateddynamics.core.network.metrics.AllocationCounter;
+import org.cyclops.integrateddynamics.core.network.metrics.NetworkMetrics;
 import org.cyclops.integrateddynamics.core.persist.world.NetworkWorldStorage;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 /**
  * Handles server ticks to delegate to networks.
  * @author rubensworks
@@ -21,6 +31,12 @@ public final class TickHandler {
     private int tick = 0;
     private boolean shouldCrash = false;
 
+    private ForkJoinPool networkUpdatePool = null;
+    private long lastTickDuration = 0;
+    private long lastTickNetworksDuration = 0;
+    private long networkUpdateDeadline = Long.MAX_VALUE;
+    private long networkTick = 0;
+
     private TickHandler() {
 
     }
@@ -36,38 +52,153 @@ public final class TickHandler {
         this.shouldCrash = true;
     }
 
+    /**
+     * @return The wall-clock duration of updating all networks in the last tick in nanoseconds.
+     */
+    public long getLastTickDuration() {
+        return lastTickDuration;
+    }
+
+    /**
+     * @return The sum of the update durations of all networks in the last tick in nanoseconds.
+     *         When networks are updated in parallel, this can be larger than {@link #getLastTickDuration()}.
+     */
+    public long getLastTickNetworksDuration() {
+        return lastTickNetworksDuration;
+    }
+
+    /**
+     * @return The time until which networks can update their elements in the current tick,
+     *         or {@link Long#MAX_VALUE} if there is no global update budget.
+     */
+    public long getNetworkUpdateDeadline() {
+        return networkUpdateDeadline;
+    }
+
+    /**
+     * @return The number of ticks in which networks have been updated.
+     */
+    public long getNetworkTick() {
+        return networkTick;
+    }
+
     @SubscribeEvent
     public void onTick(TickEvent event) {
         if (shouldCrash) {
             throw new RuntimeException("Forcefully crashed the server.");
         }
         if(event.type == TickEvent.Type.SERVER && event.phase == TickEvent.Phase.END && NetworkHelpers.shouldWork()) {
+            long startTime = System.nanoTime();
+            networkTick++;
+            networkUpdateDeadline = GeneralConfig.globalNetworkUpdateBudget > 0
+                    ? startTime + GeneralConfig.globalNetworkUpdateBudget * 1000L : Long.MAX_VALUE;
             boolean isBeingDiagnozed = NetworkDiagnostics.getInstance().isBeingDiagnozed();
             if (isBeingDiagnozed) {
                 tick = (tick + 1) % MinecraftHelpers.SECOND_IN_TICKS;
             }
             boolean shouldSendTickDurationInfo = isBeingDiagnozed && tick == 0;
-            for(INetwork network : NetworkWorldStorage.getInstance(IntegratedDynamics._instance).getNetworks()) {
-                if (isBeingDiagnozed && (shouldSendTickDurationInfo || network.hasChanged())) {
-                    NetworkDiagnostics.getInstance().sendNetworkUpdate(network);
-                    network.resetLastSecondDurations();
-
-                    // Also reset durations of indexes
-                    for (IFullNetworkListener fullNetworkListener : network.getFullNetworkListeners()) {
-                        if (fullNetworkListener instanceof IPositionedAddonsNetworkIngredients) {
-                            IPositionedAddonsNetworkIngredients<?, ?> networkIngredients = (IPositionedAddonsNetworkIngredients<?, ?>) fullNetworkListener;
-                            networkIngredients.resetLastSecondDurationsIndex();
+            if (shouldSendTickDurationInfo) {
+                // Evaluations are reported per second, like the durations of the network elements.
+                EvaluationProfiler.getInstance().reset();
+            }
+            if (isBeingDiagnozed) {
+                NetworkDiagnostics.getInstance().sendSnapshots();
+            }
+            List<INetwork> networks = NetworkWorldStorage.getInstance(IntegratedDynamics._instance).getNetworks();
+            int networksCount = networks.size();
+            if (GeneralConfig.parallelNetworkUpdates) {
+                for (int i = 0; i < networksCount; i++) {
+                    sendDiagnostics(networks.get(i), isBeingDiagnozed, shouldSendTickDurationInfo);
+                }
+                updateNetworksParallel(networks);
+            } else {
+                for (int i = 0; i < networksCount; i++) {
+                    INetwork network = networks.get(i);
+                    sendDiagnostics(network, isBeingDiagnozed, shouldSendTickDurationInfo);
+                    try {
+                        if (!network.isCrashed() && !network.isDormant()) {
+                            network.update();
                         }
+                    } catch (Throwable e) {
+                        network.setCrashed(true);
+                        throw e;
                     }
                 }
-                try {
-                    if (!network.isCrashed()) {
-                        network.update();
-                    }
-                } catch (Throwable e) {
-                    network.setCrashed(true);
-                    throw e;
+            }
+
+            networkUpdateDeadline = Long.MAX_VALUE;
+            if (AllocationCounter.isEnabled()) {
+                NetworkMetrics.getInstance().onAllocationTick();
+            }
+            if (GeneralConfig.networkMetricsDumpInterval > 0
+                    && networkTick % (GeneralConfig.networkMetricsDumpInterval * (long) MinecraftHelpers.SECOND_IN_TICKS) == 0) {
+                NetworkMetrics.getInstance().dump(NetworkMetrics.getDumpFolder());
+            }
+            if (GeneralConfig.networkRestoreBudget > 0) {
+                NetworkRestorer.getInstance().restore(System.nanoTime() + GeneralConfig.networkRestoreBudget * 1000000L);
+            }
+            lastTickDuration = System.nanoTime() - startTime;
+            long networksDuration = 0;
+            for (int i = 0; i < networksCount; i++) {
+                networksDuration += networks.get(i).getLastUpdateDuration();
+            }
+            lastTickNetworksDuration = networksDuration;
+        }
+    }
+
+    protected void sendDiagnostics(INetwork network, boolean isBeingDiagnozed, boolean shouldSendTickDurationInfo) {
+        if (isBeingDiagnozed && (shouldSendTickDurationInfo || network.hasChanged())) {
+            NetworkDiagnostics.getInstance().sendNetworkUpdate(network);
+            network.resetLastSecondDurations();
+
+            // Also reset durations of indexes
+            for (IFullNetworkListener fullNetworkListener : network.getFullNetworkListeners()) {
+                if (fullNetworkListener instanceof IPositionedAddonsNetworkIngredients) {
+                    IPositionedAddonsNetworkIngredients<?, ?> networkIngredients = (IPositionedAddonsNetworkIngredients<?, ?>) fullNetworkListener;
+                    networkIngredients.resetLastSecondDurationsIndex();
+                }
+            }
+        }
+    }
+
+    /**
+     * Update the given networks in three phases.
+     * First, all networks are started on the main thread.
+     * Then, the network listeners of all networks are updated concurrently on a fork-join pool,
+     * during which world modifications are buffered per network.
+     * Finally, the buffered modifications are applied and the network elements are updated
+     * on the main thread, in the same order as the networks were given.
+     * @param networks The networks to update.
+     */
+    protected void updateNetworksParallel(List<INetwork> networks) {
+        if (networkUpdatePool == null) {
+            networkUpdatePool = new ForkJoinPool(GeneralConfig.parallelNetworkUpdatesThreads);
+        }
+
+        List<INetwork> updatingNetworks = Lists.newArrayListWithCapacity(networks.size());
+        for (INetwork network : networks) {
+            try {
+                if (!network.isCrashed() && !network.isDormant() && network.startUpdate()) {
+                    updatingNetworks.add(network);
                 }
+            } catch (Throwable e) {
+                network.setCrashed(true);
+                throw e;
+            }
+        }
+
+        List<ForkJoinTask<?>> tasks = Lists.newArrayListWithCapacity(updatingNetworks.size());
+        for (INetwork network : updatingNetworks) {
+            tasks.add(networkUpdatePool.submit(network::updateConcurrent));
+        }
+        for (int i = 0; i < updatingNetworks.size(); i++) {
+            INetwork network = updatingNetworks.get(i);
+            try {
+                tasks.get(i).join();
+                network.finishUpdate();
+            } catch (Throwable e) {
+                network.setCrashed(true);
+                throw e;
             }
         }
     }
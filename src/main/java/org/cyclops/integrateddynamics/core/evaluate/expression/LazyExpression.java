@@ -8,6 +8,7 @@ import org.cyclops.integrateddynamics.api.evaluate.operator.IOperator;
 import org.cyclops.integrateddynamics.api.evaluate.variable.IValue;
 import org.cyclops.integrateddynamics.api.evaluate.variable.IValueType;
 import org.cyclops.integrateddynamics.api.evaluate.variable.IVariable;
+import org.cyclops.integrateddynamics.core.network.diagnostics.EvaluationProfiler;
 
 /**
  * A generic expression with arbitrarily nested binary operations.
@@ -35,14 +36,23 @@ public class LazyExpression<V extends IValue> extends VariableAdapter<V> impleme
 
     @Override
     public IValue evaluate() throws EvaluationException {
+        EvaluationProfiler profiler = EvaluationProfiler.getInstance();
+        boolean profile = profiler.isEnabled();
         if(valueCache.hasValue(id)) {
+            if (profile) {
+                profiler.recordExpression(this, true, 0);
+            }
             return valueCache.getValue(id);
         }
+        long startTime = profile ? System.nanoTime() : 0;
         IValue value = op.evaluate(input);
         for (IVariable inputVariable : input) {
             inputVariable.addInvalidationListener(this);
         }
         valueCache.setValue(id, value);
+        if (profile) {
+            profiler.recordExpression(this, false, System.nanoTime() - startTime);
+        }
         return value;
     }
 
@@ -80,6 +90,10 @@ public class LazyExpression<V extends IValue> extends VariableAdapter<V> impleme
         super.invalidate();
     }
 
+    public int getId() {
+        return id;
+    }
+
     public IOperator getOperator() {
         return op;
     }
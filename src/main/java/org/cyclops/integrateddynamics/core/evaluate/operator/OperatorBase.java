@@ -10,6 +10,8 @@ import org.cyclops.integrateddynamics.api.evaluate.variable.IVariable;
 import org.cyclops.integrateddynamics.api.logicprogrammer.IConfigRenderPattern;
 import org.cyclops.integrateddynamics.core.evaluate.variable.ValueHelpers;
 import org.cyclops.integrateddynamics.core.helper.L10NValues;
+import org.cyclops.integrateddynamics.core.profiling.IProfilingEvent;
+import org.cyclops.integrateddynamics.core.profiling.ProfilingEvents;
 
 import javax.annotation.Nullable;
 import java.util.Arrays;
@@ -135,7 +137,14 @@ public abstract class OperatorBase implements IOperator {
         if(error != null) {
             throw new EvaluationException(error.localize());
         }
-        return function.evaluate(new SafeVariablesGetter(input));
+        IProfilingEvent profilingEvent = ProfilingEvents.get().beginOperatorEvaluation(this);
+        try {
+            return function.evaluate(new SafeVariablesGetter(input));
+        } finally {
+            if (profilingEvent != null) {
+                profilingEvent.commit();
+            }
+        }
     }
 
     @Override
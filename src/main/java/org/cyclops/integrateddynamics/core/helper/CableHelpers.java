@@ -12,6 +12,7 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
 import net.minecraftforge.common.MinecraftForge;
+import org.apache.commons.lang3.tuple.Pair;
 import org.cyclops.cyclopscore.helper.ItemStackHelpers;
 import org.cyclops.cyclopscore.helper.TileHelpers;
 import org.cyclops.integrateddynamics.api.block.IFacadeable;
@@ -186,9 +187,10 @@ public class CableHelpers {
                 sidesToUpdate.add(cableConnectionHit);
                 CableHelpers.updateConnectionsNeighbours(world, pos, sidesToUpdate);
 
-                // Reinit the networks for this block and the disconnected neighbour.
-                NetworkHelpers.initNetwork(world, pos, side);
-                NetworkHelpers.initNetwork(world, pos.offset(cableConnectionHit), side.getOpposite());
+                // Split the networks for this block and the disconnected neighbour.
+                NetworkHelpers.splitNetworks(world, Lists.newArrayList(
+                        Pair.of(pos, side),
+                        Pair.of(pos.offset(cableConnectionHit), side.getOpposite())));
                 return true;
             } else if (cableConnectionHit == null) {
                 // Reconnect cable side
@@ -208,9 +210,8 @@ public class CableHelpers {
                     sidesToUpdate.add(side);
                     CableHelpers.updateConnectionsNeighbours(world, pos, sidesToUpdate);
 
-                    // Reinit the networks for this block and the connected neighbour.
-                    NetworkHelpers.initNetwork(world, pos, side);
-                    NetworkHelpers.initNetwork(world, neighbourPos, side.getOpposite());
+                    // Join the networks for this block and the connected neighbour.
+                    NetworkHelpers.joinNetwork(world, pos, side);
                 }
                 return true;
             }
@@ -229,7 +230,7 @@ public class CableHelpers {
     public static void onCableAdded(World world, BlockPos pos) {
         CableHelpers.updateConnectionsNeighbours(world, pos, CableHelpers.ALL_SIDES);
         if(!world.isRemote) {
-            INetwork network = NetworkHelpers.initNetwork(world, pos, null);
+            INetwork network = NetworkHelpers.joinNetwork(world, pos, null);
             MinecraftForge.EVENT_BUS.post(new NetworkInitializedEvent(network, world, pos, null));
         }
     }
@@ -245,7 +246,7 @@ public class CableHelpers {
     public static void onCableAddedByPlayer(World world, BlockPos pos, @Nullable EntityLivingBase placer) {
         CableHelpers.updateConnectionsNeighbours(world, pos, CableHelpers.ALL_SIDES);
         if(!world.isRemote) {
-            INetwork network = NetworkHelpers.initNetwork(world, pos, null);
+            INetwork network = NetworkHelpers.joinNetwork(world, pos, null);
             MinecraftForge.EVENT_BUS.post(new NetworkInitializedEvent(network, world, pos, placer));
         }
     }
@@ -297,11 +298,12 @@ public class CableHelpers {
     public static boolean onCableRemoved(World world, BlockPos pos, Collection<EnumFacing> sides) {
         updateConnectionsNeighbours(world, pos, sides);
         if (!world.isRemote) {
-            // Reinit neighbouring networks.
+            // Split neighbouring networks if they became disconnected.
+            List<Pair<BlockPos, EnumFacing>> heads = Lists.newArrayListWithCapacity(sides.size());
             for(EnumFacing side : sides) {
-                BlockPos sidePos = pos.offset(side);
-                NetworkHelpers.initNetwork(world, sidePos, side.getOpposite());
+                heads.add(Pair.of(pos.offset(side), side.getOpposite()));
             }
+            NetworkHelpers.splitNetworks(world, heads);
         }
         return true;
     }
@@ -1,12 +1,17 @@
 package org.cyclops.integrateddynamics.core.helper;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
+import org.apache.commons.lang3.tuple.Pair;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.datastructure.DimPos;
 import org.cyclops.cyclopscore.helper.TileHelpers;
 import org.cyclops.integrateddynamics.GeneralConfig;
 import org.cyclops.integrateddynamics.IntegratedDynamics;
@@ -19,6 +24,7 @@ import org.cyclops.integrateddynamics.api.network.IPartNetwork;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
 import org.cyclops.integrateddynamics.api.part.PartPos;
 import org.cyclops.integrateddynamics.api.path.IPathElement;
+import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
 import org.cyclops.integrateddynamics.capability.network.EnergyNetworkConfig;
 import org.cyclops.integrateddynamics.capability.network.NetworkCarrierConfig;
 import org.cyclops.integrateddynamics.capability.network.PartNetworkConfig;
@@ -30,6 +36,11 @@ import org.cyclops.integrateddynamics.core.network.Network;
 import org.cyclops.integrateddynamics.core.persist.world.NetworkWorldStorage;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Network helper methods.
@@ -139,6 +150,7 @@ public class NetworkHelpers {
     public static @Nullable INetwork initNetwork(World world, BlockPos pos, @Nullable EnumFacing side) {
         IPathElement pathElement = TileHelpers.getCapability(world, pos, side, PathElementConfig.CAPABILITY);
         if (pathElement != null) {
+            finishRestoration(getNetwork(world, pos, side));
             Network network = Network.initiateNetworkSetup(SidedPathElement.of(pathElement, side));
             network.initialize();
             return network;
@@ -146,6 +158,113 @@ public class NetworkHelpers {
         return null;
     }
 
+    /**
+     * Let the path element at the given position join the networks of the path elements it can reach.
+     * This should be called when a path element was added or gained connections, and no connections were removed.
+     *
+     * If the path element is not in a network yet, it is appended to the network of its neighbours.
+     * If it connects multiple networks, the smaller networks are merged into the largest one.
+     * In all other cases, this falls back to {@link #initNetwork(World, BlockPos, EnumFacing)}.
+     * @param world The world.
+     * @param pos The position.
+     * @param side The side.
+     * @return The network the path element is part of.
+     * Can be null if the position did not have a {@link IPathElement} capability.
+     */
+    public static @Nullable INetwork joinNetwork(World world, BlockPos pos, @Nullable EnumFacing side) {
+        IPathElement pathElement = TileHelpers.getCapability(world, pos, side, PathElementConfig.CAPABILITY);
+        if (pathElement == null) {
+            return null;
+        }
+        ISidedPathElement head = SidedPathElement.of(pathElement, side);
+        Set<Network> networks = Sets.newIdentityHashSet();
+        INetwork headNetwork = getNetwork(world, pos, side);
+        finishRestoration(headNetwork);
+        if (headNetwork != null) {
+            if (!canChangeIncrementally(headNetwork, head)) {
+                return initNetwork(world, pos, side);
+            }
+            networks.add((Network) headNetwork);
+        }
+        for (ISidedPathElement neighbour : pathElement.getReachableElements()) {
+            DimPos neighbourPos = neighbour.getPathElement().getPosition();
+            INetwork neighbourNetwork = getNetwork(neighbourPos.getWorld(), neighbourPos.getBlockPos(), neighbour.getSide());
+            finishRestoration(neighbourNetwork);
+            if (!canChangeIncrementally(neighbourNetwork, neighbour)) {
+                return initNetwork(world, pos, side);
+            }
+            networks.add((Network) neighbourNetwork);
+        }
+        if (networks.isEmpty()) {
+            return initNetwork(world, pos, side);
+        }
+
+        Network target = null;
+        for (Network network : networks) {
+            if (target == null || network.getCablesCount() > target.getCablesCount()) {
+                target = network;
+            }
+        }
+        for (Network network : networks) {
+            if (network != target) {
+                target.absorbNetwork(network);
+            }
+        }
+        if (headNetwork == null) {
+            target.addPathElement(head);
+        }
+        return target;
+    }
+
+    /**
+     * Split up the networks of the path elements at the given positions if they are not connected anymore.
+     * This should be called after a path element was removed or a connection was broken,
+     * with the path elements that were adjacent to the removed path element or connection.
+     *
+     * Only the disconnected parts of networks are traversed and moved into new networks.
+     * Path elements that are not part of a network are handled by {@link #initNetwork(World, BlockPos, EnumFacing)}.
+     * @param world The world.
+     * @param heads The positions and sides of the path elements that were adjacent to the removed connection.
+     */
+    public static void splitNetworks(World world, Collection<Pair<BlockPos, EnumFacing>> heads) {
+        Map<Network, List<ISidedPathElement>> networkHeads = Maps.newIdentityHashMap();
+        for (Pair<BlockPos, EnumFacing> head : heads) {
+            BlockPos pos = head.getLeft();
+            EnumFacing side = head.getRight();
+            IPathElement pathElement = TileHelpers.getCapability(world, pos, side, PathElementConfig.CAPABILITY);
+            if (pathElement != null) {
+                ISidedPathElement sidedPathElement = SidedPathElement.of(pathElement, side);
+                INetwork network = getNetwork(world, pos, side);
+                finishRestoration(network);
+                if (canChangeIncrementally(network, sidedPathElement)) {
+                    networkHeads.computeIfAbsent((Network) network, (n) -> Lists.newArrayList()).add(sidedPathElement);
+                } else {
+                    initNetwork(world, pos, side);
+                }
+            }
+        }
+        for (Map.Entry<Network, List<ISidedPathElement>> entry : networkHeads.entrySet()) {
+            entry.getKey().splitDisconnected(entry.getValue());
+        }
+    }
+
+    /**
+     * Restore the given network completely if it is still being restored over multiple ticks.
+     * This must be called before the structure of a network is changed,
+     * as its pending restoration would otherwise take back the path elements that were moved to other networks.
+     * @param network A network.
+     */
+    public static void finishRestoration(@Nullable INetwork network) {
+        if (network instanceof Network && ((Network) network).isRestoring()) {
+            ((Network) network).restore(Long.MAX_VALUE);
+        }
+    }
+
+    protected static boolean canChangeIncrementally(@Nullable INetwork network, ISidedPathElement sidedPathElement) {
+        return network instanceof Network && ((Network) network).canChangeIncrementally()
+                && network.containsSidedPathElement(sidedPathElement);
+    }
+
     /**
      * This MUST be called by blocks having the {@link INetworkElementProvider} capability in
      * when a neighbouring block is updated, more specifically when
@@ -160,6 +279,9 @@ public class NetworkHelpers {
     public static void onElementProviderBlockNeighborChange(World world, BlockPos pos, Block neighborBlock, @Nullable EnumFacing side) {
         if (!world.isRemote) {
             INetwork network = getNetwork(world, pos, side);
+            if (network != null) {
+                network.wakeUp();
+            }
             INetworkElementProvider networkElementProvider = getNetworkElementProvider(world, pos, side);
             for (INetworkElement networkElement : networkElementProvider.createNetworkElements(world, pos)) {
                 networkElement.onNeighborBlockChange(network, world, neighborBlock);
@@ -185,11 +307,14 @@ public class NetworkHelpers {
         if (networkCarrier != null) {
             INetwork network = networkCarrier.getNetwork();
             if (network != null) {
-                INetworkElementProvider networkElementProvider = TileHelpers.getCapability(world, pos, NetworkElementProviderConfig.CAPABILITY);
-                if (networkElementProvider != null) {
-                    for (INetworkElement networkElement : networkElementProvider.createNetworkElements(world, pos)) {
-                        networkElement.invalidate(network);
-                    }
+                Collection<INetworkElement> networkElements = network.getElementsAt(DimPos.of(world, pos));
+                if (networkElements == null) {
+                    INetworkElementProvider networkElementProvider = TileHelpers.getCapability(world, pos, NetworkElementProviderConfig.CAPABILITY);
+                    networkElements = networkElementProvider != null
+                            ? networkElementProvider.createNetworkElements(world, pos) : Collections.emptyList();
+                }
+                for (INetworkElement networkElement : networkElements) {
+                    networkElement.invalidate(network);
                 }
             }
         }
@@ -211,7 +336,11 @@ public class NetworkHelpers {
                 for (INetwork network : NetworkWorldStorage.getInstance(IntegratedDynamics._instance).getNetworks()) {
                     if (network.containsSidedPathElement(SidedPathElement.of(pathElement, null))) {
                         // Revalidate all network elements
-                        for (INetworkElement networkElement : networkElementProvider.createNetworkElements(world, pos)) {
+                        Collection<INetworkElement> networkElements = network.getElementsAt(DimPos.of(world, pos));
+                        if (networkElements == null) {
+                            networkElements = networkElementProvider.createNetworkElements(world, pos);
+                        }
+                        for (INetworkElement networkElement : networkElements) {
                             networkElement.revalidate(network);
                         }
                         break; // No need to check the other networks anymore
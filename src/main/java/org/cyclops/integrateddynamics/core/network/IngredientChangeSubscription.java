@@ -0,0 +1,181 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientCollection;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageChangeNotifier;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A subscription of an {@link IngredientObserver} to a storage position that notifies about its changes,
+ * so that the observer does not have to poll that position.
+ *
+ * Changes are queued when they are notified, and are emitted by the observer during its next observation.
+ * The subscription keeps a snapshot of the instances that have been emitted,
+ * so that the observer can continue polling from that state when the subscription is invalidated.
+ * @param <T> The instance type.
+ * @param <M> The matching condition parameter, may be Void.
+ * @author rubensworks
+ */
+public class IngredientChangeSubscription<T, M> implements IIngredientComponentStorageChangeNotifier.IChangeListener<T, M> {
+
+    /**
+     * The maximum number of changes that can be queued in between observations.
+     * If more changes are notified, the subscription is invalidated so that the position is polled again.
+     */
+    public static final int MAX_PENDING_CHANGES = 1024;
+
+    private final IngredientComponent<T, M> component;
+    private final IIngredientComponentStorageChangeNotifier notifier;
+    private final Queue<PendingChange<T, M>> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingChangesCount = new AtomicInteger();
+    private volatile State state = State.PENDING;
+    private IngredientCollectionPrototypeMap<T, M> snapshot = null;
+    private boolean synced = false;
+
+    public IngredientChangeSubscription(IngredientComponent<T, M> component, IIngredientComponentStorageChangeNotifier notifier) {
+        this.component = component;
+        this.notifier = notifier;
+    }
+
+    /**
+     * Start listening to changes, and take a snapshot of the current instances.
+     * This must be called on the main server thread, so that no changes can happen in between.
+     * @param instances The current instances of the storage.
+     */
+    public synchronized void subscribe(Iterator<T> instances) {
+        if (state != State.PENDING) {
+            return;
+        }
+        if (!notifier.addChangeListener(component, this)) {
+            state = State.REJECTED;
+            return;
+        }
+        IngredientCollectionPrototypeMap<T, M> snapshot = new IngredientCollectionPrototypeMap<>(component);
+        while (instances.hasNext()) {
+            snapshot.add(instances.next());
+        }
+        this.snapshot = snapshot;
+        state = State.ACTIVE;
+    }
+
+    /**
+     * Stop listening to changes.
+     */
+    public synchronized void unsubscribe() {
+        if (state == State.ACTIVE) {
+            notifier.removeChangeListener(component, this);
+        }
+        state = State.INVALIDATED;
+    }
+
+    @Override
+    public void onChange(IIngredientComponentStorageObservable.Change change, IIngredientCollection<T, M> instances) {
+        if (state == State.ACTIVE) {
+            if (pendingChangesCount.incrementAndGet() > MAX_PENDING_CHANGES) {
+                unsubscribe();
+            } else {
+                pendingChanges.add(new PendingChange<>(change, instances));
+            }
+        }
+    }
+
+    @Override
+    public void onInvalidated() {
+        state = State.INVALIDATED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return If a snapshot was taken, which is the case if this subscription has been active.
+     */
+    public boolean hasSnapshot() {
+        return snapshot != null;
+    }
+
+    /**
+     * @return The instances that have been emitted by the observer for this position.
+     */
+    public IngredientCollectionPrototypeMap<T, M> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return If the observer has emitted the changes towards the initial snapshot.
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    public void setSynced() {
+        this.synced = true;
+    }
+
+    /**
+     * Remove the pending changes, and apply them to the snapshot.
+     * This must only be called by the observer.
+     * @return The pending changes in the order in which they were notified.
+     */
+    public List<PendingChange<T, M>> drainPendingChanges() {
+        List<PendingChange<T, M>> changes = Lists.newArrayList();
+        PendingChange<T, M> change;
+        while ((change = pendingChanges.poll()) != null) {
+            pendingChangesCount.decrementAndGet();
+            if (change.getChange() == IIngredientComponentStorageObservable.Change.ADDITION) {
+                snapshot.addAll(change.getInstances());
+            } else {
+                snapshot.removeAll(change.getInstances());
+            }
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    public static enum State {
+        /**
+         * Waiting to be subscribed on the main server thread.
+         */
+        PENDING,
+        /**
+         * Changes are being notified.
+         */
+        ACTIVE,
+        /**
+         * The storage does not notify changes of this ingredient component.
+         */
+        REJECTED,
+        /**
+         * Changes are not notified anymore.
+         */
+        INVALIDATED
+    }
+
+    public static class PendingChange<T, M> {
+        private final IIngredientComponentStorageObservable.Change change;
+        private final IIngredientCollection<T, M> instances;
+
+        public PendingChange(IIngredientComponentStorageObservable.Change change, IIngredientCollection<T, M> instances) {
+            this.change = change;
+            this.instances = instances;
+        }
+
+        public IIngredientComponentStorageObservable.Change getChange() {
+            return change;
+        }
+
+        public IIngredientCollection<T, M> getInstances() {
+            return instances;
+        }
+    }
+
+}
@@ -8,11 +8,15 @@ import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponen
 import org.cyclops.cyclopscore.datastructure.Wrapper;
 import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
 import org.cyclops.cyclopscore.ingredient.collection.IngredientHashMap;
+import org.cyclops.integrateddynamics.GeneralConfig;
 import org.cyclops.integrateddynamics.api.network.IPartPosIteratorHandler;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients.TransferOperation;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients.TransferResult;
 import org.cyclops.integrateddynamics.api.part.PartPos;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +56,14 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
     protected abstract Iterator<PartPos> getNonEmptyPositions();
     protected abstract Iterator<PartPos> getMatchingPositions(@Nonnull T prototype, M matchFlags);
 
+    /**
+     * @return A planner for extractions by prototype, or null if each storage must be simulated.
+     */
+    @Nullable
+    protected IngredientExtractionPlanner<T, M> getExtractionPlanner() {
+        return null;
+    }
+
     @Override
     public long getMaxQuantity() {
         long sum = 0;
@@ -185,6 +197,21 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
         }
         M finalMatchFlags = matchFlags;
 
+        // Plan the extraction from the indexed quantities if possible, so that storages don't need to be simulated
+        IngredientExtractionPlanner<T, M> planner = GeneralConfig.ingredientNetworkPlannedExtraction ? getExtractionPlanner() : null;
+        if (planner != null) {
+            Pair<IPartPosIteratorHandler, Iterator<PartPos>> partPosIteratorData = getPartPosIteratorData(() -> this.getMatchingPositions(prototypeFinal, finalMatchFlags), channel);
+            IngredientExtractionPlanner.Plan<T> plan = planner.plan(prototypeFinal, finalMatchFlags, requiredQuantity, partPosIteratorData.getRight());
+            if (!simulate) {
+                savePartPosIteratorHandler(partPosIteratorData.getLeft());
+            }
+            // Fail if we required an exact quantity
+            if (checkQuantity && plan.getQuantity() < requiredQuantity) {
+                return matcher.getEmptyInstance();
+            }
+            return executeExtractionPlan(plan, checkQuantity, simulate);
+        }
+
         // Maintain a temporary mapping of prototype items to their total count over all positions,
         // plus the list of positions in which they are present.
         IIngredientMapMutable<T, M, Pair<Wrapper<Long>, List<PartPos>>> validInstancesCollapsed = new IngredientHashMap<>(getComponent());
@@ -267,6 +294,286 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
         return true;
     }
 
+    /**
+     * Extract the planned quantities from their positions.
+     *
+     * If a storage contained less than was indexed, the remaining quantity is extracted from the other positions
+     * that contain the instance. All positions that were extracted from are observed again to correct the index.
+     *
+     * @param plan An extraction plan.
+     * @param checkQuantity If the planned quantity must be extracted completely.
+     * @param simulate If the extraction should be simulated.
+     * @return The extracted instance.
+     */
+    protected T executeExtractionPlan(IngredientExtractionPlanner.Plan<T> plan, boolean checkQuantity, boolean simulate) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        if (plan.getQuantity() == 0) {
+            return matcher.getEmptyInstance();
+        }
+
+        // Block the extraction if the index does not contain the planned quantity
+        if (!this.canExtract(matcher.withQuantity(plan.getInstance(), plan.getQuantity()))) {
+            return matcher.getEmptyInstance();
+        }
+
+        // Only extract the planned instance, and not other instances that match the original prototype
+        M exactMatchFlags = getExactMatchNoQuantityCondition();
+
+        // Only simulate at the planned positions, as the index may be outdated
+        if (simulate) {
+            long extractedQuantity = 0;
+            for (Pair<PartPos, Long> step : plan.getPositions()) {
+                extractedQuantity += extractAt(step.getLeft(), matcher.withQuantity(plan.getInstance(), step.getRight()), exactMatchFlags, true);
+            }
+            if (extractedQuantity == 0 || (checkQuantity && extractedQuantity < plan.getQuantity())) {
+                return matcher.getEmptyInstance();
+            }
+            return matcher.withQuantity(plan.getInstance(), extractedQuantity);
+        }
+
+        List<Pair<PartPos, Long>> extractions = Lists.newArrayList();
+        long extractedQuantity = 0;
+        for (Pair<PartPos, Long> step : plan.getPositions()) {
+            long extracted = extractAt(step.getLeft(), matcher.withQuantity(plan.getInstance(), step.getRight()), exactMatchFlags, false);
+            this.network.scheduleObservationForced(channel, step.getLeft()); // Mark the position as 'changed'
+            if (extracted > 0) {
+                extractions.add(Pair.of(step.getLeft(), extracted));
+                extractedQuantity += extracted;
+            }
+        }
+
+        // If the index was outdated, take the remaining quantity from the other positions
+        if (extractedQuantity < plan.getQuantity()) {
+            Iterator<PartPos> it = getMatchingPositions(plan.getInstance(), exactMatchFlags);
+            while (it.hasNext() && extractedQuantity < plan.getQuantity()) {
+                PartPos pos = it.next();
+                T instance = matcher.withQuantity(plan.getInstance(), plan.getQuantity() - extractedQuantity);
+                // These positions were not planned, so check them like unplanned extractions
+                long simulated = extractAt(pos, instance, exactMatchFlags, true);
+                if (simulated == 0 || !this.canExtract(matcher.withQuantity(plan.getInstance(), simulated))) {
+                    continue;
+                }
+                long extracted = extractAt(pos, matcher.withQuantity(plan.getInstance(), simulated), exactMatchFlags, false);
+                if (extracted > 0) {
+                    this.network.scheduleObservationForced(channel, pos); // Mark the position as 'changed'
+                    extractions.add(Pair.of(pos, extracted));
+                    extractedQuantity += extracted;
+                }
+            }
+        }
+
+        // Put everything back if the required quantity was not available after all.
+        // Anything that can not be reinserted is returned, so that it is not voided.
+        if (checkQuantity && extractedQuantity < plan.getQuantity()) {
+            for (Pair<PartPos, Long> extraction : extractions) {
+                PartPos pos = extraction.getLeft();
+                this.network.disablePosition(pos);
+                T remaining = this.network.getPositionedStorage(pos).insert(matcher.withQuantity(plan.getInstance(), extraction.getRight()), false);
+                this.network.enablePosition(pos);
+                extractedQuantity -= extraction.getRight() - matcher.getQuantity(remaining);
+            }
+            if (extractedQuantity == 0) {
+                return matcher.getEmptyInstance();
+            }
+        }
+
+        return matcher.withQuantity(plan.getInstance(), extractedQuantity);
+    }
+
+    protected M getExactMatchNoQuantityCondition() {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        return matcher.withoutCondition(matcher.getExactMatchCondition(), getComponent().getPrimaryQuantifier().getMatchCondition());
+    }
+
+    /**
+     * Get the quantities that are requested by the given operations.
+     * @param operations Transfer operations.
+     * @return The quantity per operation, or null if the batch exceeds the rate limit.
+     */
+    @Nullable
+    protected long[] getBatchQuantities(List<TransferOperation<T, M>> operations) {
+        if (!TransferOperation.isWithinRateLimit(operations, network.getRateLimit())) {
+            return null;
+        }
+        long[] quantities = new long[operations.size()];
+        for (int i = 0; i < quantities.length; i++) {
+            quantities[i] = Math.max(0, operations.get(i).getQuantity());
+        }
+        return quantities;
+    }
+
+    /**
+     * Insert the given operations as a unit.
+     * @param operations The instances to insert.
+     * @return The result of the batch.
+     * @see IPositionedAddonsNetworkIngredients#insertBatch(int, List)
+     */
+    public TransferResult<T> insertBatch(List<TransferOperation<T, M>> operations) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        long[] remaining = getBatchQuantities(operations);
+        if (remaining == null) {
+            return finishBatch(operations, Lists.newArrayList(), false, true);
+        }
+        int pending = countPending(remaining);
+
+        // Walk over the positions once, and insert all pending operations in each of them
+        List<Transfer<T>> transfers = Lists.newArrayList();
+        Pair<IPartPosIteratorHandler, Iterator<PartPos>> partPosIteratorData = getPartPosIteratorData(this::getNonFullPositions, channel);
+        Iterator<PartPos> it = partPosIteratorData.getRight();
+        while (pending > 0 && it.hasNext()) {
+            PartPos pos = it.next();
+            IIngredientComponentStorage<T, M> storage = this.network.getPositionedStorage(pos);
+            boolean changed = false;
+            this.network.disablePosition(pos);
+            for (int i = 0; i < remaining.length; i++) {
+                if (remaining[i] > 0) {
+                    T instance = matcher.withQuantity(operations.get(i).getPrototype(), remaining[i]);
+                    long inserted = remaining[i] - matcher.getQuantity(storage.insert(instance, false));
+                    if (inserted > 0) {
+                        transfers.add(new Transfer<>(i, pos, matcher.withQuantity(instance, inserted)));
+                        remaining[i] -= inserted;
+                        changed = true;
+                        if (remaining[i] == 0) {
+                            pending--;
+                        }
+                    }
+                }
+            }
+            this.network.enablePosition(pos);
+            if (changed) {
+                this.network.scheduleObservationForced(channel, pos); // Mark the position as 'changed'
+            }
+        }
+        savePartPosIteratorHandler(partPosIteratorData.getLeft());
+
+        return finishBatch(operations, transfers, pending == 0, true);
+    }
+
+    /**
+     * Extract the given operations as a unit.
+     * @param operations The instances to extract.
+     * @return The result of the batch.
+     * @see IPositionedAddonsNetworkIngredients#extractBatch(int, List)
+     */
+    public TransferResult<T> extractBatch(List<TransferOperation<T, M>> operations) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+        long[] remaining = getBatchQuantities(operations);
+        if (remaining == null) {
+            return finishBatch(operations, Lists.newArrayList(), false, false);
+        }
+        int pending = countPending(remaining);
+
+        // The prototypes and conditions are narrowed down to the first extracted instance of each operation
+        List<T> prototypes = Lists.newArrayListWithCapacity(operations.size());
+        List<M> matchConditions = Lists.newArrayListWithCapacity(operations.size());
+        for (TransferOperation<T, M> operation : operations) {
+            prototypes.add(operation.getPrototype());
+            matchConditions.add(matcher.withoutCondition(operation.getMatchCondition(), getComponent().getPrimaryQuantifier().getMatchCondition()));
+        }
+
+        // Walk over the positions once, and extract all pending operations from each of them
+        List<Transfer<T>> transfers = Lists.newArrayList();
+        Pair<IPartPosIteratorHandler, Iterator<PartPos>> partPosIteratorData = getPartPosIteratorData(this::getNonEmptyPositions, channel);
+        Iterator<PartPos> it = partPosIteratorData.getRight();
+        boolean blocked = false;
+        while (!blocked && pending > 0 && it.hasNext()) {
+            PartPos pos = it.next();
+            IIngredientComponentStorage<T, M> storage = this.network.getPositionedStorage(pos);
+            boolean changed = false;
+            this.network.disablePosition(pos);
+            for (int i = 0; i < remaining.length && !blocked; i++) {
+                if (remaining[i] > 0) {
+                    T extracted = storage.extract(matcher.withQuantity(prototypes.get(i), remaining[i]), matchConditions.get(i), false);
+                    long extractedQuantity = matcher.getQuantity(extracted);
+                    if (extractedQuantity > 0 && !this.canExtract(extracted)) {
+                        // Put it back, and consider the operation as not available, so that the batch is rolled back
+                        storage.insert(extracted, false);
+                        changed = true;
+                        blocked = true;
+                    } else if (extractedQuantity > 0) {
+                        prototypes.set(i, extracted);
+                        matchConditions.set(i, getExactMatchNoQuantityCondition());
+                        transfers.add(new Transfer<>(i, pos, extracted));
+                        remaining[i] -= extractedQuantity;
+                        changed = true;
+                        if (remaining[i] <= 0) {
+                            pending--;
+                        }
+                    }
+                }
+            }
+            this.network.enablePosition(pos);
+            if (changed) {
+                this.network.scheduleObservationForced(channel, pos); // Mark the position as 'changed'
+            }
+        }
+        savePartPosIteratorHandler(partPosIteratorData.getLeft());
+
+        return finishBatch(operations, transfers, !blocked && pending == 0, false);
+    }
+
+    protected static int countPending(long[] remaining) {
+        int pending = 0;
+        for (long quantity : remaining) {
+            if (quantity > 0) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Roll back the given transfers if the batch was not completed,
+     * and collect the resulting instances per operation.
+     * @param operations The operations of the batch.
+     * @param transfers The transfers that were done for the batch.
+     * @param completed If all operations were transferred completely.
+     * @param insertion If the transfers were insertions, otherwise extractions.
+     * @return The result of the batch.
+     */
+    protected TransferResult<T> finishBatch(List<TransferOperation<T, M>> operations, List<Transfer<T>> transfers,
+                                            boolean completed, boolean insertion) {
+        IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
+
+        // Undo the transfers in reverse order
+        if (!completed) {
+            M exactMatchFlags = getExactMatchNoQuantityCondition();
+            for (Transfer<T> transfer : Lists.reverse(transfers)) {
+                PartPos pos = transfer.getPos();
+                IIngredientComponentStorage<T, M> storage = this.network.getPositionedStorage(pos);
+                long transferred = matcher.getQuantity(transfer.getInstance());
+                this.network.disablePosition(pos);
+                long undone = insertion
+                        ? matcher.getQuantity(storage.extract(transfer.getInstance(), exactMatchFlags, false))
+                        : transferred - matcher.getQuantity(storage.insert(transfer.getInstance(), false));
+                this.network.enablePosition(pos);
+                this.network.scheduleObservationForced(channel, pos); // Mark the position as 'changed'
+                transfer.setInstance(matcher.withQuantity(transfer.getInstance(), transferred - undone));
+            }
+        }
+
+        // Sum the transferred quantities per operation
+        List<T> instances = Lists.newArrayListWithCapacity(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            instances.add(matcher.getEmptyInstance());
+        }
+        for (Transfer<T> transfer : transfers) {
+            long quantity = matcher.getQuantity(transfer.getInstance());
+            if (quantity > 0) {
+                T instance = instances.get(transfer.getOperation());
+                instances.set(transfer.getOperation(), matcher.withQuantity(transfer.getInstance(), matcher.getQuantity(instance) + quantity));
+            }
+        }
+        return new TransferResult<>(completed, instances);
+    }
+
+    protected long extractAt(PartPos pos, T instance, M matchFlags, boolean simulate) {
+        this.network.disablePosition(pos);
+        T extracted = this.network.getPositionedStorage(pos).extract(instance, matchFlags, simulate);
+        this.network.enablePosition(pos);
+        return getComponent().getMatcher().getQuantity(extracted);
+    }
+
     protected T finalizeExtraction(T instancePrototype, M matchFlags, Pair<Wrapper<Long>, List<PartPos>> value,
                                    long requiredQuantity, boolean simulate) {
         IIngredientMatcher<T, M> matcher = getComponent().getMatcher();
@@ -289,4 +596,36 @@ public abstract class IngredientChannelAdapter<T, M> implements IIngredientCompo
         return getComponent().getMatcher().withQuantity(instancePrototype, extractedCount);
     }
 
+    /**
+     * An instance that was transferred to or from a position for a batch operation.
+     * @param <T> The instance type.
+     */
+    protected static class Transfer<T> {
+        private final int operation;
+        private final PartPos pos;
+        private T instance;
+
+        public Transfer(int operation, PartPos pos, T instance) {
+            this.operation = operation;
+            this.pos = pos;
+            this.instance = instance;
+        }
+
+        public int getOperation() {
+            return operation;
+        }
+
+        public PartPos getPos() {
+            return pos;
+        }
+
+        public T getInstance() {
+            return instance;
+        }
+
+        public void setInstance(T instance) {
+            this.instance = instance;
+        }
+    }
+
 }
@@ -52,6 +52,12 @@ public class IngredientChannelIndexed<T, M> extends IngredientChannelAdapter<T,
         return this.index.iterator(prototype, matchFlags);
     }
 
+    @Override
+    protected IngredientExtractionPlanner<T, M> getExtractionPlanner() {
+        // Storages must be simulated if the index can not tell how much each position contains
+        return this.index.hasPositionQuantities() ? new IngredientExtractionPlanner<>(this.index) : null;
+    }
+
     @Override
     protected boolean canExtract(T extractedSimulated) {
         return index.getQuantity(extractedSimulated) >= getComponent().getMatcher().getQuantity(extractedSimulated);
@@ -0,0 +1,131 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.tuple.Pair;
+import org.cyclops.commoncapabilities.api.ingredient.IIngredientMatcher;
+import org.cyclops.cyclopscore.ingredient.collection.IIngredientMapMutable;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientHashMap;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientPositionsIndex;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Determines from which positions an instance should be extracted,
+ * based on the quantities per position in an {@link IIngredientPositionsIndex}.
+ *
+ * This avoids simulating the extraction at each storage,
+ * but plans may be inaccurate if a storage has changed since it was last observed.
+ *
+ * @param <T> The instance type.
+ * @param <M> The matching condition parameter.
+ * @author rubensworks
+ */
+public class IngredientExtractionPlanner<T, M> {
+
+    private final IIngredientPositionsIndex<T, M> index;
+
+    public IngredientExtractionPlanner(IIngredientPositionsIndex<T, M> index) {
+        this.index = index;
+    }
+
+    /**
+     * Plan the extraction of the given prototype.
+     *
+     * Positions are considered in the order of the given iterator.
+     * Only the instances that are indexed in these positions are matched with the prototype.
+     * The first indexed instance that reaches the required quantity is planned,
+     * otherwise the instance with the largest quantity.
+     *
+     * @param prototype The prototype to extract.
+     * @param matchFlags The match flags, without the quantity condition.
+     * @param requiredQuantity The quantity to extract.
+     * @param positions The positions to extract from.
+     * @return The extraction plan.
+     */
+    public Plan<T> plan(T prototype, M matchFlags, long requiredQuantity, Iterator<PartPos> positions) {
+        IIngredientMatcher<T, M> matcher = index.getComponent().getMatcher();
+
+        // Collect the quantity of each matching instance over the positions until one is sufficient.
+        // Only the instances in each position are checked, so this stays linear in the indexed entries.
+        IIngredientMapMutable<T, M, Plan<T>> plans = new IngredientHashMap<>(index.getComponent());
+        while (positions.hasNext()) {
+            PartPos pos = positions.next();
+            Iterator<T> instances = index.getPositionInstances(pos);
+            while (instances.hasNext()) {
+                T instance = instances.next();
+                if (!matcher.matches(prototype, instance, matchFlags)) {
+                    continue;
+                }
+                long quantity = index.getPositionQuantity(instance, pos);
+                if (quantity > 0) {
+                    Plan<T> plan = plans.get(instance);
+                    if (plan == null) {
+                        plan = new Plan<>(instance);
+                        plans.put(instance, plan);
+                    }
+                    plan.addPosition(pos, Math.min(quantity, requiredQuantity - plan.getQuantity()));
+                    if (plan.getQuantity() >= requiredQuantity) {
+                        return plan;
+                    }
+                }
+            }
+        }
+
+        // Take the instance with the largest quantity if none was sufficient
+        Plan<T> maxPlan = new Plan<>(matcher.getEmptyInstance());
+        for (Map.Entry<T, Plan<T>> entry : plans) {
+            if (entry.getValue().getQuantity() > maxPlan.getQuantity()) {
+                maxPlan = entry.getValue();
+            }
+        }
+        return maxPlan;
+    }
+
+    /**
+     * The quantities to extract of an instance per position.
+     * @param <T> The instance type.
+     */
+    public static class Plan<T> {
+
+        private final T instance;
+        private final List<Pair<PartPos, Long>> positions;
+        private long quantity;
+
+        public Plan(T instance) {
+            this.instance = instance;
+            this.positions = Lists.newArrayList();
+            this.quantity = 0;
+        }
+
+        protected void addPosition(PartPos pos, long quantity) {
+            this.positions.add(Pair.of(pos, quantity));
+            this.quantity += quantity;
+        }
+
+        /**
+         * @return The instance to extract, with a quantity of one.
+         */
+        public T getInstance() {
+            return instance;
+        }
+
+        /**
+         * @return The positions with the quantity to extract from them, in extraction order.
+         */
+        public List<Pair<PartPos, Long>> getPositions() {
+            return Collections.unmodifiableList(positions);
+        }
+
+        /**
+         * @return The total planned quantity.
+         */
+        public long getQuantity() {
+            return quantity;
+        }
+    }
+
+}
@@ -9,35 +9,57 @@ import gnu.trove.map.hash.TIntObjectHashMap;
 import it.unimi.dsi.fastutil.ints.IntArraySet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import net.minecraftforge.fml.common.FMLCommonHandler;
+import org.apache.logging.log4j.Level;
 import org.cyclops.commoncapabilities.api.capability.inventorystate.IInventoryState;
 import org.cyclops.cyclopscore.helper.TileHelpers;
 import org.cyclops.cyclopscore.ingredient.collection.diff.IngredientCollectionDiff;
 import org.cyclops.cyclopscore.ingredient.collection.diff.IngredientCollectionDiffManager;
 import org.cyclops.integrateddynamics.Capabilities;
 import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.IntegratedDynamics;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageChangeNotifier;
 import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
+import org.cyclops.integrateddynamics.api.network.INetwork;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients;
 import org.cyclops.integrateddynamics.api.part.PartPos;
 import org.cyclops.integrateddynamics.api.part.PartTarget;
 import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+import org.cyclops.integrateddynamics.capability.ingredient.IngredientComponentStorageChangeNotifierConfig;
 import org.cyclops.integrateddynamics.core.network.diagnostics.NetworkDiagnostics;
+import org.cyclops.integrateddynamics.core.network.metrics.AllocationCounter;
+import org.cyclops.integrateddynamics.core.network.metrics.NetworkMetrics;
+import org.cyclops.integrateddynamics.core.profiling.IProfilingEvent;
+import org.cyclops.integrateddynamics.core.profiling.ProfilingEvents;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Instances of this class are able to watch ingredient positions and emit diffs.
  *
+ * Positions of which the storage exposes an {@link IIngredientComponentStorageChangeNotifier}
+ * are subscribed to, so that their changes are emitted without polling them.
+ * All other positions are polled at an adaptive frequency.
+ *
+ * The positions that must be polled are split into shards of {@link GeneralConfig#ingredientNetworkObserverShardSize},
+ * which are observed in a work-stealing pool if multithreading is enabled.
+ * Each shard results in an {@link IngredientObserverBatch}, which is applied in the first network update after it completes.
+ * Observations are never waited for, positions of which the observation takes longer are observed again
+ * once their batch has been applied.
+ *
  * @author rubensworks
  */
 public class IngredientObserver<T, M> {
 
-    private static final ExecutorService WORKER_POOL = Executors.newFixedThreadPool(GeneralConfig.ingredientNetworkObserverThreads);
+    private static final ForkJoinPool WORKER_POOL = new ForkJoinPool(GeneralConfig.ingredientNetworkObserverThreads);
 
     private final IPositionedAddonsNetworkIngredients<T, M> network;
 
@@ -45,11 +67,14 @@ public class IngredientObserver<T, M> {
     private final TIntObjectMap<Map<PartPos, Integer>> observeTargetTickIntervals;
     private final TIntObjectMap<Map<PrioritizedPartPos, Integer>> observeTargetTicks;
     private final TIntObjectMap<Map<PrioritizedPartPos, IngredientCollectionDiffManager<T, M>>> channeledDiffManagers;
+    private final TIntObjectMap<Map<PrioritizedPartPos, IngredientChangeSubscription<T, M>>> channeledSubscriptions;
+    private final TIntObjectMap<Set<PrioritizedPartPos>> channeledInFlightPositions;
 
     private final TIntObjectMap<List<PrioritizedPartPos>> lastRemoved;
     private final Map<PartPos, Integer> lastInventoryStates;
 
-    private CountDownLatch lastObserverBarrier;
+    private final Queue<IngredientObserverBatch<T, M>> completedBatches;
+    private final AtomicInteger runningShards;
 
     public IngredientObserver(IPositionedAddonsNetworkIngredients<T, M> network) {
         this.network = network;
@@ -57,16 +82,32 @@ public class IngredientObserver<T, M> {
         this.observeTargetTickIntervals = new TIntObjectHashMap<>();
         this.observeTargetTicks = new TIntObjectHashMap<>();
         this.channeledDiffManagers = new TIntObjectHashMap<>();
+        this.channeledSubscriptions = new TIntObjectHashMap<>();
+        this.channeledInFlightPositions = new TIntObjectHashMap<>();
         this.lastRemoved = new TIntObjectHashMap<>();
-        this.lastInventoryStates = Maps.newHashMap();
+        this.lastInventoryStates = Maps.newConcurrentMap();
 
-        this.lastObserverBarrier = null;
+        this.completedBatches = new ConcurrentLinkedQueue<>();
+        this.runningShards = new AtomicInteger();
     }
 
     public IPositionedAddonsNetworkIngredients<T, M> getNetwork() {
         return network;
     }
 
+    /**
+     * @return The id of the network this observer is part of, or -1 if it is not part of a network yet.
+     */
+    protected int getNetworkId() {
+        if (network instanceof PositionedAddonsNetwork) {
+            INetwork parentNetwork = ((PositionedAddonsNetwork) network).getNetwork();
+            if (parentNetwork != null) {
+                return parentNetwork.getId();
+            }
+        }
+        return -1;
+    }
+
     public void onPositionRemoved(int channel, PrioritizedPartPos pos) {
         List<PrioritizedPartPos> positions = this.lastRemoved.get(channel);
         if (positions == null) {
@@ -99,24 +140,47 @@ public class IngredientObserver<T, M> {
     }
 
     protected void emitEvent(IIngredientComponentStorageObservable.StorageChangeEvent<T, M> event) {
-        if (GeneralConfig.ingredientNetworkObserverEnableMultithreading) {
-            // Make sure we are running on the main server thread to avoid concurrency exceptions
-            FMLCommonHandler.instance().getMinecraftServerInstance().addScheduledTask(() -> {
-                for (IIngredientComponentStorageObservable.IIndexChangeObserver<T, M> observer : getObserversCopy()) {
-                    observer.onChange(event);
-                }
-            });
-        } else {
+        // When networks are updated in parallel, defer the event to the main server thread
+        NetworkCommandBuffer.run(() -> {
             for (IIngredientComponentStorageObservable.IIndexChangeObserver<T, M> observer : getObserversCopy()) {
                 observer.onChange(event);
             }
-        }
+        });
     }
 
     protected synchronized List<IIngredientComponentStorageObservable.IIndexChangeObserver<T, M>> getObserversCopy() {
         return Lists.newArrayList(this.changeObservers);
     }
 
+    /**
+     * @return If shards are being observed, or if observed shards have not been applied yet.
+     */
+    public boolean hasPendingBatches() {
+        return runningShards.get() > 0 || !completedBatches.isEmpty();
+    }
+
+    /**
+     * Emit the events of all shards that have completed their observation,
+     * after which their positions can be observed again.
+     * This must be called from within the network update.
+     */
+    public void applyCompletedBatches() {
+        boolean isBeingDiagnozed = NetworkDiagnostics.getInstance().isBeingDiagnozed();
+        Map<PartPos, Long> lastSecondDurations = network.getLastSecondDurationIndex();
+        IngredientObserverBatch<T, M> batch;
+        while ((batch = completedBatches.poll()) != null) {
+            for (IIngredientComponentStorageObservable.StorageChangeEvent<T, M> event : batch.getEvents()) {
+                emitEvent(event);
+            }
+            if (isBeingDiagnozed) {
+                for (Map.Entry<PartPos, Long> entry : batch.getDurations().entrySet()) {
+                    lastSecondDurations.merge(entry.getKey(), entry.getValue(), Long::sum);
+                }
+            }
+            getChannelMap(channeledInFlightPositions, batch.getChannel(), Sets::newHashSet).removeAll(batch.getPositions());
+        }
+    }
+
     protected int[] getChannels() {
         int[] networkChannels = getNetwork().getChannels();
         int[] lastRemovedChannels = this.lastRemoved.keys();
@@ -134,31 +198,10 @@ public class IngredientObserver<T, M> {
     }
 
     protected void observe() {
+        applyCompletedBatches();
         if (!this.changeObservers.isEmpty()) {
-            if (GeneralConfig.ingredientNetworkObserverEnableMultithreading) {
-                // If we still have an uncompleted job from the previous tick, wait for it to finish first!
-                if (this.lastObserverBarrier != null) {
-                    try {
-                        this.lastObserverBarrier.await(1, TimeUnit.SECONDS);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }
-
-                // Schedule the observation job
-                this.lastObserverBarrier = new CountDownLatch(1);
-                WORKER_POOL.execute(() -> {
-                    for (int channel : getChannels()) {
-                        observe(channel);
-                    }
-                    CountDownLatch lastObserverBarrier = this.lastObserverBarrier;
-                    this.lastObserverBarrier = null;
-                    lastObserverBarrier.countDown();
-                });
-            } else {
-                for (int channel : getChannels()) {
-                    observe(channel);
-                }
+            for (int channel : getChannels()) {
+                observe(channel);
             }
         }
     }
@@ -167,25 +210,138 @@ public class IngredientObserver<T, M> {
         return Sets.newHashSet(getNetwork().getPrioritizedPositions(channel));
     }
 
+    /**
+     * Get the map of the given channel, or create it if it does not exist yet.
+     * The maps that are created by the factory must be safe to use from shards in the worker pool.
+     * @param channeledMaps The maps per channel.
+     * @param channel The channel.
+     * @param factory A factory for new maps.
+     * @param <V> The map type.
+     * @return The map of the channel.
+     */
+    protected synchronized <V> V getChannelMap(TIntObjectMap<V> channeledMaps, int channel, Supplier<V> factory) {
+        V map = channeledMaps.get(channel);
+        if (map == null) {
+            map = factory.get();
+            channeledMaps.put(channel, map);
+        }
+        return map;
+    }
+
     protected void observe(int channel) {
-        int currentTick = getCurrentTick();
+        // Shards in the worker pool count their own allocations, as they run on other threads.
+        if (AllocationCounter.isEnabled()) {
+            long startBytes = AllocationCounter.getAllocatedBytes();
+            observeChannel(channel);
+            NetworkMetrics.getInstance().recordObserverAllocation(network.getComponent(), AllocationCounter.getAllocatedBytes() - startBytes);
+        } else {
+            observeChannel(channel);
+        }
+    }
 
-        // Prepare ticking collections
-        Map<PrioritizedPartPos, Integer> channelTargetTicks = observeTargetTicks.get(channel);
-        if (channelTargetTicks == null) {
-            channelTargetTicks = Maps.newHashMap();
+    /**
+     * Emit events for the given diff.
+     * @param events The list to add events to.
+     * @param channel The channel.
+     * @param partPos The position.
+     * @param diff The diff of the position.
+     * @return If the diff had any changes.
+     */
+    protected boolean emitDiff(List<IIngredientComponentStorageObservable.StorageChangeEvent<T, M>> events,
+                               int channel, PrioritizedPartPos partPos, IngredientCollectionDiff<T, M> diff) {
+        boolean hasChanges = false;
+        if (diff.hasAdditions()) {
+            hasChanges = true;
+            events.add(new IIngredientComponentStorageObservable.StorageChangeEvent<>(channel, partPos,
+                    IIngredientComponentStorageObservable.Change.ADDITION, false, diff.getAdditions()));
         }
-        Map<PartPos, Integer> channelIntervals = this.observeTargetTickIntervals.get(channel);
-        if (channelIntervals == null) {
-            channelIntervals = Maps.newHashMap();
+        if (diff.hasDeletions()) {
+            hasChanges = true;
+            events.add(new IIngredientComponentStorageObservable.StorageChangeEvent<>(channel, partPos,
+                    IIngredientComponentStorageObservable.Change.DELETION, diff.isCompletelyEmpty(), diff.getDeletions()));
         }
+        return hasChanges;
+    }
+
+    /**
+     * Start a subscription if the storage at the given position notifies about its changes.
+     * @param partPos The position.
+     * @param subscriptions The subscriptions of the channel.
+     */
+    protected void trySubscribe(PrioritizedPartPos partPos, Map<PrioritizedPartPos, IngredientChangeSubscription<T, M>> subscriptions) {
+        IIngredientComponentStorageChangeNotifier notifier = TileHelpers.getCapability(partPos.getPartPos().getPos(),
+                partPos.getPartPos().getSide(), IngredientComponentStorageChangeNotifierConfig.CAPABILITY);
+        if (notifier != null) {
+            IngredientChangeSubscription<T, M> subscription = new IngredientChangeSubscription<>(network.getComponent(), notifier);
+            subscriptions.put(partPos, subscription);
+            // The snapshot is taken on the main server thread, so that no changes can happen until the listener is added.
+            NetworkCommandBuffer.run(() -> subscription.subscribe(getNetwork().getRawInstances(partPos.getPartPos())));
+        }
+    }
 
-        // Calculate diff of all positions
-        Map<PrioritizedPartPos, IngredientCollectionDiffManager<T, M>> diffManagers = this.channeledDiffManagers.get(channel);
-        if (diffManagers == null) {
-            diffManagers = Maps.newHashMap();
-            this.channeledDiffManagers.put(channel, diffManagers);
+    /**
+     * Emit the changes that were notified to the subscription of the given position.
+     * @param channel The channel.
+     * @param partPos The position.
+     * @param subscriptions The subscriptions of the channel.
+     * @param diffManagers The diff managers of the channel.
+     * @param channelTargetTicks The ticks at which positions in the channel should be polled.
+     * @return If the changes were emitted, false if the position should be polled.
+     */
+    protected boolean observeSubscription(int channel, PrioritizedPartPos partPos,
+                                          Map<PrioritizedPartPos, IngredientChangeSubscription<T, M>> subscriptions,
+                                          Map<PrioritizedPartPos, IngredientCollectionDiffManager<T, M>> diffManagers,
+                                          Map<PrioritizedPartPos, Integer> channelTargetTicks) {
+        IngredientChangeSubscription<T, M> subscription = subscriptions.get(partPos);
+        if (subscription == null) {
+            return false;
         }
+        IngredientChangeSubscription.State state = subscription.getState();
+        if (state == IngredientChangeSubscription.State.PENDING || state == IngredientChangeSubscription.State.REJECTED) {
+            return false;
+        }
+        if (subscription.hasSnapshot()) {
+            List<IIngredientComponentStorageObservable.StorageChangeEvent<T, M>> events = Lists.newArrayList();
+            if (!subscription.isSynced()) {
+                // Bring the index to the state of the snapshot, after which the diff manager is not needed anymore.
+                IngredientCollectionDiffManager<T, M> diffManager = diffManagers.remove(partPos);
+                if (diffManager == null) {
+                    diffManager = new IngredientCollectionDiffManager<>(network.getComponent());
+                }
+                emitDiff(events, channel, partPos, diffManager.onChange(subscription.getSnapshot().iterator()));
+                subscription.setSynced();
+            }
+            for (IngredientChangeSubscription.PendingChange<T, M> change : subscription.drainPendingChanges()) {
+                boolean deletion = change.getChange() == IIngredientComponentStorageObservable.Change.DELETION;
+                events.add(new IIngredientComponentStorageObservable.StorageChangeEvent<>(channel, partPos,
+                        change.getChange(), deletion && subscription.getSnapshot().isEmpty(), change.getInstances()));
+            }
+            for (IIngredientComponentStorageObservable.StorageChangeEvent<T, M> event : events) {
+                emitEvent(event);
+            }
+            if (subscription.getState() == IngredientChangeSubscription.State.ACTIVE) {
+                return true;
+            }
+            // Continue polling from the emitted state
+            IngredientCollectionDiffManager<T, M> diffManager = new IngredientCollectionDiffManager<>(network.getComponent());
+            diffManager.onChange(subscription.getSnapshot().iterator());
+            diffManagers.put(partPos, diffManager);
+        }
+        subscriptions.remove(partPos);
+        channelTargetTicks.remove(partPos);
+        return false;
+    }
+
+    protected void observeChannel(int channel) {
+        int currentTick = getCurrentTick();
+
+        // Prepare ticking collections, which are also used by the shards in the worker pool
+        Map<PrioritizedPartPos, Integer> channelTargetTicks = getChannelMap(observeTargetTicks, channel, Maps::newConcurrentMap);
+        Map<PartPos, Integer> channelIntervals = getChannelMap(observeTargetTickIntervals, channel, Maps::newConcurrentMap);
+        Map<PrioritizedPartPos, IngredientCollectionDiffManager<T, M>> diffManagers = getChannelMap(channeledDiffManagers, channel, Maps::newConcurrentMap);
+        Map<PrioritizedPartPos, IngredientChangeSubscription<T, M>> subscriptions = getChannelMap(channeledSubscriptions, channel, Maps::newHashMap);
+        Set<PrioritizedPartPos> inFlightPositions = getChannelMap(channeledInFlightPositions, channel, Sets::newHashSet);
+        boolean changeNotifications = GeneralConfig.ingredientNetworkObserverChangeNotifications;
 
         // Check if we should diagnoze the observer
         boolean isBeingDiagnozed = NetworkDiagnostics.getInstance().isBeingDiagnozed();
@@ -195,107 +351,80 @@ public class IngredientObserver<T, M> {
             lastSecondDurations.clear();
         }
 
-        // Emit diffs for all current positions
-        Set<PrioritizedPartPos> positions = getPositionsCopy(channel);
-        for (PrioritizedPartPos partPos : positions) {
-            // Get current time if diagnostics are enabled
-            long startTime = 0;
-            if (isBeingDiagnozed) {
-                startTime = System.nanoTime();
+        // Determine the positions to poll in this tick
+        List<PrioritizedPartPos> duePositions = Lists.newArrayList();
+        for (PrioritizedPartPos partPos : getPositionsCopy(channel)) {
+            // Positions of which the previous observation has not been applied yet are skipped
+            if (inFlightPositions.contains(partPos)) {
+                continue;
+            }
+
+            // Positions that notify about their changes are not polled
+            if (!changeNotifications && subscriptions.containsKey(partPos)) {
+                subscriptions.get(partPos).unsubscribe();
+            }
+            if (observeSubscription(channel, partPos, subscriptions, diffManagers, channelTargetTicks)) {
+                continue;
             }
 
             // Check if we should observe this position in this tick
             int lastTick = channelTargetTicks.getOrDefault(partPos, currentTick);
             if (lastTick <= currentTick) {
-                // If an inventory state is exposed, check if it has changed since the last observation call.
-                boolean skipPosition = false;
-                IInventoryState inventoryState = TileHelpers.getCapability(partPos.getPartPos().getPos(),
-                        partPos.getPartPos().getSide(), Capabilities.INVENTORY_STATE);
-                if (inventoryState != null) {
-                    Integer lastState = this.lastInventoryStates.get(partPos.getPartPos());
-                    int newState = inventoryState.getHash();
-                    if (lastState != null && lastState == newState) {
-                        // Skip this position if it hasn't not changed
-                        skipPosition = true;
-                    } else {
-                        this.lastInventoryStates.put(partPos.getPartPos(), newState);
-                    }
-                }
-
-                if (!skipPosition) {
-                    IngredientCollectionDiffManager<T, M> diffManager = diffManagers.get(partPos);
-                    if (diffManager == null) {
-                        diffManager = new IngredientCollectionDiffManager<>(network.getComponent());
-                        diffManagers.put(partPos, diffManager);
-                    }
-
-                    // Emit event of diff
-                    IngredientCollectionDiff<T, M> diff = diffManager.onChange(getNetwork().getRawInstances(partPos.getPartPos()));
-                    boolean hasChanges = false;
-                    if (diff.hasAdditions()) {
-                        hasChanges = true;
-                        this.emitEvent(new IIngredientComponentStorageObservable.StorageChangeEvent<>(channel, partPos,
-                                IIngredientComponentStorageObservable.Change.ADDITION, false, diff.getAdditions()));
-                    }
-                    if (diff.hasDeletions()) {
-                        hasChanges = true;
-                        this.emitEvent(new IIngredientComponentStorageObservable.StorageChangeEvent<>(channel, partPos,
-                                IIngredientComponentStorageObservable.Change.DELETION, diff.isCompletelyEmpty(), diff.getDeletions()));
-                    }
-
-                    // Update the next tick value
-                    int tickInterval = channelIntervals.getOrDefault(partPos.getPartPos(), GeneralConfig.ingredientNetworkObserverFrequencyMax);
-                    // Decrease the frequency when changes were detected
-                    // Increase the frequency when no changes were detected
-                    // This will make it so that quickly changing storages will be observed
-                    // more frequently than slowly changing storages
-                    boolean tickIntervalChanged = false;
-                    if (hasChanges) {
-                        if (tickInterval > GeneralConfig.ingredientNetworkObserverFrequencyMin) {
-                            tickIntervalChanged = true;
-                            tickInterval = Math.max(GeneralConfig.ingredientNetworkObserverFrequencyMin, tickInterval - GeneralConfig.ingredientNetworkObserverFrequencyDecreaseFactor);
-                        }
-                    } else {
-                        if (tickInterval < GeneralConfig.ingredientNetworkObserverFrequencyMax) {
-                            tickIntervalChanged = true;
-                            tickInterval = Math.min(GeneralConfig.ingredientNetworkObserverFrequencyMax, tickInterval + GeneralConfig.ingredientNetworkObserverFrequencyIncreaseFactor);
-                        }
-                    }
-                    // No need to store the interval if it == 1, as the previous or default value will
-                    // definitely also cause this part to tick in next tick.
-                    // This makes these cases slightly faster, as no map updates are needed.
-                    if (tickInterval != 1) {
-                        channelTargetTicks.put(partPos, currentTick + tickInterval);
-
-                    }
-                    // Only update when the interval has changed.
-                    // In most cases, this will remain the same.
-                    if (tickIntervalChanged) {
-                        if (tickInterval != GeneralConfig.ingredientNetworkObserverFrequencyMax) {
-                            channelIntervals.put(partPos.getPartPos(), tickInterval);
-                        } else {
-                            channelIntervals.remove(partPos.getPartPos());
-                        }
-                    }
+                if (changeNotifications && !subscriptions.containsKey(partPos)) {
+                    trySubscribe(partPos, subscriptions);
                 }
+                duePositions.add(partPos);
             }
+        }
 
-            // Calculate duration if diagnostics are enabled
-            if (isBeingDiagnozed) {
-                long duration = System.nanoTime() - startTime;
-                PartPos interfacePos = PartTarget.fromCenter(partPos.getPartPos()).getTarget();
-                Long lastDuration = lastSecondDurations.get(interfacePos);
-                if (lastDuration != null) {
-                    duration = duration + lastDuration;
-                }
-                lastSecondDurations.put(interfacePos, duration);
+        // Poll the due positions in shards
+        int shardSize = Math.max(1, GeneralConfig.ingredientNetworkObserverShardSize);
+        for (List<PrioritizedPartPos> shard : Lists.partition(duePositions, shardSize)) {
+            List<PrioritizedPartPos> shardPositions = Lists.newArrayList(shard);
+            inFlightPositions.addAll(shardPositions);
+            if (GeneralConfig.ingredientNetworkObserverEnableMultithreading) {
+                runningShards.incrementAndGet();
+                CompletableFuture
+                        .<IngredientObserverBatch<T, M>>supplyAsync(() -> observeShard(channel, shardPositions, currentTick, isBeingDiagnozed,
+                                channelTargetTicks, channelIntervals, diffManagers), WORKER_POOL)
+                        .whenComplete((batch, error) -> {
+                            if (error != null) {
+                                IntegratedDynamics.clog(Level.ERROR, "Failed to observe ingredient positions: " + error.getMessage());
+                                completedBatches.add(IngredientObserverBatch.empty(channel, shardPositions));
+                            } else {
+                                completedBatches.add(batch);
+                            }
+                            runningShards.decrementAndGet();
+                        });
+            } else {
+                completedBatches.add(observeShard(channel, shardPositions, currentTick, isBeingDiagnozed,
+                        channelTargetTicks, channelIntervals, diffManagers));
             }
         }
+        if (!GeneralConfig.ingredientNetworkObserverEnableMultithreading) {
+            applyCompletedBatches();
+        }
 
-        // Emit deletions for all removed positions
+        // Emit deletions for all removed positions, unless their last observation is still running
         List<PrioritizedPartPos> lastRemovedPositions = this.lastRemoved.get(channel);
         if (lastRemovedPositions != null) {
-            for (PrioritizedPartPos partPos : lastRemovedPositions) {
+            Iterator<PrioritizedPartPos> it = lastRemovedPositions.iterator();
+            while (it.hasNext()) {
+                PrioritizedPartPos partPos = it.next();
+                if (inFlightPositions.contains(partPos)) {
+                    continue;
+                }
+                it.remove();
+                IngredientChangeSubscription<T, M> subscription = subscriptions.remove(partPos);
+                if (subscription != null) {
+                    subscription.unsubscribe();
+                    if (subscription.isSynced()) {
+                        // Delete the instances that were emitted by the subscription
+                        IngredientCollectionDiffManager<T, M> diffManager = new IngredientCollectionDiffManager<>(network.getComponent());
+                        diffManager.onChange(subscription.getSnapshot().iterator());
+                        diffManagers.put(partPos, diffManager);
+                    }
+                }
                 IngredientCollectionDiffManager<T, M> diffManager = diffManagers.get(partPos);
                 if (diffManager != null) {
                     // Emit event of diff with *empty* iterator
@@ -307,25 +436,123 @@ public class IngredientObserver<T, M> {
                     }
                 }
             }
-            this.lastRemoved.remove(channel);
+            if (lastRemovedPositions.isEmpty()) {
+                this.lastRemoved.remove(channel);
+            }
         }
+    }
+
+    /**
+     * Poll the given positions.
+     * This may be called from the worker pool, but never concurrently for the same position.
+     * @param channel The channel.
+     * @param positions The positions to poll.
+     * @param currentTick The current tick.
+     * @param isBeingDiagnozed If durations should be recorded.
+     * @param channelTargetTicks The ticks at which positions in the channel should be polled.
+     * @param channelIntervals The poll intervals of positions in the channel.
+     * @param diffManagers The diff managers of the channel.
+     * @return The resulting batch of change events.
+     */
+    protected IngredientObserverBatch<T, M> observeShard(int channel, List<PrioritizedPartPos> positions, int currentTick,
+                                                         boolean isBeingDiagnozed,
+                                                         Map<PrioritizedPartPos, Integer> channelTargetTicks,
+                                                         Map<PartPos, Integer> channelIntervals,
+                                                         Map<PrioritizedPartPos, IngredientCollectionDiffManager<T, M>> diffManagers) {
+        // Inline shards are already counted by the observing thread
+        boolean trackAllocations = AllocationCounter.isEnabled() && GeneralConfig.ingredientNetworkObserverEnableMultithreading;
+        long startBytes = trackAllocations ? AllocationCounter.getAllocatedBytes() : 0;
+        List<IIngredientComponentStorageObservable.StorageChangeEvent<T, M>> events = Lists.newArrayList();
+        Map<PartPos, Long> durations = isBeingDiagnozed ? Maps.newHashMap() : Maps.newHashMapWithExpectedSize(0);
+        for (PrioritizedPartPos partPos : positions) {
+            // Get current time if diagnostics are enabled
+            long startTime = 0;
+            if (isBeingDiagnozed) {
+                startTime = System.nanoTime();
+            }
+
+            // If an inventory state is exposed, check if it has changed since the last observation call.
+            boolean skipPosition = false;
+            IInventoryState inventoryState = TileHelpers.getCapability(partPos.getPartPos().getPos(),
+                    partPos.getPartPos().getSide(), Capabilities.INVENTORY_STATE);
+            if (inventoryState != null) {
+                Integer lastState = this.lastInventoryStates.get(partPos.getPartPos());
+                int newState = inventoryState.getHash();
+                if (lastState != null && lastState == newState) {
+                    // Skip this position if it hasn't not changed
+                    skipPosition = true;
+                } else {
+                    this.lastInventoryStates.put(partPos.getPartPos(), newState);
+                }
+            }
+
+            if (!skipPosition) {
+                IngredientCollectionDiffManager<T, M> diffManager = diffManagers.get(partPos);
+                if (diffManager == null) {
+                    diffManager = new IngredientCollectionDiffManager<>(network.getComponent());
+                    diffManagers.put(partPos, diffManager);
+                }
 
-        // Store our new ticking collections
-        if (!channelTargetTicks.isEmpty()) {
-            observeTargetTicks.put(channel, channelTargetTicks);
+                // Emit event of diff
+                IProfilingEvent profilingEvent = ProfilingEvents.get().beginObserverDiff(getNetworkId(), network.getComponent(), channel, partPos.getPartPos());
+                IngredientCollectionDiff<T, M> diff = diffManager.onChange(getNetwork().getRawInstances(partPos.getPartPos()));
+                if (profilingEvent != null) {
+                    profilingEvent.commit();
+                }
+                boolean hasChanges = emitDiff(events, channel, partPos, diff);
+
+                // Update the next tick value
+                int tickInterval = channelIntervals.getOrDefault(partPos.getPartPos(), GeneralConfig.ingredientNetworkObserverFrequencyMax);
+                // Decrease the frequency when changes were detected
+                // Increase the frequency when no changes were detected
+                // This will make it so that quickly changing storages will be observed
+                // more frequently than slowly changing storages
+                boolean tickIntervalChanged = false;
+                if (hasChanges) {
+                    if (tickInterval > GeneralConfig.ingredientNetworkObserverFrequencyMin) {
+                        tickIntervalChanged = true;
+                        tickInterval = Math.max(GeneralConfig.ingredientNetworkObserverFrequencyMin, tickInterval - GeneralConfig.ingredientNetworkObserverFrequencyDecreaseFactor);
+                    }
+                } else {
+                    if (tickInterval < GeneralConfig.ingredientNetworkObserverFrequencyMax) {
+                        tickIntervalChanged = true;
+                        tickInterval = Math.min(GeneralConfig.ingredientNetworkObserverFrequencyMax, tickInterval + GeneralConfig.ingredientNetworkObserverFrequencyIncreaseFactor);
+                    }
+                }
+                // No need to store the interval if it == 1, as the previous or default value will
+                // definitely also cause this part to tick in next tick.
+                // This makes these cases slightly faster, as no map updates are needed.
+                if (tickInterval != 1) {
+                    channelTargetTicks.put(partPos, currentTick + tickInterval);
+
+                }
+                // Only update when the interval has changed.
+                // In most cases, this will remain the same.
+                if (tickIntervalChanged) {
+                    if (tickInterval != GeneralConfig.ingredientNetworkObserverFrequencyMax) {
+                        channelIntervals.put(partPos.getPartPos(), tickInterval);
+                    } else {
+                        channelIntervals.remove(partPos.getPartPos());
+                    }
+                }
+            }
+
+            // Calculate duration if diagnostics are enabled
+            if (isBeingDiagnozed) {
+                long duration = System.nanoTime() - startTime;
+                PartPos interfacePos = PartTarget.fromCenter(partPos.getPartPos()).getTarget();
+                durations.merge(interfacePos, duration, Long::sum);
+            }
         }
-        if (!channelIntervals.isEmpty()) {
-            observeTargetTickIntervals.put(channel, channelIntervals);
+        if (trackAllocations) {
+            NetworkMetrics.getInstance().recordObserverAllocation(network.getComponent(), AllocationCounter.getAllocatedBytes() - startBytes);
         }
+        return new IngredientObserverBatch<>(channel, positions, events, durations);
     }
 
     public void resetTickInterval(int channel, PartPos pos) {
-        Map<PartPos, Integer> channelIntervals = this.observeTargetTickIntervals.get(channel);
-        if (channelIntervals == null) {
-            channelIntervals = Maps.newHashMap();
-            this.observeTargetTickIntervals.put(channel, channelIntervals);
-        }
-        channelIntervals.put(pos, GeneralConfig.ingredientNetworkObserverFrequencyForced);
+        getChannelMap(observeTargetTickIntervals, channel, Maps::newConcurrentMap)
+                .put(pos, GeneralConfig.ingredientNetworkObserverFrequencyForced);
     }
 
 }
@@ -0,0 +1,70 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The immutable result of observing a shard of positions within a channel.
+ * @param <T> The instance type.
+ * @param <M> The matching condition parameter, may be Void.
+ * @author rubensworks
+ */
+public class IngredientObserverBatch<T, M> {
+
+    private final int channel;
+    private final List<PrioritizedPartPos> positions;
+    private final List<IIngredientComponentStorageObservable.StorageChangeEvent<T, M>> events;
+    private final Map<PartPos, Long> durations;
+
+    public IngredientObserverBatch(int channel, List<PrioritizedPartPos> positions,
+                                   List<IIngredientComponentStorageObservable.StorageChangeEvent<T, M>> events,
+                                   Map<PartPos, Long> durations) {
+        this.channel = channel;
+        this.positions = ImmutableList.copyOf(positions);
+        this.events = ImmutableList.copyOf(events);
+        this.durations = ImmutableMap.copyOf(durations);
+    }
+
+    /**
+     * @param channel The channel.
+     * @param positions The positions of the shard.
+     * @param <T> The instance type.
+     * @param <M> The matching condition parameter.
+     * @return A batch without changes, for shards of which the observation failed.
+     */
+    public static <T, M> IngredientObserverBatch<T, M> empty(int channel, List<PrioritizedPartPos> positions) {
+        return new IngredientObserverBatch<>(channel, positions, ImmutableList.of(), ImmutableMap.of());
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    /**
+     * @return The positions that were observed.
+     */
+    public List<PrioritizedPartPos> getPositions() {
+        return positions;
+    }
+
+    /**
+     * @return The change events of the observed positions, in the order in which they must be applied.
+     */
+    public List<IIngredientComponentStorageObservable.StorageChangeEvent<T, M>> getEvents() {
+        return events;
+    }
+
+    /**
+     * @return The observation durations per position in nanoseconds, only filled in when diagnostics are enabled.
+     */
+    public Map<PartPos, Long> getDurations() {
+        return durations;
+    }
+
+}
@@ -1,5 +1,7 @@
 package org.cyclops.integrateddynamics.core.network;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.cyclopscore.datastructure.DistinctIterator;
@@ -12,11 +14,14 @@ import org.cyclops.integrateddynamics.api.part.PartPos;
 import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.TreeSet;
 
 /**
  * An index that maps ingredients to positions that contain that instance.
+ * Next to the total quantities, the quantities per position are indexed as well.
  * @param <T> An instance type.
  * @param <M> The matching condition parameter.
  * @author rubensworks
@@ -25,10 +30,12 @@ public class IngredientPositionsIndex<T, M> extends IngredientCollectionMutableW
         implements IIngredientPositionsIndex<T, M> {
 
     private final IIngredientMapMutable<T, M, TreeSet<PrioritizedPartPos>> positionsMap;
+    private final Map<PartPos, IIngredientMapMutable<T, M, Long>> positionQuantities;
 
     public IngredientPositionsIndex(IngredientComponent<T, M> component) {
         super(new IngredientCollectionPrototypeMap<>(component, false));
         this.positionsMap = new IngredientHashMap<>(component);
+        this.positionQuantities = Maps.newHashMap();
     }
 
     protected T getPrototype(T instance) {
@@ -58,6 +65,14 @@ public class IngredientPositionsIndex<T, M> extends IngredientCollectionMutableW
             this.positionsMap.put(prototype, set);
         }
         set.add(pos);
+
+        IIngredientMapMutable<T, M, Long> quantities = this.positionQuantities.get(pos.getPartPos());
+        if (quantities == null) {
+            quantities = new IngredientHashMap<>(getComponent());
+            this.positionQuantities.put(pos.getPartPos(), quantities);
+        }
+        Long quantity = quantities.get(prototype);
+        quantities.put(prototype, (quantity == null ? 0 : quantity) + getComponent().getMatcher().getQuantity(instance));
     }
 
     @Override
@@ -70,6 +85,55 @@ public class IngredientPositionsIndex<T, M> extends IngredientCollectionMutableW
                 this.positionsMap.remove(prototype);
             }
         }
+
+        IIngredientMapMutable<T, M, Long> quantities = this.positionQuantities.get(pos.getPartPos());
+        if (quantities != null) {
+            quantities.remove(prototype);
+            if (quantities.isEmpty()) {
+                this.positionQuantities.remove(pos.getPartPos());
+            }
+        }
+    }
+
+    @Override
+    public void removePositionQuantity(T instance, PrioritizedPartPos pos) {
+        IIngredientMapMutable<T, M, Long> quantities = this.positionQuantities.get(pos.getPartPos());
+        if (quantities != null) {
+            T prototype = getPrototype(instance);
+            Long quantity = quantities.get(prototype);
+            if (quantity != null) {
+                long newQuantity = quantity - getComponent().getMatcher().getQuantity(instance);
+                if (newQuantity > 0) {
+                    quantities.put(prototype, newQuantity);
+                } else {
+                    quantities.remove(prototype);
+                    if (quantities.isEmpty()) {
+                        this.positionQuantities.remove(pos.getPartPos());
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public long getPositionQuantity(T instance, PartPos pos) {
+        IIngredientMapMutable<T, M, Long> quantities = this.positionQuantities.get(pos);
+        Long quantity = quantities == null ? null : quantities.get(getPrototype(instance));
+        return quantity == null ? 0 : quantity;
+    }
+
+    @Override
+    public Iterator<T> getPositionInstances(PartPos pos) {
+        IIngredientMapMutable<T, M, Long> quantities = this.positionQuantities.get(pos);
+        if (quantities == null) {
+            return Collections.emptyIterator();
+        }
+        return Iterators.transform(quantities.iterator(), Map.Entry::getKey);
+    }
+
+    @Override
+    public boolean hasPositionQuantities() {
+        return true;
     }
 
     @Override
@@ -3,6 +3,17 @@ package org.cyclops.integrateddynamics.core.network;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.TObjectLongMap;
+import gnu.trove.map.custom_hash.TObjectLongCustomHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.strategy.IdentityHashingStrategy;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
@@ -13,6 +24,7 @@ import net.minecraftforge.common.capabilities.CapabilityDispatcher;
 import org.apache.logging.log4j.Level;
 import org.cyclops.cyclopscore.datastructure.DimPos;
 import org.cyclops.cyclopscore.helper.TileHelpers;
+import org.cyclops.integrateddynamics.GeneralConfig;
 import org.cyclops.integrateddynamics.IntegratedDynamics;
 import org.cyclops.integrateddynamics.api.PartStateException;
 import org.cyclops.integrateddynamics.api.network.AttachCapabilitiesEventNetwork;
@@ -23,6 +35,7 @@ import org.cyclops.integrateddynamics.api.network.INetworkCarrier;
 import org.cyclops.integrateddynamics.api.network.INetworkElement;
 import org.cyclops.integrateddynamics.api.network.INetworkElementProvider;
 import org.cyclops.integrateddynamics.api.network.INetworkEventListener;
+import org.cyclops.integrateddynamics.api.network.IPositionedNetworkElement;
 import org.cyclops.integrateddynamics.api.network.event.INetworkEvent;
 import org.cyclops.integrateddynamics.api.network.event.INetworkEventBus;
 import org.cyclops.integrateddynamics.api.path.IPathElement;
@@ -30,20 +43,31 @@ import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
 import org.cyclops.integrateddynamics.capability.network.NetworkCarrierConfig;
 import org.cyclops.integrateddynamics.capability.networkelementprovider.NetworkElementProviderConfig;
 import org.cyclops.integrateddynamics.capability.path.SidedPathElement;
+import org.cyclops.integrateddynamics.core.TickHandler;
+import org.cyclops.integrateddynamics.core.helper.NetworkHelpers;
 import org.cyclops.integrateddynamics.core.network.diagnostics.NetworkDiagnostics;
 import org.cyclops.integrateddynamics.core.network.event.NetworkElementAddEvent;
 import org.cyclops.integrateddynamics.core.network.event.NetworkElementRemoveEvent;
 import org.cyclops.integrateddynamics.core.network.event.NetworkEventBus;
+import org.cyclops.integrateddynamics.core.network.metrics.AllocationCounter;
+import org.cyclops.integrateddynamics.core.network.metrics.NetworkMetrics;
 import org.cyclops.integrateddynamics.core.path.Cluster;
 import org.cyclops.integrateddynamics.core.path.PathFinder;
 import org.cyclops.integrateddynamics.core.persist.world.NetworkWorldStorage;
+import org.cyclops.integrateddynamics.core.profiling.IProfilingEvent;
+import org.cyclops.integrateddynamics.core.profiling.ProfilingEvents;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * A network instance that can hold a set of {@link INetworkElement}s.
@@ -52,20 +76,41 @@ import java.util.TreeSet;
  */
 public class Network implements INetwork {
 
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private int id = NEXT_ID.getAndIncrement();
     private Cluster baseCluster;
 
     private final INetworkEventBus eventBus = new NetworkEventBus();
     private final TreeSet<INetworkElement> elements = Sets.newTreeSet();
-    private TreeSet<INetworkElement> updateableElements = null;
-    private TreeMap<INetworkElement, Integer> updateableElementsTicks = null;
+    private TreeMap<INetworkElement, TimingWheel.Entry<INetworkElement>> updateableElements = null;
+    private TimingWheel<INetworkElement> updateSchedule = null;
+    private List<DeferredUpdate> deferredUpdates = Lists.newArrayList();
     private TreeSet<INetworkElement> invalidatedElements = Sets.newTreeSet();
-    private Map<INetworkElement, Long> lastSecondDurations = Maps.newHashMap();
+    private final TIntObjectMap<TLongObjectMap<List<INetworkElement>>> positionedElements = new TIntObjectHashMap<>();
+    private int unpositionedElements = 0;
+    // Counters are keyed by identity, as element hash codes may be expensive and may change over time.
+    private final TObjectLongMap<INetworkElement> lastSecondDurations = new TObjectLongCustomHashMap<>(IdentityHashingStrategy.INSTANCE);
+    private final TObjectLongMap<INetworkElement> elementUpdates = new TObjectLongCustomHashMap<>(IdentityHashingStrategy.INSTANCE);
+    private final TObjectLongMap<INetworkElement> elementSampledDurations = new TObjectLongCustomHashMap<>(IdentityHashingStrategy.INSTANCE);
+
+    private final NetworkCommandBuffer commandBuffer = new NetworkCommandBuffer();
+    private long lastUpdateDuration = 0;
+    private IProfilingEvent tickProfilingEvent = null;
+    private long updateDuration = 0;
+    private long lastUpdateAllocatedBytes = 0;
+    private long updateAllocatedBytes = 0;
+    private long lastUpdateTick = -1;
+    private volatile long dormantUntilTick = -1;
 
     private final CapabilityDispatcher capabilityDispatcher;
     private IFullNetworkListener[] fullNetworkListeners;
 
     private NBTTagCompound toRead = null;
+    private Restoration restoration = null;
     private volatile boolean changed = false;
+    private final AtomicLong modifications = new AtomicLong();
+    private volatile SavedCluster savedCluster = null;
     private volatile boolean killed = false;
 
     private boolean crashed = false;
@@ -92,7 +137,8 @@ public class Network implements INetwork {
     }
 
     /**
-     * This constructor should not be called, except for the process of constructing networks from NBT.
+     * This constructor should not be called,
+     * except for the process of constructing networks from NBT or splitting existing networks.
      */
     public Network() {
         this.baseCluster = new Cluster();
@@ -136,31 +182,177 @@ public class Network implements INetwork {
 
     private void deriveNetworkElements(Cluster pathElements) {
         if(!killIfEmpty()) {
+            IProfilingEvent profilingEvent = ProfilingEvents.get().beginNetworkRebuild(this);
+            List<INetworkElement> networkElements = Lists.newArrayList();
             for (ISidedPathElement sidedPathElement : pathElements) {
-                World world = sidedPathElement.getPathElement().getPosition().getWorld();
-                BlockPos pos = sidedPathElement.getPathElement().getPosition().getBlockPos();
-                EnumFacing side = sidedPathElement.getSide();
-                INetworkCarrier networkCarrier = TileHelpers.getCapability(
-                        world, pos, side, NetworkCarrierConfig.CAPABILITY);
-                if (networkCarrier != null) {
-                    // Correctly remove any previously saved network in this carrier
-                    // and set the new network to this.
-                    INetwork network = networkCarrier.getNetwork();
-                    if (network != null) {
-                        network.removePathElement(sidedPathElement.getPathElement(), side);
-                    }
-                    networkCarrier.setNetwork(null);
-                    networkCarrier.setNetwork(this);
+                deriveNetworkElements(sidedPathElement, networkElements);
+            }
+            addNetworkElements(networkElements, true);
+            onNetworkChanged();
+            if (profilingEvent != null) {
+                profilingEvent.commit();
+            }
+        }
+    }
+
+    private boolean isCarriedByOtherNetwork(ISidedPathElement sidedPathElement) {
+        DimPos pos = sidedPathElement.getPathElement().getPosition();
+        INetworkCarrier networkCarrier = TileHelpers.getCapability(
+                pos.getWorld(), pos.getBlockPos(), sidedPathElement.getSide(), NetworkCarrierConfig.CAPABILITY);
+        INetwork network = networkCarrier != null ? networkCarrier.getNetwork() : null;
+        return network != null && network != this;
+    }
+
+    private void deriveNetworkElements(ISidedPathElement sidedPathElement, List<INetworkElement> networkElements) {
+        World world = sidedPathElement.getPathElement().getPosition().getWorld();
+        BlockPos pos = sidedPathElement.getPathElement().getPosition().getBlockPos();
+        EnumFacing side = sidedPathElement.getSide();
+        INetworkCarrier networkCarrier = TileHelpers.getCapability(
+                world, pos, side, NetworkCarrierConfig.CAPABILITY);
+        if (networkCarrier != null) {
+            // Correctly remove any previously saved network in this carrier
+            // and set the new network to this.
+            INetwork network = networkCarrier.getNetwork();
+            if (network != null) {
+                // A network that is still being restored must be complete before its elements are taken over,
+                // otherwise its restoration would take them back.
+                if (network != this && !isRestoring()) {
+                    NetworkHelpers.finishRestoration(network);
                 }
+                network.removePathElement(sidedPathElement.getPathElement(), side);
+            }
+            networkCarrier.setNetwork(null);
+            networkCarrier.setNetwork(this);
+        }
+        INetworkElementProvider networkElementProvider = TileHelpers.getCapability(
+                world, pos, side, NetworkElementProviderConfig.CAPABILITY);
+        if (networkElementProvider != null) {
+            networkElements.addAll(networkElementProvider.createNetworkElements(world, pos));
+        }
+    }
+
+    /**
+     * @return If path elements can be added to or removed from this network incrementally,
+     *         without rebuilding it from scratch.
+     */
+    public boolean canChangeIncrementally() {
+        return isInitialized() && !isKilled() && this.toRead == null;
+    }
+
+    /**
+     * Add a single path element to this network, together with the network elements it provides.
+     * This should only be used when all path elements reachable from it are already part of this network.
+     * @param sidedPathElement The sided path element to add.
+     */
+    public synchronized void addPathElement(ISidedPathElement sidedPathElement) {
+        World world = sidedPathElement.getPathElement().getPosition().getWorld();
+        BlockPos pos = sidedPathElement.getPathElement().getPosition().getBlockPos();
+        EnumFacing side = sidedPathElement.getSide();
+        baseCluster.add(sidedPathElement);
+        INetworkCarrier networkCarrier = TileHelpers.getCapability(
+                world, pos, side, NetworkCarrierConfig.CAPABILITY);
+        if (networkCarrier != null) {
+            networkCarrier.setNetwork(null);
+            networkCarrier.setNetwork(this);
+        }
+        INetworkElementProvider networkElementProvider = TileHelpers.getCapability(
+                world, pos, side, NetworkElementProviderConfig.CAPABILITY);
+        if (networkElementProvider != null) {
+            for (INetworkElement element : addNetworkElements(networkElementProvider.createNetworkElements(world, pos), false)) {
+                element.afterNetworkAlive(this);
+                element.afterNetworkReAlive(this);
+            }
+        }
+        onNetworkChanged();
+    }
+
+    /**
+     * Move all path elements and network elements of the given network into this network.
+     * The given network will be empty afterwards, and will be cleaned up during its next update.
+     * @param network The network to merge into this one.
+     */
+    public synchronized void absorbNetwork(Network network) {
+        network.transferPathElements(this, Lists.newArrayList(network.baseCluster));
+    }
+
+    /**
+     * Check if the removal of a connection has split this network,
+     * and move each disconnected part into a new network.
+     * Only the disconnected parts are traversed, the remaining part of this network is left untouched.
+     * @param heads The path elements in this network that were adjacent to the removed connection.
+     * @return The newly created networks.
+     */
+    public synchronized List<Network> splitDisconnected(List<ISidedPathElement> heads) {
+        List<Network> networks = Lists.newArrayList();
+        if (heads.size() > 1) {
+            for (Cluster cluster : PathFinder.getDisconnectedClusters(heads, baseCluster::contains)) {
+                Network network = new Network();
+                network.initialize(true);
+                transferPathElements(network, cluster);
+                NetworkWorldStorage.getInstance(IntegratedDynamics._instance).addNewNetwork(network);
+                networks.add(network);
+            }
+        }
+        return networks;
+    }
+
+    /**
+     * Move the given path elements and the network elements they provide from this network to the given network.
+     * Update tick counters and invalidation states of the moved elements are retained.
+     * @param target The initialized network to move to.
+     * @param pathElements The path elements to move.
+     */
+    protected void transferPathElements(Network target, Collection<ISidedPathElement> pathElements) {
+        catchUpUpdateSchedule();
+        target.catchUpUpdateSchedule();
+        for (ISidedPathElement sidedPathElement : pathElements) {
+            World world = sidedPathElement.getPathElement().getPosition().getWorld();
+            BlockPos pos = sidedPathElement.getPathElement().getPosition().getBlockPos();
+            EnumFacing side = sidedPathElement.getSide();
+            baseCluster.remove(sidedPathElement);
+            target.baseCluster.add(sidedPathElement);
+            INetworkCarrier networkCarrier = TileHelpers.getCapability(
+                    world, pos, side, NetworkCarrierConfig.CAPABILITY);
+            if (networkCarrier != null) {
+                networkCarrier.setNetwork(null);
+                networkCarrier.setNetwork(target);
+            }
+            Collection<INetworkElement> positionElements = getElementsAt(sidedPathElement.getPathElement().getPosition());
+            if (positionElements != null) {
+                // Copy, because the elements are removed from the index while transferring
+                for (INetworkElement element : Lists.newArrayList(positionElements)) {
+                    transferNetworkElement(target, element);
+                }
+            } else {
                 INetworkElementProvider networkElementProvider = TileHelpers.getCapability(
                         world, pos, side, NetworkElementProviderConfig.CAPABILITY);
                 if (networkElementProvider != null) {
-                    for(INetworkElement element : networkElementProvider.createNetworkElements(world, pos)) {
-                        addNetworkElement(element, true);
+                    for (INetworkElement element : networkElementProvider.createNetworkElements(world, pos)) {
+                        if (elements.contains(element)) {
+                            transferNetworkElement(target, element);
+                        }
                     }
                 }
             }
-            onNetworkChanged();
+        }
+        onNetworkChanged();
+        target.onNetworkChanged();
+    }
+
+    private void transferNetworkElement(Network target, INetworkElement element) {
+        TimingWheel.Entry<INetworkElement> entry = updateableElements != null ? updateableElements.get(element) : null;
+        long remainingTicks = entry != null ? entry.getDueTick() - updateSchedule.getTick() : 0;
+        boolean invalidated = invalidatedElements.contains(element);
+        removeNetworkElementPost(element);
+        if (target.addNetworkElement(element, false)) {
+            if (remainingTicks > 0 && target.updateableElements.containsKey(element)) {
+                target.scheduleNetworkElementUpdate(element, target.updateSchedule.getTick() + remainingTicks);
+            }
+            if (invalidated) {
+                target.invalidateElement(element);
+            }
+            element.afterNetworkAlive(target);
+            element.afterNetworkReAlive(target);
         }
     }
 
@@ -181,18 +373,84 @@ public class Network implements INetwork {
         initialize(false);
     }
 
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Give this network a new unique id.
+     * This should only be used when a loaded network has the same id as another network.
+     */
+    public void assignNewId() {
+        this.id = NEXT_ID.getAndIncrement();
+    }
+
     @Override
     public boolean equals(Object object) {
-        return object instanceof Network && areNetworksEqual(this, (Network) object);
+        return object instanceof Network && ((Network) object).id == this.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
     }
 
     @Override
     public NBTTagCompound toNBT() {
+        if (this.toRead != null) {
+            // The network has not been restored yet, so save it as it was loaded.
+            return this.toRead.copy();
+        }
+        // The cluster is only serialized again if the network structure was modified since the last save.
+        SavedCluster savedCluster = this.savedCluster;
+        NBTTagCompound clusterTag;
+        if (isDirty()) {
+            long version = this.modifications.get();
+            clusterTag = this.baseCluster.toNBT();
+            this.savedCluster = new SavedCluster(clusterTag, version);
+        } else {
+            clusterTag = savedCluster.tag;
+        }
+        return createTag(clusterTag.copy(), this.crashed, this.capabilityDispatcher != null ? this.capabilityDispatcher.serializeNBT() : null);
+    }
+
+    /**
+     * Take a snapshot of the current state of this network that can be serialized later from another thread.
+     * Only the positions in the cluster and the capabilities are copied, which is much cheaper than {@link #toNBT()}.
+     * @return A supplier for the NBT tag of this network, as {@link #toNBT()} would return it now.
+     */
+    public Supplier<NBTTagCompound> createSnapshot() {
+        if (this.toRead != null) {
+            NBTTagCompound toRead = this.toRead;
+            return toRead::copy;
+        }
+        boolean crashed = this.crashed;
+        NBTTagCompound capabilitiesTag = this.capabilityDispatcher != null ? this.capabilityDispatcher.serializeNBT() : null;
+        SavedCluster savedCluster = this.savedCluster;
+        if (!isDirty()) {
+            return () -> createTag(savedCluster.tag.copy(), crashed, capabilitiesTag);
+        }
+        long version = this.modifications.get();
+        Cluster.Snapshot clusterSnapshot = new Cluster.Snapshot(this.baseCluster);
+        return () -> {
+            NBTTagCompound clusterTag = clusterSnapshot.toNBT();
+            // Only keep the tag if no newer one was saved in the meantime.
+            SavedCluster currentSavedCluster = this.savedCluster;
+            if (currentSavedCluster == null || currentSavedCluster.version < version) {
+                this.savedCluster = new SavedCluster(clusterTag, version);
+            }
+            return createTag(clusterTag.copy(), crashed, capabilitiesTag);
+        };
+    }
+
+    protected NBTTagCompound createTag(NBTTagCompound clusterTag, boolean crashed, @Nullable NBTTagCompound capabilitiesTag) {
         NBTTagCompound tag = new NBTTagCompound();
-        tag.setTag("baseCluster", this.baseCluster.toNBT());
-        tag.setBoolean("crashed", this.crashed);
-        if (this.capabilityDispatcher != null) {
-            tag.setTag("ForgeCaps", this.capabilityDispatcher.serializeNBT());
+        tag.setInteger("id", this.id);
+        tag.setTag("baseCluster", clusterTag);
+        tag.setBoolean("crashed", crashed);
+        if (capabilitiesTag != null) {
+            tag.setTag("ForgeCaps", capabilitiesTag);
         }
         return tag;
     }
@@ -203,16 +461,50 @@ public class Network implements INetwork {
         // Because other mods may register things such as dimensions at the same time when networks
         // are being constructed (as was the case in #349)
         this.toRead = tag;
+        // The id is read immediately, because the network is identified by it when added to the storage.
+        if (tag.hasKey("id")) {
+            this.id = tag.getInteger("id");
+            NEXT_ID.accumulateAndGet(this.id + 1, Math::max);
+        }
     }
 
     public void fromNBTEffective(NBTTagCompound tag) {
-        this.baseCluster.fromNBT(tag.getCompoundTag("baseCluster"));
-        this.crashed = tag.getBoolean("crashed");
-        if (this.capabilityDispatcher != null && tag.hasKey("ForgeCaps")) {
-            this.capabilityDispatcher.deserializeNBT(tag.getCompoundTag("ForgeCaps"));
+        new Restoration(tag).run(Long.MAX_VALUE);
+    }
+
+    /**
+     * @return If this network was loaded from NBT, but has not been fully restored yet.
+     */
+    public boolean isRestoring() {
+        return this.toRead != null;
+    }
+
+    /**
+     * Continue restoring this network from the NBT tag it was loaded from, until the given deadline has passed.
+     * @param deadline The {@link System#nanoTime()} until which restoration can run.
+     * @return If the network is fully restored.
+     */
+    public synchronized boolean restore(long deadline) {
+        if (this.toRead == null) {
+            return true;
         }
-        deriveNetworkElements(baseCluster);
-        initialize(true);
+        if (this.restoration == null) {
+            this.restoration = new Restoration(this.toRead);
+        }
+        if (this.restoration.run(deadline)) {
+            this.restoration = null;
+            this.toRead = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The fraction of this network that has been restored, between 0 and 1.
+     */
+    public double getRestorationProgress() {
+        Restoration restoration = this.restoration;
+        return this.toRead == null ? 1 : restoration == null ? 0 : restoration.getProgress();
     }
 
     @Override
@@ -223,12 +515,56 @@ public class Network implements INetwork {
             }
         }
 
+        if (addNetworkElementInternal(element, networkPreinit)) {
+            getEventBus().post(new NetworkElementAddEvent.Post(this, element));
+            onNetworkChanged();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized Collection<INetworkElement> addNetworkElements(Collection<INetworkElement> elements, boolean networkPreinit) {
+        Collection<INetworkElement> acceptedElements = elements;
+        for (IFullNetworkListener fullNetworkListener : this.fullNetworkListeners) {
+            if (acceptedElements.isEmpty()) {
+                return Collections.emptyList();
+            }
+            acceptedElements = fullNetworkListener.addNetworkElements(acceptedElements, networkPreinit);
+        }
+
+        List<INetworkElement> addedElements = Lists.newArrayListWithCapacity(acceptedElements.size());
+        for (INetworkElement element : acceptedElements) {
+            if (addNetworkElementInternal(element, networkPreinit)) {
+                addedElements.add(element);
+            }
+        }
+        // Post events only after the whole batch was added, so that listeners observe the complete network
+        for (INetworkElement element : addedElements) {
+            getEventBus().post(new NetworkElementAddEvent.Post(this, element));
+        }
+        if (!addedElements.isEmpty()) {
+            onNetworkChanged();
+        }
+        return addedElements;
+    }
+
+    /**
+     * Add the given element to this network after it has been accepted by the network listeners.
+     * @param element The network element.
+     * @param networkPreinit If the network is still in the process of being initialized.
+     * @return If the addition succeeded.
+     */
+    protected boolean addNetworkElementInternal(INetworkElement element, boolean networkPreinit) {
         if(getEventBus().postCancelable(new NetworkElementAddEvent.Pre(this, element))) {
-            elements.add(element);
+            boolean newElement = elements.add(element);
             if (!element.onNetworkAddition(this)) {
                 elements.remove(element);
                 return false;
             }
+            if (newElement) {
+                addElementPosition(element);
+            }
             if (!networkPreinit) {
                 addNetworkElementUpdateable(element);
             }
@@ -241,8 +577,6 @@ public class Network implements INetwork {
                     }
                 }
             }
-            getEventBus().post(new NetworkElementAddEvent.Post(this, element));
-            onNetworkChanged();
             return true;
         }
         return false;
@@ -251,8 +585,15 @@ public class Network implements INetwork {
     @Override
     public void addNetworkElementUpdateable(INetworkElement element) {
         if(element.isUpdate()) {
-            updateableElements.add(element);
-            updateableElementsTicks.put(element, 0);
+            scheduleNetworkElementUpdate(element, updateSchedule.getTick());
+        }
+    }
+
+    private void scheduleNetworkElementUpdate(INetworkElement element, long tick) {
+        wakeUp();
+        TimingWheel.Entry<INetworkElement> previousEntry = updateableElements.put(element, updateSchedule.schedule(element, tick));
+        if (previousEntry != null) {
+            updateSchedule.cancel(previousEntry);
         }
     }
 
@@ -268,11 +609,11 @@ public class Network implements INetwork {
 
     @Override
     public synchronized void setPriorityAndChannel(INetworkElement element, int priority, int channel) {
+        // The scheduled update entry is kept, only its key in the priority-sorted map changes.
         elements.remove(element);
-        Integer oldTickValue = null;
+        TimingWheel.Entry<INetworkElement> entry = null;
         if (element.isUpdate()) {
-            updateableElements.remove(element);
-            oldTickValue = updateableElementsTicks.remove(element);
+            entry = updateableElements.remove(element);
         }
 
         //noinspection deprecation
@@ -280,9 +621,10 @@ public class Network implements INetwork {
 
         elements.add(element);
         if (element.isUpdate()) {
-            updateableElements.add(element);
-            if (oldTickValue != null) {
-                updateableElementsTicks.put(element, oldTickValue);
+            if (entry != null) {
+                updateableElements.put(element, entry);
+            } else {
+                addNetworkElementUpdateable(element);
             }
         }
     }
@@ -301,7 +643,9 @@ public class Network implements INetwork {
         }
         element.beforeNetworkKill(this);
         element.onNetworkRemoval(this);
-        elements.remove(element);
+        if (elements.remove(element)) {
+            removeElementPosition(element);
+        }
         removeNetworkElementUpdateable(element);
         invalidatedElements.remove(element); // The element may be invalidated (like in an unloaded chunk) when it is being removed.
         getEventBus().post(new NetworkElementRemoveEvent.Post(this, element));
@@ -310,8 +654,24 @@ public class Network implements INetwork {
 
     @Override
     public synchronized void removeNetworkElementUpdateable(INetworkElement element) {
-        updateableElements.remove(element);
-        updateableElementsTicks.remove(element);
+        TimingWheel.Entry<INetworkElement> entry = updateableElements.remove(element);
+        if (entry != null) {
+            updateSchedule.cancel(entry);
+            // The counters are keyed by the scheduled instance, which may differ from the given one.
+            INetworkElement scheduledElement = entry.getElement();
+            lastSecondDurations.remove(scheduledElement);
+            elementUpdates.remove(scheduledElement);
+            elementSampledDurations.remove(scheduledElement);
+        }
+    }
+
+    /**
+     * @param element An element.
+     * @return The instance of the given element that is scheduled for updates, which is used as key for counters.
+     */
+    protected INetworkElement getScheduledElement(INetworkElement element) {
+        TimingWheel.Entry<INetworkElement> entry = updateableElements != null ? updateableElements.get(element) : null;
+        return entry != null ? entry.getElement() : element;
     }
 
     /**
@@ -319,8 +679,9 @@ public class Network implements INetwork {
      * @param silent If the element should not be notified for the network becoming alive.
      */
     protected void initialize(boolean silent) {
-        updateableElements = Sets.newTreeSet();
-        updateableElementsTicks = Maps.newTreeMap();
+        updateableElements = Maps.newTreeMap();
+        updateSchedule = new TimingWheel<>(0);
+        deferredUpdates = Lists.newArrayList();
         for(INetworkElement element : elements) {
             addNetworkElementUpdateable(element);
             if(!silent) {
@@ -339,6 +700,8 @@ public class Network implements INetwork {
             element.beforeNetworkKill(this);
         }
         killed = true;
+        // Make sure the network is removed from the storage in the next tick
+        wakeUp();
     }
 
     @Override
@@ -377,60 +740,211 @@ public class Network implements INetwork {
 
     @Override
     public final synchronized void update() {
+        if (startUpdate()) {
+            updateConcurrent();
+            finishUpdate();
+        }
+    }
+
+    @Override
+    public final synchronized boolean startUpdate() {
+        long startTime = System.nanoTime();
+        boolean trackAllocations = AllocationCounter.isEnabled();
+        long startBytes = trackAllocations ? AllocationCounter.getAllocatedBytes() : 0;
         if (this.toRead != null) {
-            this.fromNBTEffective(this.toRead);
-            this.toRead = null;
+            if (GeneralConfig.networkRestoreBudget > 0) {
+                // The network is not ticked until it has been fully restored over the next ticks.
+                NetworkRestorer.getInstance().enqueue(this);
+                this.lastUpdateDuration = 0;
+                this.lastUpdateAllocatedBytes = 0;
+                return false;
+            }
+            restore(Long.MAX_VALUE);
         }
 
+        long currentTick = TickHandler.getInstance().getNetworkTick();
+        catchUpUpdateSchedule();
+        this.lastUpdateTick = currentTick;
+        this.dormantUntilTick = -1;
+
         this.changed = false;
         if(killIfEmpty() || killed) {
             NetworkWorldStorage.getInstance(IntegratedDynamics._instance).removeInvalidatedNetwork(this);
-        } else {
+            this.lastUpdateDuration = System.nanoTime() - startTime;
+            this.lastUpdateAllocatedBytes = trackAllocations ? AllocationCounter.getAllocatedBytes() - startBytes : 0;
+            return false;
+        }
+        this.updateDuration = System.nanoTime() - startTime;
+        // Parallel updates run the phases on different threads, so the bytes of each phase are counted separately.
+        this.updateAllocatedBytes = trackAllocations ? AllocationCounter.getAllocatedBytes() - startBytes : 0;
+        // When networks are updated in parallel, this event also covers the time waiting for other networks.
+        this.tickProfilingEvent = ProfilingEvents.get().beginNetworkTick(this);
+        return true;
+    }
+
+    @Override
+    public final synchronized void updateConcurrent() {
+        long startTime = System.nanoTime();
+        boolean trackAllocations = AllocationCounter.isEnabled();
+        long startBytes = trackAllocations ? AllocationCounter.getAllocatedBytes() : 0;
+        commandBuffer.activate();
+        try {
             onUpdate();
+        } finally {
+            commandBuffer.deactivate();
+        }
+        this.updateDuration += System.nanoTime() - startTime;
+        if (trackAllocations) {
+            this.updateAllocatedBytes += AllocationCounter.getAllocatedBytes() - startBytes;
+        }
+    }
 
-            // Update updateable network elements
-            boolean isBeingDiagnozed = NetworkDiagnostics.getInstance().isBeingDiagnozed();
-            if (!isBeingDiagnozed && !lastSecondDurations.isEmpty()) {
-                // Make sure we aren't using any unnecessary memory.
-                lastSecondDurations.clear();
-            }
-            for (INetworkElement element : updateableElements) {
-                try {
-                    if (isValid(element)) {
-                        long startTime = 0;
-                        if (isBeingDiagnozed) {
-                            startTime = System.nanoTime();
-                        }
-                        int lastElementTick = updateableElementsTicks.getOrDefault(element, 0);
-                        if (canUpdate(element)) {
-                            if (lastElementTick <= 0) {
-                                updateableElementsTicks.put(element, element.getUpdateInterval() - 1);
-                                element.update(this);
-                                postUpdate(element);
-                            } else {
-                                updateableElementsTicks.put(element, lastElementTick - 1);
-                            }
-                        } else {
-                            onSkipUpdate(element);
-                            updateableElementsTicks.put(element, lastElementTick - 1);
-                        }
-                        if (isBeingDiagnozed) {
-                            long duration = System.nanoTime() - startTime;
-                            Long lastDuration = lastSecondDurations.get(element);
-                            if (lastDuration != null) {
-                                duration = duration + lastDuration;
-                            }
-                            lastSecondDurations.put(element, duration);
-                        }
+    @Override
+    public final synchronized void finishUpdate() {
+        long finishStartTime = System.nanoTime();
+        boolean trackAllocations = AllocationCounter.isEnabled();
+        long finishStartBytes = trackAllocations ? AllocationCounter.getAllocatedBytes() : 0;
+        commandBuffer.apply();
+
+        // Update updateable network elements
+        boolean isBeingDiagnozed = NetworkDiagnostics.getInstance().isBeingDiagnozed();
+        if (!isBeingDiagnozed && !lastSecondDurations.isEmpty()) {
+            // Make sure we aren't using any unnecessary memory.
+            lastSecondDurations.clear();
+        }
+        // Elements that were deferred in previous ticks go first, oldest first, so they can not be starved.
+        // After that, the elements that are due in this tick are visited in their priority order.
+        long deadline = getUpdateDeadline(finishStartTime);
+        long tick = updateSchedule.getTick();
+        List<DeferredUpdate> deferred = this.deferredUpdates;
+        this.deferredUpdates = Lists.newArrayList();
+        for (DeferredUpdate deferredUpdate : deferred) {
+            updateElement(deferredUpdate.getEntry(), tick, deferredUpdate.getAge(), deadline, isBeingDiagnozed, trackAllocations);
+        }
+        for (TimingWheel.Entry<INetworkElement> entry : updateSchedule.advance()) {
+            updateElement(entry, tick, 0, deadline, isBeingDiagnozed, trackAllocations);
+        }
+        if (GeneralConfig.networkDormancy) {
+            tryBecomeDormant();
+        }
+        this.lastUpdateDuration = this.updateDuration + System.nanoTime() - finishStartTime;
+        this.lastUpdateAllocatedBytes = trackAllocations
+                ? this.updateAllocatedBytes + AllocationCounter.getAllocatedBytes() - finishStartBytes : 0;
+        if (this.tickProfilingEvent != null) {
+            this.tickProfilingEvent.commit();
+            this.tickProfilingEvent = null;
+        }
+    }
+
+    /**
+     * Stop updating this network until its next element update is due,
+     * if no work is pending at the end of the current update.
+     * The network is woken up earlier by {@link #wakeUp()}, or when one of its listeners is not dormant anymore.
+     */
+    protected void tryBecomeDormant() {
+        if (!this.changed && this.deferredUpdates.isEmpty() && this.commandBuffer.size() == 0) {
+            long nextDueTick = updateSchedule.getNextDueTick();
+            long ticksUntilDue = nextDueTick - updateSchedule.getTick();
+            if (ticksUntilDue > 0) {
+                this.dormantUntilTick = nextDueTick == Long.MAX_VALUE ? Long.MAX_VALUE : this.lastUpdateTick + 1 + ticksUntilDue;
+            }
+        }
+    }
+
+    /**
+     * Move the update schedule forward over the ticks in which this network was not updated,
+     * so that it is in sync with the network tick of the {@link TickHandler}.
+     * Elements that became due in those ticks are deferred to the next update.
+     */
+    protected void catchUpUpdateSchedule() {
+        long currentTick = TickHandler.getInstance().getNetworkTick();
+        if (isInitialized() && this.lastUpdateTick >= 0 && currentTick - this.lastUpdateTick > 1) {
+            for (TimingWheel.Entry<INetworkElement> entry : updateSchedule.skip(currentTick - this.lastUpdateTick - 1)) {
+                deferredUpdates.add(new DeferredUpdate(entry, 0));
+            }
+            this.lastUpdateTick = currentTick - 1;
+        }
+    }
+
+    /**
+     * @param startTime The time at which the finishing update phase was started.
+     * @return The time until which network elements can be updated in this tick,
+     *         based on the per-network and the global update budget.
+     */
+    protected long getUpdateDeadline(long startTime) {
+        long deadline = TickHandler.getInstance().getNetworkUpdateDeadline();
+        if (GeneralConfig.networkUpdateBudget > 0) {
+            deadline = Math.min(deadline, startTime - this.updateDuration + GeneralConfig.networkUpdateBudget * 1000L);
+        }
+        return deadline;
+    }
+
+    /**
+     * Update the element of the given entry, or defer it to the next tick if the update budget has been spent.
+     * @param entry The scheduled entry.
+     * @param tick The current tick.
+     * @param age The number of times the entry has already been deferred.
+     * @param deadline The time until which elements can be updated.
+     * @param isBeingDiagnozed If the update duration should be recorded.
+     * @param trackAllocations If the bytes allocated by the update should be recorded.
+     */
+    protected void updateElement(TimingWheel.Entry<INetworkElement> entry, long tick, int age, long deadline,
+                                 boolean isBeingDiagnozed, boolean trackAllocations) {
+        if (entry.isCancelled()) {
+            // The element was removed by an element that was updated before it in this tick.
+            return;
+        }
+        if (deadline != Long.MAX_VALUE && age < GeneralConfig.networkUpdateMaxDeferrals && System.nanoTime() >= deadline) {
+            deferredUpdates.add(new DeferredUpdate(entry, age + 1));
+            return;
+        }
+        INetworkElement element = entry.getElement();
+        long nextTick = tick + 1;
+        try {
+            if (isValid(element)) {
+                boolean sample = NetworkMetrics.getInstance().shouldSample();
+                long startTime = 0;
+                if (isBeingDiagnozed || sample) {
+                    startTime = System.nanoTime();
+                }
+                elementUpdates.adjustOrPutValue(element, 1, 1);
+                if (canUpdate(element)) {
+                    nextTick = tick + Math.max(1, element.getUpdateInterval());
+                    IProfilingEvent profilingEvent = ProfilingEvents.get().beginElementUpdate(this, element);
+                    if (trackAllocations) {
+                        long startBytes = AllocationCounter.getAllocatedBytes();
+                        element.update(this);
+                        NetworkMetrics.getInstance().recordElementAllocation(element, AllocationCounter.getAllocatedBytes() - startBytes);
+                    } else {
+                        element.update(this);
+                    }
+                    if (profilingEvent != null) {
+                        profilingEvent.commit();
+                    }
+                    postUpdate(element);
+                } else {
+                    onSkipUpdate(element);
+                }
+                if (isBeingDiagnozed || sample) {
+                    long duration = System.nanoTime() - startTime;
+                    if (isBeingDiagnozed) {
+                        lastSecondDurations.adjustOrPutValue(element, duration, duration);
+                    }
+                    if (sample) {
+                        elementSampledDurations.adjustOrPutValue(element, duration, duration);
+                        NetworkMetrics.getInstance().recordElement(element, duration);
                     }
-                } catch (PartStateException e) {
-                    IntegratedDynamics.clog(Level.WARN, "Attempted to tick a part that was not properly unloaded. " +
-                            "Report this to the Integrated Dynamics issue tracker with details on what you did " +
-                            "leading up to this stacktrace. The part was forcefully unloaded");
-                    e.printStackTrace();
-                    element.invalidate(this);
                 }
             }
+        } catch (PartStateException e) {
+            IntegratedDynamics.clog(Level.WARN, "Attempted to tick a part that was not properly unloaded. " +
+                    "Report this to the Integrated Dynamics issue tracker with details on what you did " +
+                    "leading up to this stacktrace. The part was forcefully unloaded");
+            e.printStackTrace();
+            element.invalidate(this);
+        }
+        if (!entry.isCancelled()) {
+            updateSchedule.reschedule(entry, nextTick);
         }
     }
 
@@ -448,12 +962,20 @@ public class Network implements INetwork {
             }
         }
         if(baseCluster.remove(SidedPathElement.of(pathElement, null))) {
+            markDirty();
             DimPos position = pathElement.getPosition();
-            INetworkElementProvider networkElementProvider = (INetworkElementProvider) TileHelpers.getCapability(
-                    position, side, NetworkElementProviderConfig.CAPABILITY);
-            if (networkElementProvider != null) {
-                Collection<INetworkElement> networkElements = networkElementProvider.
-                        createNetworkElements(position.getWorld(), position.getBlockPos());
+            Collection<INetworkElement> networkElements = getElementsAt(position);
+            if (networkElements != null) {
+                // Copy, because the elements are removed from the index below
+                networkElements = Lists.newArrayList(networkElements);
+            } else {
+                INetworkElementProvider networkElementProvider = (INetworkElementProvider) TileHelpers.getCapability(
+                        position, side, NetworkElementProviderConfig.CAPABILITY);
+                if (networkElementProvider != null) {
+                    networkElements = networkElementProvider.createNetworkElements(position.getWorld(), position.getBlockPos());
+                }
+            }
+            if (networkElements != null) {
                 for (INetworkElement networkElement : networkElements) {
                     if(!removeNetworkElementPre(networkElement)) {
                         return false;
@@ -505,6 +1027,19 @@ public class Network implements INetwork {
 
     protected void onNetworkChanged() {
         this.changed = true;
+        markDirty();
+        wakeUp();
+    }
+
+    @Override
+    public void markDirty() {
+        this.modifications.incrementAndGet();
+    }
+
+    @Override
+    public boolean isDirty() {
+        SavedCluster savedCluster = this.savedCluster;
+        return this.toRead != null || savedCluster == null || savedCluster.version != this.modifications.get();
     }
 
     @Override
@@ -519,8 +1054,51 @@ public class Network implements INetwork {
 
     @Override
     public long getLastSecondDuration(INetworkElement networkElement) {
-        Long duration = lastSecondDurations.get(networkElement);
-        return duration == null ? 0 : duration;
+        return lastSecondDurations.get(getScheduledElement(networkElement));
+    }
+
+    @Override
+    public long getElementUpdates(INetworkElement networkElement) {
+        return elementUpdates.get(getScheduledElement(networkElement));
+    }
+
+    @Override
+    public long getElementSampledDuration(INetworkElement networkElement) {
+        return elementSampledDurations.get(getScheduledElement(networkElement));
+    }
+
+    @Override
+    public long getLastUpdateDuration() {
+        return lastUpdateTick == TickHandler.getInstance().getNetworkTick() ? lastUpdateDuration : 0;
+    }
+
+    @Override
+    public long getLastUpdateAllocatedBytes() {
+        return lastUpdateTick == TickHandler.getInstance().getNetworkTick() ? lastUpdateAllocatedBytes : 0;
+    }
+
+    @Override
+    public boolean isDormant() {
+        long dormantUntilTick = this.dormantUntilTick;
+        if (dormantUntilTick < 0 || TickHandler.getInstance().getNetworkTick() >= dormantUntilTick) {
+            return false;
+        }
+        for (IFullNetworkListener fullNetworkListener : this.fullNetworkListeners) {
+            if (!fullNetworkListener.isDormant()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void wakeUp() {
+        this.dormantUntilTick = -1;
+    }
+
+    @Override
+    public int getDeferredUpdatesCount() {
+        return deferredUpdates.size();
     }
 
     @Override
@@ -558,6 +1136,67 @@ public class Network implements INetwork {
         invalidatedElements.remove(element);
     }
 
+    @Nullable
+    @Override
+    public Collection<INetworkElement> getElementsAt(DimPos pos) {
+        if (unpositionedElements > 0) {
+            return null;
+        }
+        TLongObjectMap<List<INetworkElement>> dimensionElements = positionedElements.get(pos.getDimensionId());
+        List<INetworkElement> positionElements = dimensionElements != null ? dimensionElements.get(pos.getBlockPos().toLong()) : null;
+        return positionElements != null ? Collections.unmodifiableList(positionElements) : Collections.emptyList();
+    }
+
+    protected void addElementPosition(INetworkElement element) {
+        if (element instanceof IPositionedNetworkElement) {
+            DimPos pos = ((IPositionedNetworkElement) element).getPosition();
+            TLongObjectMap<List<INetworkElement>> dimensionElements = positionedElements.get(pos.getDimensionId());
+            if (dimensionElements == null) {
+                dimensionElements = new TLongObjectHashMap<>();
+                positionedElements.put(pos.getDimensionId(), dimensionElements);
+            }
+            long key = pos.getBlockPos().toLong();
+            List<INetworkElement> positionElements = dimensionElements.get(key);
+            if (positionElements == null) {
+                positionElements = Lists.newArrayListWithCapacity(1);
+                dimensionElements.put(key, positionElements);
+            }
+            positionElements.add(element);
+        } else {
+            unpositionedElements++;
+        }
+    }
+
+    protected void removeElementPosition(INetworkElement element) {
+        if (element instanceof IPositionedNetworkElement) {
+            DimPos pos = ((IPositionedNetworkElement) element).getPosition();
+            TLongObjectMap<List<INetworkElement>> dimensionElements = positionedElements.get(pos.getDimensionId());
+            if (dimensionElements != null) {
+                long key = pos.getBlockPos().toLong();
+                List<INetworkElement> positionElements = dimensionElements.get(key);
+                if (positionElements != null) {
+                    // Match with compareTo, as the given instance may differ from the indexed one,
+                    // for example when it was created by a network element provider.
+                    Iterator<INetworkElement> it = positionElements.iterator();
+                    while (it.hasNext()) {
+                        if (it.next().compareTo(element) == 0) {
+                            it.remove();
+                            break;
+                        }
+                    }
+                    if (positionElements.isEmpty()) {
+                        dimensionElements.remove(key);
+                        if (dimensionElements.isEmpty()) {
+                            positionedElements.remove(pos.getDimensionId());
+                        }
+                    }
+                }
+            }
+        } else {
+            unpositionedElements--;
+        }
+    }
+
     @Override
     public boolean containsSidedPathElement(ISidedPathElement pathElement) {
         return baseCluster.contains(pathElement);
@@ -578,4 +1217,124 @@ public class Network implements INetwork {
         }
         return true;
     }
+    /**
+     * A scheduled update that could not be executed within the update budget of its tick.
+     */
+    protected static class DeferredUpdate {
+
+        private final TimingWheel.Entry<INetworkElement> entry;
+        private final int age;
+
+        public DeferredUpdate(TimingWheel.Entry<INetworkElement> entry, int age) {
+            this.entry = entry;
+            this.age = age;
+        }
+
+        public TimingWheel.Entry<INetworkElement> getEntry() {
+            return entry;
+        }
+
+        /**
+         * @return The number of ticks this update has been deferred.
+         */
+        public int getAge() {
+            return age;
+        }
+    }
+
+    /**
+     * The state of restoring a network from NBT, which can be spread over multiple ticks.
+     * First, the path elements are looked up in the world, after which their network elements are derived.
+     * Finally, all network elements are added and the network is initialized.
+     */
+    protected class Restoration {
+
+        private final NBTTagCompound tag;
+        private final TIntList dimensions = new TIntArrayList();
+        private final TLongList positions = new TLongArrayList();
+        private final List<EnumFacing> sides = Lists.newArrayList();
+        private final List<INetworkElement> networkElements = Lists.newArrayList();
+        private List<ISidedPathElement> pathElements = null;
+        private int resolved = 0;
+        private int derived = 0;
+
+        public Restoration(NBTTagCompound tag) {
+            this.tag = tag;
+            Cluster.readElements(tag.getCompoundTag("baseCluster"), (dimensionId, pos, side) -> {
+                dimensions.add(dimensionId);
+                positions.add(pos);
+                sides.add(side);
+            });
+        }
+
+        /**
+         * Continue restoring until the deadline has passed, at least one step is always done.
+         * @param deadline The {@link System#nanoTime()} until which restoration can run.
+         * @return If the restoration is done.
+         */
+        public boolean run(long deadline) {
+            while (resolved < positions.size()) {
+                ISidedPathElement element = Cluster.resolveElement(dimensions.get(resolved), positions.get(resolved), sides.get(resolved));
+                if (element != null) {
+                    baseCluster.add(element);
+                }
+                resolved++;
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+            }
+            if (pathElements == null) {
+                crashed = tag.getBoolean("crashed");
+                if (killIfEmpty()) {
+                    initialize(true);
+                    return true;
+                }
+                pathElements = Lists.newArrayList(baseCluster);
+            }
+            while (derived < pathElements.size()) {
+                ISidedPathElement pathElement = pathElements.get(derived++);
+                if (isCarriedByOtherNetwork(pathElement)) {
+                    // Another network was formed over this path element in the meantime
+                    baseCluster.remove(pathElement);
+                } else {
+                    deriveNetworkElements(pathElement, networkElements);
+                }
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+            }
+            if (capabilityDispatcher != null && tag.hasKey("ForgeCaps")) {
+                capabilityDispatcher.deserializeNBT(tag.getCompoundTag("ForgeCaps"));
+            }
+            addNetworkElements(networkElements, true);
+            onNetworkChanged();
+            initialize(true);
+            return true;
+        }
+
+        /**
+         * @return The fraction of this restoration that is done, between 0 and 1.
+         */
+        public double getProgress() {
+            int total = positions.size() * 2;
+            return total == 0 ? 1 : (double) (resolved + derived) / total;
+        }
+
+    }
+
+    /**
+     * A serialized cluster, together with the modification count of the network at the time it was serialized.
+     */
+    protected static class SavedCluster {
+
+        private final NBTTagCompound tag;
+        private final long version;
+
+        public SavedCluster(NBTTagCompound tag, long version) {
+            this.tag = tag;
+            this.version = version;
+        }
+
+    }
+
 }
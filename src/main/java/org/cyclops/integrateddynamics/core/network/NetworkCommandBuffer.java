@@ -0,0 +1,67 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * Buffers commands that modify the world while a network is being updated on a worker thread,
+ * so that they can be applied afterwards on the main server thread.
+ * Commands are applied in the order they were added.
+ * @author rubensworks
+ */
+public class NetworkCommandBuffer {
+
+    private static final ThreadLocal<NetworkCommandBuffer> ACTIVE_BUFFER = new ThreadLocal<>();
+
+    private final List<Runnable> commands = Lists.newArrayList();
+
+    /**
+     * Run the given command.
+     * If the current thread is updating a network concurrently, the command is deferred to that network's buffer,
+     * otherwise it is run immediately.
+     * @param command A command that may modify the world.
+     */
+    public static void run(Runnable command) {
+        NetworkCommandBuffer buffer = ACTIVE_BUFFER.get();
+        if (buffer != null) {
+            buffer.commands.add(command);
+        } else {
+            command.run();
+        }
+    }
+
+    /**
+     * Buffer all commands that are passed to {@link #run(Runnable)} on the current thread into this buffer,
+     * until {@link #deactivate()} is called.
+     */
+    public void activate() {
+        ACTIVE_BUFFER.set(this);
+    }
+
+    /**
+     * Stop buffering commands on the current thread.
+     */
+    public void deactivate() {
+        ACTIVE_BUFFER.remove();
+    }
+
+    /**
+     * @return The number of commands that are waiting to be applied.
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * Run and remove all buffered commands.
+     * This must be called on the main server thread.
+     */
+    public void apply() {
+        for (int i = 0; i < commands.size(); i++) {
+            commands.get(i).run();
+        }
+        commands.clear();
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Sets;
+import org.apache.logging.log4j.Level;
+import org.cyclops.integrateddynamics.IntegratedDynamics;
+
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Restores networks that were loaded from NBT incrementally over multiple ticks,
+ * so that large worlds do not stall the first server tick.
+ * @author rubensworks
+ */
+public final class NetworkRestorer {
+
+    private static NetworkRestorer INSTANCE;
+
+    private final Set<Network> pending = Sets.newLinkedHashSet();
+    private int restored = 0;
+    private int total = 0;
+    private int lastReportedPercentage = 0;
+    private long startTime = 0;
+    private int ticks = 0;
+
+    private NetworkRestorer() {
+
+    }
+
+    public static NetworkRestorer getInstance() {
+        if(INSTANCE == null) {
+            INSTANCE = new NetworkRestorer();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Schedule a network for restoration.
+     * @param network A network that was loaded from NBT but is not restored yet.
+     */
+    public synchronized void enqueue(Network network) {
+        if (pending.add(network)) {
+            if (total == restored) {
+                restored = 0;
+                total = 0;
+                lastReportedPercentage = 0;
+                startTime = System.nanoTime();
+                ticks = 0;
+                IntegratedDynamics.clog(Level.INFO, "Started restoring networks");
+            }
+            total++;
+        }
+    }
+
+    /**
+     * Restore pending networks until the given deadline has passed.
+     * Networks are restored in the order they were scheduled in.
+     * @param deadline The {@link System#nanoTime()} until which restoration can run.
+     */
+    public synchronized void restore(long deadline) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        ticks++;
+        Iterator<Network> it = pending.iterator();
+        while (it.hasNext() && System.nanoTime() < deadline) {
+            Network network = it.next();
+            if (network.isKilled() || network.restore(deadline)) {
+                it.remove();
+                restored++;
+            }
+        }
+        int percentage = (int) (getProgress() * 100);
+        if (pending.isEmpty()) {
+            IntegratedDynamics.clog(Level.INFO, String.format("Restored %s networks in %s ms over %s ticks",
+                    restored, (System.nanoTime() - startTime) / 1000000, ticks));
+        } else if (percentage / 10 > lastReportedPercentage / 10) {
+            lastReportedPercentage = percentage;
+            IntegratedDynamics.clog(Level.INFO, String.format("Restoring networks: %s%% (%s/%s)",
+                    percentage, restored, total));
+        }
+    }
+
+    /**
+     * Drop all pending networks, for when the world is unloaded.
+     */
+    public synchronized void reset() {
+        pending.clear();
+        restored = 0;
+        total = 0;
+    }
+
+    /**
+     * @return The number of networks that still need to be restored.
+     */
+    public synchronized int getPendingNetworks() {
+        return pending.size();
+    }
+
+    /**
+     * @return The number of networks that have been restored in the current restoration round.
+     */
+    public synchronized int getRestoredNetworks() {
+        return restored;
+    }
+
+    /**
+     * @return The number of networks in the current restoration round.
+     */
+    public synchronized int getTotalNetworks() {
+        return total;
+    }
+
+    /**
+     * @return The fraction of the current restoration round that is done, between 0 and 1.
+     */
+    public synchronized double getProgress() {
+        if (total == 0) {
+            return 1;
+        }
+        double progress = restored;
+        for (Network network : pending) {
+            progress += network.getRestorationProgress();
+        }
+        return progress / total;
+    }
+
+}
@@ -221,6 +221,11 @@ public class PartNetwork extends FullNetworkListenerAdapter implements IPartNetw
         }
     }
 
+    @Override
+    public boolean isDormant() {
+        return !partsChanged;
+    }
+
     @Override
     public boolean removePathElement(IPathElement pathElement, EnumFacing side) {
         notifyPartsChanged();
@@ -1,5 +1,7 @@
 package org.cyclops.integrateddynamics.core.network;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Sets;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
@@ -31,6 +33,8 @@ public abstract class PositionedAddonsNetwork implements IPositionedAddonsNetwor
     private final Set<PrioritizedPartPos> allPositions = Sets.newTreeSet();
     private final TIntObjectMap<Set<PrioritizedPartPos>> positions = new TIntObjectHashMap<>();
     private final Set<PartPos> disabledPositions = Sets.newHashSet();
+    private final TIntObjectMap<Collection<PrioritizedPartPos>> prioritizedPositionViews = new TIntObjectHashMap<>();
+    private final TIntObjectMap<Collection<PartPos>> positionViews = new TIntObjectHashMap<>();
 
     private IPartPosIteratorHandler partPosIteratorHandler = null;
 
@@ -44,26 +48,60 @@ public abstract class PositionedAddonsNetwork implements IPositionedAddonsNetwor
         return !positions.isEmpty();
     }
 
+    /**
+     * Get the positions of the given channel, merged with the wildcard channel.
+     * These views are immutable, and are only rebuilt after positions are added or removed.
+     * @param channel A channel.
+     * @return The prioritized positions.
+     */
     @Override
-    public Collection<PrioritizedPartPos> getPrioritizedPositions(int channel) {
+    public synchronized Collection<PrioritizedPartPos> getPrioritizedPositions(int channel) {
+        Collection<PrioritizedPartPos> view = this.prioritizedPositionViews.get(channel);
+        if (view == null) {
+            view = createPrioritizedPositionsView(channel);
+            this.prioritizedPositionViews.put(channel, view);
+        }
+        return view;
+    }
+
+    @Override
+    public synchronized Collection<PartPos> getPositions(int channel) {
+        Collection<PartPos> view = this.positionViews.get(channel);
+        if (view == null) {
+            ImmutableList.Builder<PartPos> builder = ImmutableList.builder();
+            for (PrioritizedPartPos position : getPrioritizedPositions(channel)) {
+                builder.add(position.getPartPos());
+            }
+            view = builder.build();
+            this.positionViews.put(channel, view);
+        }
+        return view;
+    }
+
+    protected Collection<PrioritizedPartPos> createPrioritizedPositionsView(int channel) {
         if (channel == WILDCARD_CHANNEL) {
-            return getPrioritizedPositions();
+            return ImmutableSortedSet.copyOf(getPrioritizedPositions());
         }
         Set<PrioritizedPartPos> positions = this.positions.get(channel);
         Set<PrioritizedPartPos> wildcardPositions = this.positions.get(WILDCARD_CHANNEL);
         if (positions == null) {
             if (wildcardPositions != null) {
-                return wildcardPositions;
+                return ImmutableSortedSet.copyOf(wildcardPositions);
             }
             positions = Collections.emptySet();
         }
         if (wildcardPositions == null) {
-            return positions;
+            return ImmutableSortedSet.copyOf(positions);
         }
         TreeSet<PrioritizedPartPos> merged = Sets.newTreeSet();
         merged.addAll(positions);
         merged.addAll(wildcardPositions);
-        return merged;
+        return ImmutableSortedSet.copyOfSorted(merged);
+    }
+
+    protected synchronized void invalidatePositionViews() {
+        this.prioritizedPositionViews.clear();
+        this.positionViews.clear();
     }
 
     @Override
@@ -94,14 +132,18 @@ public abstract class PositionedAddonsNetwork implements IPositionedAddonsNetwor
         invalidateIterators();
 
         PrioritizedPartPos prioritizedPosition = PrioritizedPartPos.of(pos, priority);
-        if (allPositions.add(prioritizedPosition)) {
-            Set<PrioritizedPartPos> positions = this.positions.get(channel);
-            if (positions == null) {
-                positions = Sets.newTreeSet();
-                this.positions.put(channel, positions);
+        // The views are invalidated under the same lock as they are built, so they never miss this change
+        synchronized (this) {
+            if (allPositions.add(prioritizedPosition)) {
+                Set<PrioritizedPartPos> positions = this.positions.get(channel);
+                if (positions == null) {
+                    positions = Sets.newTreeSet();
+                    this.positions.put(channel, positions);
+                }
+                positions.add(prioritizedPosition);
+                invalidatePositionViews();
+                return true;
             }
-            positions.add(prioritizedPosition);
-            return true;
         }
         return false;
     }
@@ -112,26 +154,34 @@ public abstract class PositionedAddonsNetwork implements IPositionedAddonsNetwor
 
         Wrapper<Integer> removedChannel = new Wrapper<>(-2);
         Wrapper<PrioritizedPartPos> removedPos = new Wrapper<>(null);
-        this.positions.forEachEntry((channel, positions) -> {
-            Iterator<PrioritizedPartPos> it = positions.iterator();
-            while (it.hasNext()) {
-                PrioritizedPartPos prioritizedPartPos = it.next();
-                if (prioritizedPartPos.getPartPos().equals(pos)) {
-                    it.remove();
-                    allPositions.remove(prioritizedPartPos);
-                    removedPos.set(prioritizedPartPos);
-                    removedChannel.set(channel);
-                    return false;
+        synchronized (this) {
+            this.positions.forEachEntry((channel, positions) -> {
+                Iterator<PrioritizedPartPos> it = positions.iterator();
+                while (it.hasNext()) {
+                    PrioritizedPartPos prioritizedPartPos = it.next();
+                    if (prioritizedPartPos.getPartPos().equals(pos)) {
+                        it.remove();
+                        allPositions.remove(prioritizedPartPos);
+                        removedPos.set(prioritizedPartPos);
+                        removedChannel.set(channel);
+                        return false;
+                    }
+                }
+                return true;
+            });
+            int channel = removedChannel.get();
+            if (channel != -2) {
+                if (positions.get(channel).isEmpty()) {
+                    this.positions.remove(channel);
                 }
+                invalidatePositionViews();
             }
-            return true;
-        });
+        }
+
+        // Listeners are called outside of the lock, as they may acquire other locks
         int channel = removedChannel.get();
         if (channel != -2) {
             this.onPositionRemoved(channel, removedPos.get());
-            if (positions.get(channel).isEmpty()) {
-                this.positions.remove(channel);
-            }
         }
     }
 
@@ -18,6 +18,8 @@ import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
 import org.cyclops.integrateddynamics.api.path.IPathElement;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -34,6 +36,7 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
 
     private final IngredientObserver<T, M> ingredientObserver;
     private final TIntObjectMap<IngredientPositionsIndex<T, M>> indexes;
+    private final TIntObjectMap<IngredientChannelAdapter<T, M>> channels;
 
     private boolean observe;
     private Map<PartPos, Long> lastSecondDurations = Maps.newHashMap();
@@ -44,6 +47,7 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
         this.ingredientObserver = new IngredientObserver<>(this);
         this.ingredientObserver.addChangeObserver(this);
         this.indexes = new TIntObjectHashMap<>();
+        this.channels = new TIntObjectHashMap<>();
 
         this.observe = false;
     }
@@ -79,6 +83,9 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
         IngredientPositionsIndex<T, M> index = getIndexSafe(channel);
         if (event.getChangeType() == IIngredientComponentStorageObservable.Change.DELETION) {
             index.removeAll(instances);
+            for (T instance : instances) {
+                index.removePositionQuantity(instance, pos);
+            }
             if (event.isCompleteChange()) {
                 for (T instance : instances) {
                     index.removePosition(instance, pos);
@@ -88,6 +95,7 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
             // Cleanup empty collections
             if (index.isEmpty()) {
                 this.indexes.remove(channel);
+                this.channels.remove(channel);
             }
         } else if (event.getChangeType() == IIngredientComponentStorageObservable.Change.ADDITION) {
             index.addAll(instances);
@@ -102,6 +110,7 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
         if (index == null) {
             index = new IngredientPositionsIndex<>(getComponent());
             this.indexes.put(channel, index);
+            this.channels.remove(channel);
         }
         return index;
     }
@@ -114,13 +123,38 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
 
     @Override
     public IIngredientComponentStorage<T, M> getChannel(int channel) {
-        IIngredientPositionsIndex<T, M> index = getInstanceLocationsIndex(channel);
-        if (index == null) {
-            // This can occur when the index is empty,
-            // which can be caused by all attached storages being empty or no storages being available.
-            index = new IngredientPositionsIndexEmpty<>(getComponent());
+        return getChannelAdapter(channel);
+    }
+
+    /**
+     * Get the channel for the given id.
+     * Channels are cached until the index of the channel is created or removed.
+     * @param channel A channel id.
+     * @return The channel.
+     */
+    protected IngredientChannelAdapter<T, M> getChannelAdapter(int channel) {
+        IngredientChannelAdapter<T, M> channelAdapter = this.channels.get(channel);
+        if (channelAdapter == null) {
+            IIngredientPositionsIndex<T, M> index = getInstanceLocationsIndex(channel);
+            if (index == null) {
+                // This can occur when the index is empty,
+                // which can be caused by all attached storages being empty or no storages being available.
+                index = new IngredientPositionsIndexEmpty<>(getComponent());
+            }
+            channelAdapter = new IngredientChannelIndexed<>(this, channel, index);
+            this.channels.put(channel, channelAdapter);
         }
-        return new IngredientChannelIndexed<>(this, channel, index);
+        return channelAdapter;
+    }
+
+    @Override
+    public TransferResult<T> insertBatch(int channel, List<TransferOperation<T, M>> operations) {
+        return getChannelAdapter(channel).insertBatch(operations);
+    }
+
+    @Override
+    public TransferResult<T> extractBatch(int channel, List<TransferOperation<T, M>> operations) {
+        return getChannelAdapter(channel).extractBatch(operations);
     }
 
     @Override
@@ -159,6 +193,11 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
         return true;
     }
 
+    @Override
+    public Collection<INetworkElement> addNetworkElements(Collection<INetworkElement> elements, boolean networkPreinit) {
+        return elements;
+    }
+
     @Override
     public boolean removeNetworkElementPre(INetworkElement element) {
         return true;
@@ -178,9 +217,16 @@ public abstract class PositionedAddonsNetworkIngredients<T, M> extends Positione
         if (this.shouldObserve()) {
             this.ingredientObserver.observe();
             this.observe = false;
+        } else if (this.ingredientObserver.hasPendingBatches()) {
+            this.ingredientObserver.applyCompletedBatches();
         }
     }
 
+    @Override
+    public boolean isDormant() {
+        return !this.shouldObserve() && !this.ingredientObserver.hasPendingBatches();
+    }
+
     @Override
     public boolean removePathElement(IPathElement pathElement, EnumFacing side) {
         return true;
@@ -0,0 +1,302 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel that schedules elements at absolute ticks.
+ *
+ * Scheduling, rescheduling and cancelling are constant-time operations.
+ * Each call to {@link #advance()} only touches the elements that are due in that tick,
+ * and elements that are scheduled further in the future are cascaded to lower levels
+ * once every 64, 4096 and 262144 ticks.
+ *
+ * @param <T> The element type, elements that are due in the same tick are returned in their natural order.
+ * @author rubensworks
+ */
+public class TimingWheel<T extends Comparable<? super T>> {
+
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << LEVEL_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+
+    private final List<Entry<T>>[][] wheels;
+    private List<Entry<T>> overflow = Lists.newArrayList();
+    private long tick;
+    private int size = 0;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tick) {
+        this.tick = tick;
+        this.wheels = new List[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                this.wheels[level][slot] = Lists.newArrayList();
+            }
+        }
+    }
+
+    /**
+     * @return The tick that will be processed by the next call to {@link #advance()}.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return The number of scheduled entries that have not been cancelled.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedule a new entry.
+     * @param element The element.
+     * @param dueTick The absolute tick to schedule at, ticks in the past are moved to the current tick.
+     * @return The scheduled entry, which can be rescheduled or cancelled later.
+     */
+    public Entry<T> schedule(T element, long dueTick) {
+        Entry<T> entry = new Entry<>(element);
+        reschedule(entry, dueTick);
+        return entry;
+    }
+
+    /**
+     * Schedule an entry that was returned by {@link #advance()} again.
+     * @param entry An entry that is not scheduled at the moment.
+     * @param dueTick The absolute tick to schedule at, ticks in the past are moved to the current tick.
+     */
+    public void reschedule(Entry<T> entry, long dueTick) {
+        if (entry.isScheduled() || entry.isCancelled()) {
+            throw new IllegalStateException("Can not reschedule an entry that is scheduled or cancelled.");
+        }
+        entry.dueTick = Math.max(dueTick, tick);
+        entry.scheduled = true;
+        insert(entry);
+        size++;
+    }
+
+    /**
+     * Cancel the given entry, it will not be returned by {@link #advance()} anymore.
+     * @param entry The entry to cancel.
+     */
+    public void cancel(Entry<T> entry) {
+        if (!entry.isCancelled()) {
+            entry.cancelled = true;
+            if (entry.isScheduled()) {
+                entry.scheduled = false;
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Move to the next tick.
+     * The returned entries are not scheduled anymore, and should be rescheduled if they need to be called again.
+     * @return The entries that were due in the current tick, sorted by their element order.
+     */
+    public List<Entry<T>> advance() {
+        List<Entry<T>> slot = wheels[0][(int) (tick & SLOT_MASK)];
+        List<Entry<T>> due;
+        if (slot.isEmpty()) {
+            due = Collections.emptyList();
+        } else {
+            due = Lists.newArrayListWithCapacity(slot.size());
+            for (Entry<T> entry : slot) {
+                if (!entry.isCancelled()) {
+                    entry.scheduled = false;
+                    size--;
+                    due.add(entry);
+                }
+            }
+            slot.clear();
+            Collections.sort(due);
+        }
+        tick++;
+        // Cascade eagerly, so that the entries of the current tick are always in the lowest level.
+        cascade();
+        return due;
+    }
+
+    /**
+     * Move the given number of ticks forward, as if {@link #advance()} was called that many times.
+     * Larger skips do not advance tick by tick, but rebuild the wheel at the target tick,
+     * so that this is linear in the number of scheduled entries instead of the number of skipped ticks.
+     * @param ticks The number of ticks to skip.
+     * @return The entries that were due in the skipped ticks, in the order they were due.
+     */
+    public List<Entry<T>> skip(long ticks) {
+        if (ticks < SLOTS) {
+            List<Entry<T>> due = Collections.emptyList();
+            for (long i = 0; i < ticks; i++) {
+                List<Entry<T>> entries = advance();
+                if (!entries.isEmpty()) {
+                    if (due.isEmpty()) {
+                        due = Lists.newArrayList();
+                    }
+                    due.addAll(entries);
+                }
+            }
+            return due;
+        }
+
+        long target = tick + ticks;
+        if (getNextDueTick() >= target) {
+            moveTo(target, Collections.emptyList());
+            return Collections.emptyList();
+        }
+        List<Entry<T>> due = Lists.newArrayList();
+        moveTo(target, due);
+        due.sort(Comparator.<Entry<T>>comparingLong(Entry::getDueTick).thenComparing(Comparator.naturalOrder()));
+        return due;
+    }
+
+    /**
+     * Move straight to the given tick, and place all remaining entries again relative to that tick.
+     * @param target The new tick, not before the current tick.
+     * @param due The list to add the entries to that are due before the new tick.
+     */
+    protected void moveTo(long target, List<Entry<T>> due) {
+        // Cancelled entries are dropped while collecting
+        List<Entry<T>> entries = Lists.newArrayListWithCapacity(size);
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                collect(wheels[level][slot], entries);
+            }
+        }
+        collect(overflow, entries);
+        tick = target;
+        for (Entry<T> entry : entries) {
+            if (entry.getDueTick() < target) {
+                entry.scheduled = false;
+                size--;
+                due.add(entry);
+            } else {
+                insert(entry);
+            }
+        }
+    }
+
+    private void collect(List<Entry<T>> slot, List<Entry<T>> entries) {
+        for (Entry<T> entry : slot) {
+            if (!entry.isCancelled()) {
+                entries.add(entry);
+            }
+        }
+        slot.clear();
+    }
+
+    /**
+     * @return The earliest tick at which a scheduled entry is due, or {@link Long#MAX_VALUE} if nothing is scheduled.
+     */
+    public long getNextDueTick() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        // Levels cover consecutive time ranges, so the first slot with a scheduled entry contains the earliest one.
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = LEVEL_BITS * level;
+            for (int slot = (int) ((tick >> shift) & SLOT_MASK); slot < SLOTS; slot++) {
+                long dueTick = getNextDueTick(wheels[level][slot]);
+                if (dueTick != Long.MAX_VALUE) {
+                    return dueTick;
+                }
+            }
+        }
+        return getNextDueTick(overflow);
+    }
+
+    private long getNextDueTick(List<Entry<T>> entries) {
+        long dueTick = Long.MAX_VALUE;
+        for (Entry<T> entry : entries) {
+            if (!entry.isCancelled()) {
+                dueTick = Math.min(dueTick, entry.getDueTick());
+            }
+        }
+        return dueTick;
+    }
+
+    protected void insert(Entry<T> entry) {
+        long dueTick = entry.getDueTick();
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = LEVEL_BITS * (level + 1);
+            if ((dueTick >> shift) == (tick >> shift)) {
+                wheels[level][(int) ((dueTick >> (LEVEL_BITS * level)) & SLOT_MASK)].add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    protected void cascade() {
+        if ((tick & ((1L << (LEVEL_BITS * LEVELS)) - 1)) == 0 && !overflow.isEmpty()) {
+            List<Entry<T>> entries = overflow;
+            overflow = Lists.newArrayList();
+            reinsert(entries);
+        }
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (LEVEL_BITS * level)) - 1)) == 0) {
+                List<Entry<T>> slot = wheels[level][(int) ((tick >> (LEVEL_BITS * level)) & SLOT_MASK)];
+                if (!slot.isEmpty()) {
+                    List<Entry<T>> entries = Lists.newArrayList(slot);
+                    slot.clear();
+                    reinsert(entries);
+                }
+            }
+        }
+    }
+
+    private void reinsert(List<Entry<T>> entries) {
+        for (Entry<T> entry : entries) {
+            if (!entry.isCancelled()) {
+                insert(entry);
+            }
+        }
+    }
+
+    /**
+     * A scheduled element.
+     * @param <T> The element type.
+     */
+    public static class Entry<T extends Comparable<? super T>> implements Comparable<Entry<T>> {
+
+        private final T element;
+        private long dueTick;
+        private boolean scheduled = false;
+        private boolean cancelled = false;
+
+        protected Entry(T element) {
+            this.element = element;
+        }
+
+        public T getElement() {
+            return element;
+        }
+
+        /**
+         * @return The absolute tick this entry is or was last scheduled at.
+         */
+        public long getDueTick() {
+            return dueTick;
+        }
+
+        public boolean isScheduled() {
+            return scheduled;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public int compareTo(Entry<T> o) {
+            return getElement().compareTo(o.getElement());
+        }
+    }
+
+}
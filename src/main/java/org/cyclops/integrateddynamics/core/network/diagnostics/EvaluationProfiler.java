@@ -0,0 +1,270 @@
+package org.cyclops.integrateddynamics.core.network.diagnostics;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.cyclops.cyclopscore.helper.L10NHelpers;
+import org.cyclops.integrateddynamics.api.evaluate.variable.IVariable;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.aspect.IAspectVariable;
+import org.cyclops.integrateddynamics.core.evaluate.expression.LazyExpression;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records how often and how long variables are evaluated while network diagnostics are active,
+ * so that the expensive variables and operators within a part can be found.
+ *
+ * The durations of expressions include the durations of their inputs.
+ * Evaluations are recorded per thread, and are merged into the reported data once per second.
+ * @author rubensworks
+ */
+public class EvaluationProfiler {
+
+    private static final EvaluationProfiler INSTANCE = new EvaluationProfiler();
+
+    /**
+     * The maximum depth of the evaluation trees that are sent to players.
+     */
+    public static final int MAX_DEPTH = 32;
+
+    /**
+     * The number of resets after which the root variable of a part that is not evaluated anymore is removed.
+     */
+    public static final int ROOT_VARIABLE_TIMEOUT = 10;
+
+    private volatile boolean enabled = false;
+    private final List<Recorder> recorders = Lists.newCopyOnWriteArrayList();
+    private final ThreadLocal<Recorder> recorder = ThreadLocal.withInitial(this::createRecorder);
+    private Map<IVariable<?>, Stats> stats = new IdentityHashMap<>();
+    private final Map<PartPos, RootVariable> rootVariables = Maps.newHashMap();
+    private Map<PartPos, Set<IAspectVariable<?>>> aspectVariables = Maps.newHashMap();
+    private int resets = 0;
+
+    private EvaluationProfiler() {
+
+    }
+
+    public static EvaluationProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    protected Recorder createRecorder() {
+        Recorder threadRecorder = new Recorder();
+        recorders.add(threadRecorder);
+        return threadRecorder;
+    }
+
+    /**
+     * @return If evaluations should be recorded.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start or stop recording evaluations.
+     * All recorded data is removed when recording is stopped.
+     * @param enabled If evaluations should be recorded.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            stats.clear();
+            rootVariables.clear();
+            aspectVariables.clear();
+            for (Recorder threadRecorder : recorders) {
+                threadRecorder.clear();
+            }
+        }
+    }
+
+    /**
+     * Replace the reported evaluations by the evaluations that were recorded since the previous reset.
+     * The root variables of parts are kept, unless they were not evaluated for {@link #ROOT_VARIABLE_TIMEOUT} resets.
+     * This should be called once per second.
+     */
+    public synchronized void reset() {
+        resets++;
+        Map<IVariable<?>, Stats> newStats = new IdentityHashMap<>();
+        Map<PartPos, Set<IAspectVariable<?>>> newAspectVariables = Maps.newHashMap();
+        for (Recorder threadRecorder : recorders) {
+            threadRecorder.drainTo(newStats, rootVariables, newAspectVariables, resets);
+        }
+        stats = newStats;
+        aspectVariables = newAspectVariables;
+        rootVariables.values().removeIf(rootVariable -> resets - rootVariable.reset > ROOT_VARIABLE_TIMEOUT);
+    }
+
+    /**
+     * Indicate the variable that is evaluated by the part at the given position.
+     * @param pos The position of a part.
+     * @param variable The active variable of the part.
+     */
+    public void recordRootVariable(PartPos pos, IVariable<?> variable) {
+        if (enabled) {
+            recorder.get().recordRootVariable(pos, variable);
+        }
+    }
+
+    /**
+     * Record the evaluation of an expression.
+     * @param expression The expression.
+     * @param cacheHit If the cached value was returned.
+     * @param duration The duration of the evaluation in nanoseconds.
+     */
+    public void recordExpression(LazyExpression<?> expression, boolean cacheHit, long duration) {
+        if (enabled) {
+            recorder.get().recordStats(expression, cacheHit, duration);
+        }
+    }
+
+    /**
+     * Record the evaluation of an aspect variable.
+     * @param variable The aspect variable.
+     * @param cacheHit If the cached value was returned.
+     * @param duration The duration of the evaluation in nanoseconds.
+     */
+    public void recordAspect(IAspectVariable<?> variable, boolean cacheHit, long duration) {
+        if (enabled) {
+            recorder.get().recordAspect(variable, cacheHit, duration);
+        }
+    }
+
+    /**
+     * Create the evaluation trees of the part at the given position.
+     * This contains the tree of the active variable of the part,
+     * followed by the aspect variables of the part that were evaluated.
+     * @param pos The position of a part.
+     * @return The evaluation trees, can be empty.
+     */
+    public synchronized List<RawEvaluationData> createEvaluationData(PartPos pos) {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        List<RawEvaluationData> evaluations = Lists.newArrayList();
+        RootVariable root = rootVariables.get(pos);
+        IVariable<?> rootVariable = root == null ? null : root.variable;
+        if (rootVariable != null) {
+            evaluations.add(createEvaluationData(rootVariable, 0));
+        }
+        Set<IAspectVariable<?>> partAspectVariables = aspectVariables.get(pos);
+        if (partAspectVariables != null) {
+            for (IAspectVariable<?> aspectVariable : partAspectVariables) {
+                if (aspectVariable != rootVariable) {
+                    evaluations.add(createEvaluationData(aspectVariable, 0));
+                }
+            }
+        }
+        return evaluations;
+    }
+
+    protected RawEvaluationData createEvaluationData(IVariable<?> variable, int depth) {
+        String name;
+        List<RawEvaluationData> children = Collections.emptyList();
+        if (variable instanceof LazyExpression) {
+            LazyExpression<?> expression = (LazyExpression<?>) variable;
+            name = String.format("%s #%s", expression.getOperator().getLocalizedNameFull(), expression.getId());
+            if (depth < MAX_DEPTH) {
+                children = Lists.newArrayListWithCapacity(expression.getInput().length);
+                for (IVariable<?> input : expression.getInput()) {
+                    children.add(createEvaluationData(input, depth + 1));
+                }
+            }
+        } else if (variable instanceof IAspectVariable) {
+            name = L10NHelpers.localize(((IAspectVariable<?>) variable).getAspect().getUnlocalizedName());
+        } else {
+            name = L10NHelpers.localize(variable.getType().getUnlocalizedName());
+        }
+        Stats variableStats = stats.get(variable);
+        if (variableStats == null) {
+            return new RawEvaluationData(name, 0, 0, 0, children);
+        }
+        return new RawEvaluationData(name, variableStats.invocations, variableStats.cacheHits,
+                variableStats.duration, children);
+    }
+
+    protected static class Stats {
+
+        private long invocations = 0;
+        private long cacheHits = 0;
+        private long duration = 0;
+
+        public void record(boolean cacheHit, long duration) {
+            this.invocations++;
+            if (cacheHit) {
+                this.cacheHits++;
+            }
+            this.duration += duration;
+        }
+
+        public void add(Stats stats) {
+            this.invocations += stats.invocations;
+            this.cacheHits += stats.cacheHits;
+            this.duration += stats.duration;
+        }
+
+    }
+
+    protected static class RootVariable {
+
+        private final IVariable<?> variable;
+        private final int reset;
+
+        public RootVariable(IVariable<?> variable, int reset) {
+            this.variable = variable;
+            this.reset = reset;
+        }
+
+    }
+
+    /**
+     * The evaluations that were recorded by a single thread since the previous reset.
+     * Its lock is only contended while the recorder is being drained, once per second.
+     */
+    protected static class Recorder {
+
+        private final Map<IVariable<?>, Stats> stats = new IdentityHashMap<>();
+        private final Map<PartPos, IVariable<?>> rootVariables = Maps.newHashMap();
+        private final Map<PartPos, Set<IAspectVariable<?>>> aspectVariables = Maps.newHashMap();
+
+        public synchronized void recordRootVariable(PartPos pos, IVariable<?> variable) {
+            rootVariables.put(pos, variable);
+        }
+
+        public synchronized void recordStats(IVariable<?> variable, boolean cacheHit, long duration) {
+            stats.computeIfAbsent(variable, k -> new Stats()).record(cacheHit, duration);
+        }
+
+        public synchronized void recordAspect(IAspectVariable<?> variable, boolean cacheHit, long duration) {
+            recordStats(variable, cacheHit, duration);
+            aspectVariables.computeIfAbsent(variable.getTarget().getCenter(), k -> Sets.newIdentityHashSet()).add(variable);
+        }
+
+        public synchronized void drainTo(Map<IVariable<?>, Stats> stats, Map<PartPos, RootVariable> rootVariables,
+                                         Map<PartPos, Set<IAspectVariable<?>>> aspectVariables, int reset) {
+            for (Map.Entry<IVariable<?>, Stats> entry : this.stats.entrySet()) {
+                stats.computeIfAbsent(entry.getKey(), k -> new Stats()).add(entry.getValue());
+            }
+            for (Map.Entry<PartPos, IVariable<?>> entry : this.rootVariables.entrySet()) {
+                rootVariables.put(entry.getKey(), new RootVariable(entry.getValue(), reset));
+            }
+            for (Map.Entry<PartPos, Set<IAspectVariable<?>>> entry : this.aspectVariables.entrySet()) {
+                aspectVariables.computeIfAbsent(entry.getKey(), k -> Sets.newIdentityHashSet()).addAll(entry.getValue());
+            }
+            clear();
+        }
+
+        public synchronized void clear() {
+            stats.clear();
+            rootVariables.clear();
+            aspectVariables.clear();
+        }
+
+    }
+
+}
@@ -2,6 +2,7 @@ package org.cyclops.integrateddynamics.core.network.diagnostics;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import lombok.Data;
@@ -17,9 +18,13 @@ import org.cyclops.integrateddynamics.api.part.PartPos;
 import org.cyclops.integrateddynamics.network.packet.NetworkDiagnosticsSubscribePacket;
 import org.cyclops.integrateddynamics.network.packet.PlayerTeleportPacket;
 
+import javax.annotation.Nullable;
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -27,7 +32,10 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
 
@@ -50,9 +58,28 @@ public class GuiNetworkDiagnostics extends JFrame {
     private static Vector<Vector<Object>> dataObservers = new Vector<>();
     private static DefaultTableModel modelObservers;
     private static Multimap<Integer, ObservableObserverData> networkDataObservers = ArrayListMultimap.create();
+    private static Map<Integer, RawNetworkData> networkData = Maps.newHashMap();
+
+    private static JTree treeEvaluations = null;
+
+    /**
+     * @param id A network id.
+     * @return The last received data of the given network, or null if there is none.
+     */
+    @Nullable
+    public static RawNetworkData getNetworkData(int id) {
+        synchronized (networkDataParts) {
+            return networkData.get(id);
+        }
+    }
 
     public static void setNetworkData(int id, RawNetworkData rawNetworkData) {
         synchronized (networkDataParts) {
+            if (rawNetworkData != null) {
+                networkData.put(id, rawNetworkData);
+            } else {
+                networkData.remove(id);
+            }
             Collection<ObservablePartData> previous = networkDataParts.removeAll(id);
 
             // The positions that were being rendered previously
@@ -68,10 +95,10 @@ public class GuiNetworkDiagnostics extends JFrame {
                 List<ObservablePartData> parts = Lists.newArrayList();
                 for (RawPartData rawPartData : rawNetworkData.getParts()) {
                     ObservablePartData partData = new ObservablePartData(
-                            rawNetworkData.getId(), rawNetworkData.getCables(),
+                            rawNetworkData.getId(), rawNetworkData.getCables(), rawNetworkData.getDeferredUpdates(),
                             rawPartData.getDimension(), rawPartData.getPos(),
                             rawPartData.getSide(), rawPartData.getName(),
-                            rawPartData.getLast20TicksDurationNs());
+                            rawPartData.getLast20TicksDurationNs(), rawPartData.getEvaluations());
                     parts.add(partData);
 
                     // Remove this position from the previously rendered list
@@ -102,8 +129,11 @@ public class GuiNetworkDiagnostics extends JFrame {
             }
 
             if (rawNetworkData != null) {
+                // Observers are not shown when no parts are present.
+                List<RawObserverData> rawObservers = rawNetworkData.getParts().isEmpty()
+                        ? Collections.emptyList() : rawNetworkData.getObservers();
                 List<ObservableObserverData> observers = Lists.newArrayList();
-                for (RawObserverData rawPartData : rawNetworkData.getObservers()) {
+                for (RawObserverData rawPartData : rawObservers) {
                     ObservableObserverData partData = new ObservableObserverData(
                             rawNetworkData.getId(),
                             rawPartData.getDimension(), rawPartData.getPos(),
@@ -133,8 +163,11 @@ public class GuiNetworkDiagnostics extends JFrame {
     }
 
     public static void clearNetworkData() {
-        networkDataParts.clear();
-        networkDataObservers.clear();
+        synchronized (networkDataParts) {
+            networkDataParts.clear();
+            networkDataObservers.clear();
+            networkData.clear();
+        }
     }
 
     public static void start() {
@@ -167,6 +200,7 @@ public class GuiNetworkDiagnostics extends JFrame {
                         columnNamesParts.clear();
                         columnNamesParts.addElement(L10NHelpers.localize("gui.integrateddynamics.diagnostics.table.network"));
                         columnNamesParts.addElement(L10NHelpers.localize("gui.integrateddynamics.diagnostics.table.cables"));
+                        columnNamesParts.addElement(L10NHelpers.localize("gui.integrateddynamics.diagnostics.table.deferred"));
                         columnNamesParts.addElement(L10NHelpers.localize("gui.integrateddynamics.diagnostics.table.part"));
                         columnNamesParts.addElement(L10NHelpers.localize("gui.integrateddynamics.diagnostics.table.ticktime"));
                         columnNamesParts.addElement(L10NHelpers.localize("gui.integrateddynamics.diagnostics.table.dimension"));
@@ -180,6 +214,7 @@ public class GuiNetworkDiagnostics extends JFrame {
                             Vector<Object> row = new Vector<>();
                             row.add(observablePartData.getNetworkId());
                             row.add(observablePartData.getNetworkCables());
+                            row.add(observablePartData.getNetworkDeferredUpdates());
                             row.add(observablePartData.getName());
                             row.add(String.format("%.6f", ((double) observablePartData.getLast20TicksDurationNs()) / MinecraftHelpers.SECOND_IN_TICKS / 1000000));
                             row.add(observablePartData.getDimension());
@@ -212,10 +247,10 @@ public class GuiNetworkDiagnostics extends JFrame {
                                 public Class<?> getColumnClass(int column) {
                                     // My eyes are bleeding as I write this...
                                     // I'm terribly sorry, I must be going to hell now.
-                                    if (column == 0 || column == 1 || column == 4) {
+                                    if (column == 0 || column == 1 || column == 2 || column == 5) {
                                         return Integer.class;
                                     }
-                                    if (column == 3) {
+                                    if (column == 4) {
                                         return Long.class;
                                     }
                                     return String.class;
@@ -324,16 +359,24 @@ public class GuiNetworkDiagnostics extends JFrame {
                                 }
                             });
 
+                            treeEvaluations = new JTree(new DefaultTreeModel(new DefaultMutableTreeNode()));
+                            treeEvaluations.setRootVisible(false);
+                            treeEvaluations.setShowsRootHandles(true);
+
                             // Pack GUI
-                            JPanel panelMain = new JPanel(new GridLayout(2, 1));
+                            JPanel panelMain = new JPanel(new GridLayout(3, 1));
                             JPanel panelParts = new JPanel(new BorderLayout());
                             JPanel panelObservers = new JPanel(new BorderLayout());
                             panelParts.add(BorderLayout.NORTH, new JLabel(L10NHelpers.localize("gui.integrateddynamics.diagnostics.parts")));
                             panelParts.add(BorderLayout.CENTER, new JScrollPane(tableParts));
                             panelObservers.add(BorderLayout.NORTH, new JLabel(L10NHelpers.localize("gui.integrateddynamics.diagnostics.observers")));
                             panelObservers.add(BorderLayout.CENTER, new JScrollPane(tableObservers));
+                            JPanel panelEvaluations = new JPanel(new BorderLayout());
+                            panelEvaluations.add(BorderLayout.NORTH, new JLabel(L10NHelpers.localize("gui.integrateddynamics.diagnostics.evaluations")));
+                            panelEvaluations.add(BorderLayout.CENTER, new JScrollPane(treeEvaluations));
                             panelMain.add(panelParts);
                             panelMain.add(panelObservers);
+                            panelMain.add(panelEvaluations);
                             add(panelMain);
                             pack();
                         } else {
@@ -342,6 +385,7 @@ public class GuiNetworkDiagnostics extends JFrame {
                             tableObservers.getRowSorter().allRowsChanged();
                             modelObservers.fireTableDataChanged();
                         }
+                        updateEvaluationsTree();
                         repaint();
                     }
                 }
@@ -351,6 +395,61 @@ public class GuiNetworkDiagnostics extends JFrame {
         }
     }
 
+    /**
+     * Recreate the tree of the evaluations within each part,
+     * while keeping the nodes expanded that were expanded before.
+     */
+    protected static void updateEvaluationsTree() {
+        Set<String> expandedKeys = Sets.newHashSet();
+        DefaultMutableTreeNode oldRoot = (DefaultMutableTreeNode) treeEvaluations.getModel().getRoot();
+        Enumeration<TreePath> expandedPaths = treeEvaluations.getExpandedDescendants(new TreePath(oldRoot));
+        if (expandedPaths != null) {
+            while (expandedPaths.hasMoreElements()) {
+                Object userObject = ((DefaultMutableTreeNode) expandedPaths.nextElement().getLastPathComponent()).getUserObject();
+                if (userObject instanceof EvaluationTreeNode) {
+                    expandedKeys.add(((EvaluationTreeNode) userObject).getKey());
+                }
+            }
+        }
+
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode();
+        for (ObservablePartData partData : networkDataParts.values()) {
+            if (!partData.getEvaluations().isEmpty()) {
+                BlockPos pos = partData.getPos();
+                String key = String.format("%s:%s:%s:%s", partData.getNetworkId(), partData.getDimension(), pos.toLong(), partData.getSide());
+                DefaultMutableTreeNode partNode = new DefaultMutableTreeNode(new EvaluationTreeNode(key, String.format("%s %s: %s (%s / %s / %s)",
+                        L10NHelpers.localize("gui.integrateddynamics.diagnostics.table.network"), partData.getNetworkId(),
+                        partData.getName(), pos.getX(), pos.getY(), pos.getZ())));
+                addEvaluationNodes(partNode, key, partData.getEvaluations());
+                root.add(partNode);
+            }
+        }
+        treeEvaluations.setModel(new DefaultTreeModel(root));
+
+        // Parents are visited before their children, so that those can be expanded as well.
+        Enumeration<?> nodes = root.breadthFirstEnumeration();
+        while (nodes.hasMoreElements()) {
+            DefaultMutableTreeNode node = (DefaultMutableTreeNode) nodes.nextElement();
+            Object userObject = node.getUserObject();
+            if (userObject instanceof EvaluationTreeNode && expandedKeys.contains(((EvaluationTreeNode) userObject).getKey())) {
+                treeEvaluations.expandPath(new TreePath(node.getPath()));
+            }
+        }
+    }
+
+    protected static void addEvaluationNodes(DefaultMutableTreeNode parent, String parentKey, List<RawEvaluationData> evaluations) {
+        for (int i = 0; i < evaluations.size(); i++) {
+            RawEvaluationData evaluation = evaluations.get(i);
+            String key = parentKey + "/" + i + ":" + evaluation.getName();
+            DefaultMutableTreeNode node = new DefaultMutableTreeNode(new EvaluationTreeNode(key, L10NHelpers.localize(
+                    "gui.integrateddynamics.diagnostics.evaluation", evaluation.getName(), evaluation.getInvocations(),
+                    String.format("%.0f", evaluation.getCacheHitRatio() * 100),
+                    String.format("%.6f", ((double) evaluation.getDurationNs()) / MinecraftHelpers.SECOND_IN_TICKS / 1000000))));
+            addEvaluationNodes(node, key, evaluation.getChildren());
+            parent.add(node);
+        }
+    }
+
     protected static ObservablePartData getPartDataFromRow(int row) {
         if (row < 0) {
             return null;
@@ -359,7 +458,7 @@ public class GuiNetworkDiagnostics extends JFrame {
         synchronized (networkDataParts) {
             data = networkDataParts.values().toArray();
         }
-        int internalId = (int) tableParts.getModel().getValueAt(tableParts.convertRowIndexToModel(row), 7);
+        int internalId = (int) tableParts.getModel().getValueAt(tableParts.convertRowIndexToModel(row), 8);
         if (internalId < data.length) {
             return (ObservablePartData) data[internalId];
         }
@@ -411,11 +510,13 @@ public class GuiNetworkDiagnostics extends JFrame {
     public static class ObservablePartData {
         private final int networkId;
         private final int networkCables;
+        private final int networkDeferredUpdates;
         private final int dimension;
         private final BlockPos pos;
         private final EnumFacing side;
         private final String name;
         private final long last20TicksDurationNs;
+        private final List<RawEvaluationData> evaluations;
 
         public PartPos toPartPos() {
             World world = Minecraft.getMinecraft().world;
@@ -443,4 +544,18 @@ public class GuiNetworkDiagnostics extends JFrame {
             return null;
         }
     }
+
+    /**
+     * A node in the evaluations tree, identified by a key that remains the same across updates.
+     */
+    @Data
+    public static class EvaluationTreeNode {
+        private final String key;
+        private final String label;
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
 }
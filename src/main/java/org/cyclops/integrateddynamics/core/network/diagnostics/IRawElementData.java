@@ -0,0 +1,50 @@
+package org.cyclops.integrateddynamics.core.network.diagnostics;
+
+import net.minecraft.nbt.NBTTagCompound;
+
+import javax.annotation.Nullable;
+
+/**
+ * Diagnostics data of something at a position within a network.
+ * @author rubensworks
+ */
+public interface IRawElementData extends IRawData {
+
+    /**
+     * @return An object that identifies the position of this data within a network.
+     */
+    public Object getKey();
+
+    /**
+     * @return The duration in the last second in nanoseconds.
+     */
+    public long getLast20TicksDurationNs();
+
+    /**
+     * @param last20TicksDurationNs A duration in nanoseconds.
+     * @return A copy of this data with the given duration.
+     */
+    public IRawElementData withLast20TicksDurationNs(long last20TicksDurationNs);
+
+    /**
+     * Write the details of this data that are not part of its equality, such as statistics.
+     * These are sent separately in deltas, so that they do not cause the whole data to be sent.
+     * @param previous The previous data with the same key.
+     * @return The details tag, or null if the details have not changed.
+     */
+    @Nullable
+    public default NBTTagCompound toDetailsNbt(IRawElementData previous) {
+        return null;
+    }
+
+    /**
+     * @param tag A details tag, as created by {@link #toDetailsNbt(IRawElementData)}.
+     * @return A copy of this data with the given details.
+     */
+    public default IRawElementData withDetailsNbt(NBTTagCompound tag) {
+        return this;
+    }
+
+    public NBTTagCompound toNbt();
+
+}
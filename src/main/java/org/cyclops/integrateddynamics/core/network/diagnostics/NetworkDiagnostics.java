@@ -1,7 +1,10 @@
 package org.cyclops.integrateddynamics.core.network.diagnostics;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
 import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.nbt.NBTTagCompound;
 import net.minecraftforge.fml.common.FMLCommonHandler;
 import org.cyclops.cyclopscore.helper.L10NHelpers;
 import org.cyclops.integrateddynamics.IntegratedDynamics;
@@ -17,6 +20,7 @@ import org.cyclops.integrateddynamics.network.packet.NetworkDiagnosticsNetworkPa
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
 
 /**
@@ -26,7 +30,12 @@ public class NetworkDiagnostics {
 
     private static final NetworkDiagnostics _INSTANCE = new NetworkDiagnostics();
 
-    private final List<UUID> players = Lists.newArrayList();
+    /**
+     * The maximum number of networks that are sent to a player per tick when diagnostics are opened.
+     */
+    public static final int SNAPSHOT_NETWORKS_PER_TICK = 16;
+
+    private final Map<UUID, PlayerState> players = Maps.newLinkedHashMap();
 
     private NetworkDiagnostics() {
 
@@ -41,20 +50,72 @@ public class NetworkDiagnostics {
     }
 
     public synchronized void registerPlayer(EntityPlayerMP player) {
-        if (!players.contains(player.getPersistentID())) {
-            players.add(player.getPersistentID());
+        // A fresh state is also created when re-subscribing, as the client cleared its data in the meantime.
+        // All networks are sent over the next ticks, see sendSnapshots.
+        PlayerState state = new PlayerState();
+        state.pendingNetworks.addAll(NetworkWorldStorage.getInstance(IntegratedDynamics._instance).getNetworks());
+        players.put(player.getPersistentID(), state);
+        EvaluationProfiler.getInstance().setEnabled(true);
+    }
+
+    public synchronized void unRegisterPlayer(EntityPlayerMP player) {
+        players.remove(player.getPersistentID());
+        onPlayerRemoved();
+    }
+
+    protected void onPlayerRemoved() {
+        if (players.isEmpty()) {
+            EvaluationProfiler.getInstance().setEnabled(false);
+        }
+    }
+
+    /**
+     * Send the full data of the given network to a player again over the next ticks,
+     * for when the client received a change for a network it does not know.
+     * @param player The player.
+     * @param networkId The network id.
+     */
+    public synchronized void resendNetwork(EntityPlayerMP player, int networkId) {
+        PlayerState state = players.get(player.getPersistentID());
+        if (state != null) {
+            state.sentNetworks.remove(networkId);
             for (INetwork network : NetworkWorldStorage.getInstance(IntegratedDynamics._instance).getNetworks()) {
-                sendNetworkUpdateToPlayer(player, network);
+                if (network.getId() == networkId) {
+                    if (!state.pendingNetworks.contains(network)) {
+                        state.pendingNetworks.add(network);
+                    }
+                    break;
+                }
             }
-
         }
     }
 
-    public synchronized void unRegisterPlayer(EntityPlayerMP player) {
-        players.remove(player.getPersistentID());
+    /**
+     * Send the next networks of the initial snapshot to each player that has recently started diagnostics.
+     * This should be called each tick.
+     */
+    public synchronized void sendSnapshots() {
+        for (Iterator<Map.Entry<UUID, PlayerState>> it = players.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<UUID, PlayerState> entry = it.next();
+            PlayerState state = entry.getValue();
+            if (!state.pendingNetworks.isEmpty()) {
+                EntityPlayerMP player = getPlayer(entry.getKey());
+                if (player != null) {
+                    for (int i = 0; i < SNAPSHOT_NETWORKS_PER_TICK && !state.pendingNetworks.isEmpty(); i++) {
+                        INetwork network = state.pendingNetworks.poll();
+                        if (!state.sentNetworks.containsKey(network.getId())) {
+                            sendNetworkUpdateToPlayer(player, state, createNetworkData(network));
+                        }
+                    }
+                } else {
+                    it.remove();
+                    onPlayerRemoved();
+                }
+            }
+        }
     }
 
-    public void sendNetworkUpdateToPlayer(EntityPlayerMP player, INetwork network) {
+    public RawNetworkData createNetworkData(INetwork network) {
         List<RawPartData> rawParts = Lists.newArrayList();
         for (INetworkElement networkElement : network.getElements()) {
             if (networkElement instanceof IPartNetworkElement) {
@@ -64,7 +125,7 @@ public class NetworkDiagnostics {
                 rawParts.add(new RawPartData(pos.getPos().getDimensionId(),
                         pos.getPos().getBlockPos(), pos.getSide(),
                         L10NHelpers.localize(partNetworkElement.getPart().getUnlocalizedName()),
-                        lastSecondDurationNs));
+                        lastSecondDurationNs, EvaluationProfiler.getInstance().createEvaluationData(pos)));
             } else {
                 // If needed, we can send the other part types later on as well
             }
@@ -84,18 +145,55 @@ public class NetworkDiagnostics {
             }
         }
 
-        RawNetworkData rawNetworkData = new RawNetworkData(network.isKilled(), network.hashCode(), network.getCablesCount(), rawParts, rawObservers);
-        IntegratedDynamics._instance.getPacketHandler().sendToPlayer(new NetworkDiagnosticsNetworkPacket(rawNetworkData.toNbt()), player);
+        return new RawNetworkData(network.isKilled(), network.getId(), network.getCablesCount(), network.getDeferredUpdatesCount(), rawParts, rawObservers);
+    }
+
+    /**
+     * Send the given network to a player.
+     * The full network is only sent the first time, after that only the changes since the last sent data are sent.
+     * @param player The player.
+     * @param state The diagnostics state of the player.
+     * @param rawNetworkData The current data of the network.
+     */
+    protected void sendNetworkUpdateToPlayer(EntityPlayerMP player, PlayerState state, RawNetworkData rawNetworkData) {
+        int id = rawNetworkData.getId();
+        RawNetworkData previous = state.sentNetworks.get(id);
+        NBTTagCompound tag;
+        if (previous == null) {
+            tag = rawNetworkData.toNbt();
+        } else {
+            tag = rawNetworkData.toDeltaNbt(previous);
+            if (tag == null) {
+                return;
+            }
+            // Store the data as the client will reconstruct it, so that later deltas refer to the same indexes.
+            rawNetworkData = RawNetworkData.applyDeltaNbt(previous, tag);
+        }
+        if (rawNetworkData.isKilled()) {
+            state.sentNetworks.remove(id);
+        } else {
+            state.sentNetworks.put(id, rawNetworkData);
+        }
+        IntegratedDynamics._instance.getPacketHandler().sendToPlayer(new NetworkDiagnosticsNetworkPacket(tag), player);
     }
 
     public synchronized void sendNetworkUpdate(INetwork network) {
-        for (Iterator<UUID> it = players.iterator(); it.hasNext();) {
-            UUID uuid = it.next();
-            EntityPlayerMP player = getPlayer(uuid);
+        RawNetworkData rawNetworkData = null;
+        for (Iterator<Map.Entry<UUID, PlayerState>> it = players.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<UUID, PlayerState> entry = it.next();
+            PlayerState state = entry.getValue();
+            EntityPlayerMP player = getPlayer(entry.getKey());
             if (player != null) {
-                sendNetworkUpdateToPlayer(player, network);
+                // Networks that were not sent yet will be sent as part of the initial snapshot.
+                if (state.pendingNetworks.isEmpty() || state.sentNetworks.containsKey(network.getId())) {
+                    if (rawNetworkData == null) {
+                        rawNetworkData = createNetworkData(network);
+                    }
+                    sendNetworkUpdateToPlayer(player, state, rawNetworkData);
+                }
             } else {
                 it.remove();
+                onPlayerRemoved();
             }
         }
     }
@@ -104,4 +202,14 @@ public class NetworkDiagnostics {
         return !players.isEmpty();
     }
 
+    /**
+     * The networks that were sent to a player.
+     */
+    protected static class PlayerState {
+
+        private final Queue<INetwork> pendingNetworks = Queues.newArrayDeque();
+        private final Map<Integer, RawNetworkData> sentNetworks = Maps.newHashMap();
+
+    }
+
 }
@@ -0,0 +1,67 @@
+package org.cyclops.integrateddynamics.core.network.diagnostics;
+
+import com.google.common.collect.Lists;
+import lombok.Data;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import org.cyclops.cyclopscore.helper.MinecraftHelpers;
+
+import java.util.List;
+
+/**
+ * Evaluation statistics of a variable within a part, with the statistics of its input variables as children.
+ * @author rubensworks
+ */
+@Data
+public class RawEvaluationData implements IRawData {
+
+    private final String name;
+    private final long invocations;
+    private final long cacheHits;
+    private final long durationNs;
+    private final List<RawEvaluationData> children;
+
+    /**
+     * @return The ratio of invocations that returned a cached value.
+     */
+    public double getCacheHitRatio() {
+        return invocations == 0 ? 0 : (double) cacheHits / invocations;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s invocations, %s cache hits, %sns)", name, invocations, cacheHits, durationNs);
+    }
+
+    public NBTTagCompound toNbt() {
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setString("name", name);
+        tag.setLong("invocations", invocations);
+        tag.setLong("cacheHits", cacheHits);
+        tag.setLong("durationNs", durationNs);
+        tag.setTag("children", toNbt(children));
+        return tag;
+    }
+
+    public static RawEvaluationData fromNbt(NBTTagCompound tag) {
+        return new RawEvaluationData(tag.getString("name"), tag.getLong("invocations"), tag.getLong("cacheHits"),
+                tag.getLong("durationNs"), fromNbt(tag.getTagList("children", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal())));
+    }
+
+    public static NBTTagList toNbt(List<RawEvaluationData> evaluations) {
+        NBTTagList list = new NBTTagList();
+        for (RawEvaluationData evaluation : evaluations) {
+            list.appendTag(evaluation.toNbt());
+        }
+        return list;
+    }
+
+    public static List<RawEvaluationData> fromNbt(NBTTagList list) {
+        List<RawEvaluationData> evaluations = Lists.newArrayListWithCapacity(list.tagCount());
+        for (int i = 0; i < list.tagCount(); i++) {
+            evaluations.add(fromNbt(list.getCompoundTagAt(i)));
+        }
+        return evaluations;
+    }
+
+}
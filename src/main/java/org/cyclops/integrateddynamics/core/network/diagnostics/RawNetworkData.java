@@ -1,12 +1,18 @@
 package org.cyclops.integrateddynamics.core.network.diagnostics;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
 import lombok.Data;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import org.cyclops.cyclopscore.helper.MinecraftHelpers;
 
+import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * @author rubensworks
@@ -17,12 +23,13 @@ public class RawNetworkData implements IRawData {
     private final boolean killed;
     private final int id;
     private final int cables;
+    private final int deferredUpdates;
     private final List<RawPartData> parts;
     private final List<RawObserverData> observers;
 
     @Override
     public String toString() {
-        return String.format("Network %s (cables: %s; elements: %s)", id, cables, parts.size());
+        return String.format("Network %s (cables: %s; elements: %s; deferred: %s)", id, cables, parts.size(), deferredUpdates);
     }
 
     public NBTTagCompound toNbt() {
@@ -30,6 +37,7 @@ public class RawNetworkData implements IRawData {
         tag.setBoolean("killed", killed);
         tag.setInteger("id", id);
         tag.setLong("cables", cables);
+        tag.setInteger("deferredUpdates", deferredUpdates);
 
         NBTTagList listParts = new NBTTagList();
         for (RawPartData part : parts) {
@@ -62,7 +70,121 @@ public class RawNetworkData implements IRawData {
         }
 
         return new RawNetworkData(tag.getBoolean("killed"), tag.getInteger("id"),
-                tag.getInteger("cables"), parts, observers);
+                tag.getInteger("cables"), tag.getInteger("deferredUpdates"), parts, observers);
+    }
+
+    /**
+     * Write the difference with the given previous data of the same network.
+     * Parts and observers are referred to by their index in the previous data,
+     * only their durations and changed details are sent if they already existed and nothing else has changed.
+     * @param previous The previous data of this network.
+     * @return The delta tag, or null if nothing has changed.
+     */
+    @Nullable
+    public NBTTagCompound toDeltaNbt(RawNetworkData previous) {
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setBoolean("delta", true);
+        tag.setBoolean("killed", killed);
+        tag.setInteger("id", id);
+        tag.setLong("cables", cables);
+        tag.setInteger("deferredUpdates", deferredUpdates);
+        boolean changed = writeDelta(tag, "parts", previous.getParts(), parts);
+        changed = writeDelta(tag, "observers", previous.getObservers(), observers) || changed;
+        if (!changed && killed == previous.isKilled() && cables == previous.getCables()
+                && deferredUpdates == previous.getDeferredUpdates()) {
+            return null;
+        }
+        return tag;
+    }
+
+    /**
+     * Apply a delta tag, as created by {@link #toDeltaNbt(RawNetworkData)}, to the given previous data.
+     * @param previous The previous data of the network.
+     * @param tag The delta tag.
+     * @return The new data of the network.
+     */
+    public static RawNetworkData applyDeltaNbt(RawNetworkData previous, NBTTagCompound tag) {
+        List<RawPartData> parts = readDelta(tag, "parts", previous.getParts(), RawPartData::fromNbt);
+        List<RawObserverData> observers = readDelta(tag, "observers", previous.getObservers(), RawObserverData::fromNbt);
+        return new RawNetworkData(tag.getBoolean("killed"), tag.getInteger("id"),
+                tag.getInteger("cables"), tag.getInteger("deferredUpdates"), parts, observers);
+    }
+
+    protected static boolean writeDelta(NBTTagCompound tag, String name,
+                                        List<? extends IRawElementData> previous, List<? extends IRawElementData> current) {
+        Map<Object, Integer> previousIndexes = Maps.newHashMapWithExpectedSize(previous.size());
+        for (int i = 0; i < previous.size(); i++) {
+            previousIndexes.put(previous.get(i).getKey(), i);
+        }
+        boolean[] kept = new boolean[previous.size()];
+        TIntList changed = new TIntArrayList();
+        TIntList durations = new TIntArrayList();
+        TIntList detailsChanged = new TIntArrayList();
+        NBTTagList details = new NBTTagList();
+        NBTTagList added = new NBTTagList();
+        for (IRawElementData data : current) {
+            Integer index = previousIndexes.get(data.getKey());
+            if (index != null && !kept[index] && !data.withLast20TicksDurationNs(previous.get(index).getLast20TicksDurationNs())
+                    .equals(previous.get(index))) {
+                // More than the duration has changed, so the data is sent completely.
+                index = null;
+            }
+            if (index == null || kept[index]) {
+                added.appendTag(data.toNbt());
+            } else {
+                kept[index] = true;
+                long duration = data.getLast20TicksDurationNs();
+                if (duration != previous.get(index).getLast20TicksDurationNs()) {
+                    changed.add(index);
+                    durations.add((int) (duration >> 32));
+                    durations.add((int) duration);
+                }
+                NBTTagCompound detailsTag = data.toDetailsNbt(previous.get(index));
+                if (detailsTag != null) {
+                    detailsChanged.add(index);
+                    details.appendTag(detailsTag);
+                }
+            }
+        }
+        TIntList removed = new TIntArrayList();
+        for (int i = 0; i < kept.length; i++) {
+            if (!kept[i]) {
+                removed.add(i);
+            }
+        }
+        tag.setIntArray(name + "Removed", removed.toArray());
+        tag.setIntArray(name + "Changed", changed.toArray());
+        tag.setIntArray(name + "Durations", durations.toArray());
+        tag.setIntArray(name + "DetailsChanged", detailsChanged.toArray());
+        tag.setTag(name + "Details", details);
+        tag.setTag(name + "Added", added);
+        return !removed.isEmpty() || !changed.isEmpty() || !detailsChanged.isEmpty() || added.tagCount() > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static <T extends IRawElementData> List<T> readDelta(NBTTagCompound tag, String name, List<T> previous,
+                                                            Function<NBTTagCompound, T> reader) {
+        List<T> list = Lists.newArrayList(previous);
+        int[] changed = tag.getIntArray(name + "Changed");
+        int[] durations = tag.getIntArray(name + "Durations");
+        for (int i = 0; i < changed.length; i++) {
+            long duration = ((long) durations[i * 2] << 32) | (durations[i * 2 + 1] & 0xFFFFFFFFL);
+            list.set(changed[i], (T) list.get(changed[i]).withLast20TicksDurationNs(duration));
+        }
+        int[] detailsChanged = tag.getIntArray(name + "DetailsChanged");
+        NBTTagList details = tag.getTagList(name + "Details", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal());
+        for (int i = 0; i < detailsChanged.length; i++) {
+            list.set(detailsChanged[i], (T) list.get(detailsChanged[i]).withDetailsNbt(details.getCompoundTagAt(i)));
+        }
+        int[] removed = tag.getIntArray(name + "Removed");
+        for (int i = removed.length - 1; i >= 0; i--) {
+            list.remove(removed[i]);
+        }
+        NBTTagList added = tag.getTagList(name + "Added", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal());
+        for (int i = 0; i < added.tagCount(); i++) {
+            list.add(reader.apply(added.getCompoundTagAt(i)));
+        }
+        return list;
     }
 
 }
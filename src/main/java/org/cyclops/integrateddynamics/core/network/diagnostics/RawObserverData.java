@@ -5,11 +5,13 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 
+import java.util.Arrays;
+
 /**
  * @author rubensworks
  */
 @Data
-public class RawObserverData implements IRawData {
+public class RawObserverData implements IRawElementData {
 
     private final int dimension;
     private final BlockPos pos;
@@ -22,6 +24,17 @@ public class RawObserverData implements IRawData {
         return String.format("%s: %s,%s,%s,%s (%s)", name, pos.getX(), pos.getY(), pos.getZ(), side, dimension);
     }
 
+    @Override
+    public Object getKey() {
+        return Arrays.asList(dimension, pos, side, name);
+    }
+
+    @Override
+    public RawObserverData withLast20TicksDurationNs(long last20TicksDurationNs) {
+        return new RawObserverData(dimension, pos, side, name, last20TicksDurationNs);
+    }
+
+    @Override
     public NBTTagCompound toNbt() {
         NBTTagCompound tag = new NBTTagCompound();
         tag.setInteger("dimension", dimension);
@@ -1,27 +1,77 @@
 package org.cyclops.integrateddynamics.core.network.diagnostics;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.helper.MinecraftHelpers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
+ * Evaluations are not part of the equality, as they are sent separately as details in deltas.
  * @author rubensworks
  */
+@EqualsAndHashCode(exclude = "evaluations")
 @Data
-public class RawPartData implements IRawData {
+public class RawPartData implements IRawElementData {
 
     private final int dimension;
     private final BlockPos pos;
     private final EnumFacing side;
     private final String name;
     private final long last20TicksDurationNs;
+    private final List<RawEvaluationData> evaluations;
+
+    public RawPartData(int dimension, BlockPos pos, EnumFacing side, String name, long last20TicksDurationNs,
+                       List<RawEvaluationData> evaluations) {
+        this.dimension = dimension;
+        this.pos = pos;
+        this.side = side;
+        this.name = name;
+        this.last20TicksDurationNs = last20TicksDurationNs;
+        this.evaluations = evaluations;
+    }
+
+    public RawPartData(int dimension, BlockPos pos, EnumFacing side, String name, long last20TicksDurationNs) {
+        this(dimension, pos, side, name, last20TicksDurationNs, Collections.emptyList());
+    }
 
     @Override
     public String toString() {
         return String.format("%s: %s,%s,%s,%s (%s)", name, pos.getX(), pos.getY(), pos.getZ(), side, dimension);
     }
 
+    @Override
+    public Object getKey() {
+        return Arrays.asList(dimension, pos, side, name);
+    }
+
+    @Override
+    public RawPartData withLast20TicksDurationNs(long last20TicksDurationNs) {
+        return new RawPartData(dimension, pos, side, name, last20TicksDurationNs, evaluations);
+    }
+
+    @Override
+    public NBTTagCompound toDetailsNbt(IRawElementData previous) {
+        if (previous instanceof RawPartData && evaluations.equals(((RawPartData) previous).getEvaluations())) {
+            return null;
+        }
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setTag("evaluations", RawEvaluationData.toNbt(evaluations));
+        return tag;
+    }
+
+    @Override
+    public RawPartData withDetailsNbt(NBTTagCompound tag) {
+        return new RawPartData(dimension, pos, side, name, last20TicksDurationNs,
+                RawEvaluationData.fromNbt(tag.getTagList("evaluations", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal())));
+    }
+
+    @Override
     public NBTTagCompound toNbt() {
         NBTTagCompound tag = new NBTTagCompound();
         tag.setInteger("dimension", dimension);
@@ -29,12 +79,16 @@ public class RawPartData implements IRawData {
         tag.setInteger("side", side.ordinal());
         tag.setString("name", name);
         tag.setLong("last20TicksDurationNs", last20TicksDurationNs);
+        if (!evaluations.isEmpty()) {
+            tag.setTag("evaluations", RawEvaluationData.toNbt(evaluations));
+        }
         return tag;
     }
 
     public static RawPartData fromNbt(NBTTagCompound tag) {
         return new RawPartData(tag.getInteger("dimension"), BlockPos.fromLong(tag.getLong("pos")),
-                EnumFacing.VALUES[tag.getInteger("side")], tag.getString("name"), tag.getLong("last20TicksDurationNs"));
+                EnumFacing.VALUES[tag.getInteger("side")], tag.getString("name"), tag.getLong("last20TicksDurationNs"),
+                RawEvaluationData.fromNbt(tag.getTagList("evaluations", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal())));
     }
 
 }
@@ -48,6 +48,7 @@ public class NetworkEventBus implements INetworkEventBus {
 
     @Override
     public void post(INetworkEvent event) {
+        event.getNetwork().wakeUp();
         Set<IEventListenableNetworkElement<?>> listeners = this.listeners.get(event.getClass());
         if(listeners != null) {
             for (IEventListenableNetworkElement listener : listeners) {
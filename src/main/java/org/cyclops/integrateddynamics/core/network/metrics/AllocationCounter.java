@@ -0,0 +1,61 @@
+package org.cyclops.integrateddynamics.core.network.metrics;
+
+import org.cyclops.integrateddynamics.GeneralConfig;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the number of bytes that were allocated by the current thread,
+ * for JVMs that expose this in their {@link com.sun.management.ThreadMXBean}.
+ * @author rubensworks
+ */
+public final class AllocationCounter {
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = createThreadBean();
+
+    private AllocationCounter() {
+
+    }
+
+    private static com.sun.management.ThreadMXBean createThreadBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+                if (sunBean.isThreadAllocatedMemorySupported()) {
+                    if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+                        sunBean.setThreadAllocatedMemoryEnabled(true);
+                    }
+                    return sunBean;
+                }
+            }
+        } catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+            // Fallthrough to unsupported
+        }
+        return null;
+    }
+
+    /**
+     * @return If allocated bytes can be counted on this JVM.
+     */
+    public static boolean isSupported() {
+        return THREAD_BEAN != null;
+    }
+
+    /**
+     * @return If allocated bytes should be counted, based on {@link GeneralConfig#networkAllocationTracking}.
+     */
+    public static boolean isEnabled() {
+        return GeneralConfig.networkAllocationTracking && THREAD_BEAN != null;
+    }
+
+    /**
+     * The difference between two calls on the same thread is the number of bytes allocated in between.
+     * @return The total number of bytes allocated by the current thread, or 0 if this is not supported.
+     */
+    public static long getAllocatedBytes() {
+        return THREAD_BEAN != null ? THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+}
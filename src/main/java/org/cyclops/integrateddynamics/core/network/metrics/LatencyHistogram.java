@@ -0,0 +1,74 @@
+package org.cyclops.integrateddynamics.core.network.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Latency samples in a fixed-size ring buffer, from which percentiles are derived.
+ * Only the most recent samples are kept, while the count and maximum cover all samples.
+ * @author rubensworks
+ */
+public class LatencyHistogram {
+
+    private final long[] samples;
+    private int next = 0;
+    private int size = 0;
+    private long count = 0;
+    private long total = 0;
+    private long max = 0;
+
+    public LatencyHistogram(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * Add a sample.
+     * @param duration A duration in nanoseconds.
+     */
+    public synchronized void record(long duration) {
+        samples[next] = duration;
+        next = (next + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+        count++;
+        total += duration;
+        if (duration > max) {
+            max = duration;
+        }
+    }
+
+    /**
+     * @param percentile A percentile between 0 and 1.
+     * @return The duration at the given percentile of the recent samples in nanoseconds, or 0 if there are none.
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(size - 1, Math.floor(percentile * size))];
+    }
+
+    /**
+     * @return The largest duration that was recorded in nanoseconds.
+     */
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * @return The number of recorded samples.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The sum of all recorded durations in nanoseconds.
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+}
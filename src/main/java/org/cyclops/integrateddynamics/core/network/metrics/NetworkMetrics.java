@@ -0,0 +1,324 @@
+package org.cyclops.integrateddynamics.core.network.metrics;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import gnu.trove.map.TObjectLongMap;
+import gnu.trove.map.hash.TObjectLongHashMap;
+import lombok.Data;
+import net.minecraftforge.common.DimensionManager;
+import org.apache.logging.log4j.Level;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.IntegratedDynamics;
+import org.cyclops.integrateddynamics.Reference;
+import org.cyclops.integrateddynamics.api.network.INetworkElement;
+import org.cyclops.integrateddynamics.api.network.IPartNetworkElement;
+import org.cyclops.integrateddynamics.api.part.IPartType;
+import org.cyclops.integrateddynamics.api.part.aspect.IAspect;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Always-on metrics of network element and aspect updates.
+ * Only one in {@link GeneralConfig#networkMetricsSampleInterval} updates is timed,
+ * and the timings are kept per part type and per aspect in {@link LatencyHistogram}s.
+ * If {@link GeneralConfig#networkAllocationTracking} is enabled,
+ * the bytes allocated by element updates and storage observations are counted as well,
+ * per part type and per ingredient component.
+ * @author rubensworks
+ */
+public final class NetworkMetrics {
+
+    public static final int HISTOGRAM_SIZE = 1024;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Integrated Dynamics metrics writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static NetworkMetrics INSTANCE;
+
+    private final Map<String, LatencyHistogram> partTypeLatencies = Maps.newHashMap();
+    private final Map<String, LatencyHistogram> aspectLatencies = Maps.newHashMap();
+    private final TObjectLongMap<String> partTypeAllocations = new TObjectLongHashMap<>();
+    private final TObjectLongMap<String> observerAllocations = new TObjectLongHashMap<>();
+    private long allocationTicks = 0;
+
+    private NetworkMetrics() {
+
+    }
+
+    public static NetworkMetrics getInstance() {
+        if(INSTANCE == null) {
+            INSTANCE = new NetworkMetrics();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * This should be called before each update that can be timed.
+     * This is thread-safe, as networks may be updated in parallel.
+     * @return If the next update should be timed, with a chance of one in the sample interval.
+     */
+    public boolean shouldSample() {
+        int interval = GeneralConfig.networkMetricsSampleInterval;
+        if (interval <= 0) {
+            return false;
+        }
+        return interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0;
+    }
+
+    /**
+     * Record the duration of a network element update.
+     * Only updates of part elements are recorded, grouped by their part type.
+     * @param element The network element.
+     * @param duration The duration in nanoseconds.
+     */
+    public void recordElement(INetworkElement element, long duration) {
+        if (element instanceof IPartNetworkElement) {
+            IPartType partType = ((IPartNetworkElement) element).getPart();
+            getHistogram(partTypeLatencies, partType.getName()).record(duration);
+        }
+    }
+
+    /**
+     * Record the duration of an aspect update.
+     * @param aspect The aspect.
+     * @param duration The duration in nanoseconds.
+     */
+    public void recordAspect(IAspect aspect, long duration) {
+        getHistogram(aspectLatencies, aspect.getUnlocalizedName()).record(duration);
+    }
+
+    /**
+     * Record the number of bytes allocated by a network element update.
+     * Only updates of part elements are recorded, grouped by their part type.
+     * @param element The network element.
+     * @param bytes The allocated bytes.
+     */
+    public synchronized void recordElementAllocation(INetworkElement element, long bytes) {
+        if (element instanceof IPartNetworkElement) {
+            partTypeAllocations.adjustOrPutValue(((IPartNetworkElement) element).getPart().getName(), bytes, bytes);
+        }
+    }
+
+    /**
+     * Record the number of bytes allocated by observing the storages of an ingredient network channel.
+     * @param component The ingredient component of the network.
+     * @param bytes The allocated bytes.
+     */
+    public synchronized void recordObserverAllocation(IngredientComponent<?, ?> component, long bytes) {
+        observerAllocations.adjustOrPutValue(component.getName().toString(), bytes, bytes);
+    }
+
+    /**
+     * This should be called once after each network tick in which allocations were counted.
+     */
+    public synchronized void onAllocationTick() {
+        allocationTicks++;
+    }
+
+    /**
+     * @return The number of ticks over which allocations were counted.
+     */
+    public synchronized long getAllocationTicks() {
+        return allocationTicks;
+    }
+
+    private synchronized LatencyHistogram getHistogram(Map<String, LatencyHistogram> histograms, String key) {
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = new LatencyHistogram(HISTOGRAM_SIZE);
+            histograms.put(key, histogram);
+        }
+        return histogram;
+    }
+
+    /**
+     * @return The histograms per part type, sorted by decreasing total duration.
+     */
+    public synchronized List<Map.Entry<String, LatencyHistogram>> getPartTypeLatencies() {
+        return sorted(partTypeLatencies);
+    }
+
+    /**
+     * @return The histograms per aspect, sorted by decreasing total duration.
+     */
+    public synchronized List<Map.Entry<String, LatencyHistogram>> getAspectLatencies() {
+        return sorted(aspectLatencies);
+    }
+
+    /**
+     * @return The allocated bytes per part type, sorted by decreasing bytes.
+     */
+    public synchronized List<Map.Entry<String, Long>> getPartTypeAllocations() {
+        return sortedAllocations(partTypeAllocations);
+    }
+
+    /**
+     * @return The allocated bytes per observed ingredient component, sorted by decreasing bytes.
+     */
+    public synchronized List<Map.Entry<String, Long>> getObserverAllocations() {
+        return sortedAllocations(observerAllocations);
+    }
+
+    private static List<Map.Entry<String, Long>> sortedAllocations(TObjectLongMap<String> allocations) {
+        List<Map.Entry<String, Long>> entries = Lists.newArrayListWithCapacity(allocations.size());
+        allocations.forEachEntry((key, bytes) -> entries.add(new AbstractMap.SimpleEntry<>(key, bytes)));
+        entries.sort(Comparator.comparingLong((Map.Entry<String, Long> e) -> e.getValue()).reversed());
+        return entries;
+    }
+
+    private static List<Map.Entry<String, LatencyHistogram>> sorted(Map<String, LatencyHistogram> histograms) {
+        List<Map.Entry<String, LatencyHistogram>> entries = Lists.newArrayList(histograms.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, LatencyHistogram> e) -> e.getValue().getTotal()).reversed());
+        return entries;
+    }
+
+    /**
+     * Remove all recorded metrics.
+     */
+    public synchronized void reset() {
+        partTypeLatencies.clear();
+        aspectLatencies.clear();
+        partTypeAllocations.clear();
+        observerAllocations.clear();
+        allocationTicks = 0;
+    }
+
+    /**
+     * @return The folder in the current world to which metrics are dumped.
+     */
+    public static File getDumpFolder() {
+        return new File(DimensionManager.getCurrentSaveRootDirectory(), Reference.MOD_ID);
+    }
+
+    /**
+     * Write all metrics to a CSV and a JSON file in the given folder.
+     * The metrics are summarized on the calling thread, after which the files are written by a background thread.
+     * @param folder The folder to write to.
+     */
+    public void dump(File folder) {
+        List<LatencySummary> parts = summarize(getPartTypeLatencies());
+        List<LatencySummary> aspects = summarize(getAspectLatencies());
+        List<Map.Entry<String, Long>> partAllocations = getPartTypeAllocations();
+        List<Map.Entry<String, Long>> observerAllocations = getObserverAllocations();
+        long ticks = getAllocationTicks();
+        int sampleInterval = GeneralConfig.networkMetricsSampleInterval;
+        WRITER.execute(() -> write(folder, sampleInterval, parts, aspects, partAllocations, observerAllocations, ticks));
+    }
+
+    private static void write(File folder, int sampleInterval, List<LatencySummary> parts, List<LatencySummary> aspects,
+                              List<Map.Entry<String, Long>> partAllocations, List<Map.Entry<String, Long>> observerAllocations,
+                              long ticks) {
+        folder.mkdirs();
+        try {
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(new File(folder, "network_metrics.csv").toPath(), StandardCharsets.UTF_8))) {
+                writer.println("category,name,samples,p50_ns,p99_ns,max_ns");
+                writeCsv(writer, "part", parts);
+                writeCsv(writer, "aspect", aspects);
+            }
+            if (ticks > 0) {
+                try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(new File(folder, "network_allocations.csv").toPath(), StandardCharsets.UTF_8))) {
+                    writer.println("category,name,bytes,bytes_per_tick");
+                    writeAllocationsCsv(writer, "part", partAllocations, ticks);
+                    writeAllocationsCsv(writer, "observer", observerAllocations, ticks);
+                }
+            }
+            JsonObject root = new JsonObject();
+            root.addProperty("sampleInterval", sampleInterval);
+            root.add("parts", toJson(parts));
+            root.add("aspects", toJson(aspects));
+            JsonObject allocations = new JsonObject();
+            allocations.addProperty("ticks", ticks);
+            allocations.add("parts", allocationsToJson(partAllocations, ticks));
+            allocations.add("observers", allocationsToJson(observerAllocations, ticks));
+            root.add("allocations", allocations);
+            try (Writer writer = Files.newBufferedWriter(new File(folder, "network_metrics.json").toPath(), StandardCharsets.UTF_8)) {
+                Gson gson = new GsonBuilder().setPrettyPrinting().create();
+                gson.toJson(root, writer);
+            }
+        } catch (IOException e) {
+            IntegratedDynamics.clog(Level.ERROR, "Failed to write network metrics: " + e.getMessage());
+        }
+    }
+
+    private static List<LatencySummary> summarize(List<Map.Entry<String, LatencyHistogram>> histograms) {
+        List<LatencySummary> summaries = Lists.newArrayListWithCapacity(histograms.size());
+        for (Map.Entry<String, LatencyHistogram> entry : histograms) {
+            LatencyHistogram histogram = entry.getValue();
+            summaries.add(new LatencySummary(entry.getKey(), histogram.getCount(),
+                    histogram.getPercentile(0.5), histogram.getPercentile(0.99), histogram.getMax()));
+        }
+        return summaries;
+    }
+
+    private static void writeCsv(PrintWriter writer, String category, List<LatencySummary> summaries) {
+        for (LatencySummary summary : summaries) {
+            writer.println(String.format("%s,%s,%s,%s,%s,%s", category, summary.getName(), summary.getSamples(),
+                    summary.getP50(), summary.getP99(), summary.getMax()));
+        }
+    }
+
+    private static JsonArray toJson(List<LatencySummary> summaries) {
+        JsonArray array = new JsonArray();
+        for (LatencySummary summary : summaries) {
+            JsonObject object = new JsonObject();
+            object.addProperty("name", summary.getName());
+            object.addProperty("samples", summary.getSamples());
+            object.addProperty("p50", summary.getP50());
+            object.addProperty("p99", summary.getP99());
+            object.addProperty("max", summary.getMax());
+            array.add(object);
+        }
+        return array;
+    }
+
+    private static void writeAllocationsCsv(PrintWriter writer, String category, List<Map.Entry<String, Long>> allocations, long ticks) {
+        for (Map.Entry<String, Long> entry : allocations) {
+            writer.println(String.format("%s,%s,%s,%s", category, entry.getKey(), entry.getValue(), entry.getValue() / ticks));
+        }
+    }
+
+    private static JsonArray allocationsToJson(List<Map.Entry<String, Long>> allocations, long ticks) {
+        JsonArray array = new JsonArray();
+        for (Map.Entry<String, Long> entry : allocations) {
+            JsonObject object = new JsonObject();
+            object.addProperty("name", entry.getKey());
+            object.addProperty("bytes", entry.getValue());
+            object.addProperty("bytesPerTick", ticks > 0 ? entry.getValue() / ticks : 0);
+            array.add(object);
+        }
+        return array;
+    }
+
+    /**
+     * The percentiles of a latency histogram at the time it was dumped.
+     */
+    @Data
+    private static class LatencySummary {
+        private final String name;
+        private final long samples;
+        private final long p50;
+        private final long p99;
+        private final long max;
+    }
+
+}
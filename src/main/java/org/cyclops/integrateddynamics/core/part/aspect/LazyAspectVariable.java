@@ -14,6 +14,7 @@ import org.cyclops.integrateddynamics.api.part.PartTarget;
 import org.cyclops.integrateddynamics.api.part.aspect.IAspectRead;
 import org.cyclops.integrateddynamics.api.part.aspect.IAspectVariable;
 import org.cyclops.integrateddynamics.api.part.aspect.property.IAspectProperties;
+import org.cyclops.integrateddynamics.core.network.diagnostics.EvaluationProfiler;
 
 /**
  * Variable for a specific aspect from a part that calculates its target value only maximum once per ticking interval.
@@ -45,8 +46,15 @@ public abstract class LazyAspectVariable<V extends IValue> extends VariableAdapt
 
     @Override
     public V getValue() throws EvaluationException {
+        EvaluationProfiler profiler = EvaluationProfiler.getInstance();
         if(value == null) {
+            long startTime = profiler.isEnabled() ? System.nanoTime() : 0;
             this.value = getValueLazy();
+            if (profiler.isEnabled()) {
+                profiler.recordAspect(this, false, System.nanoTime() - startTime);
+            }
+        } else if (profiler.isEnabled()) {
+            profiler.recordAspect(this, true, 0);
         }
         return this.value;
     }
@@ -41,6 +41,7 @@ import org.cyclops.integrateddynamics.core.evaluate.variable.ValueTypes;
 import org.cyclops.integrateddynamics.core.helper.L10NValues;
 import org.cyclops.integrateddynamics.core.helper.NetworkHelpers;
 import org.cyclops.integrateddynamics.core.helper.WrenchHelpers;
+import org.cyclops.integrateddynamics.core.network.diagnostics.EvaluationProfiler;
 import org.cyclops.integrateddynamics.core.network.event.NetworkElementAddEvent;
 import org.cyclops.integrateddynamics.core.network.event.VariableContentsUpdatedEvent;
 import org.cyclops.integrateddynamics.core.part.PartStateActiveVariableBase;
@@ -124,8 +125,11 @@ public abstract class PartTypePanelVariableDriven<P extends PartTypePanelVariabl
             try {
                 IVariable variable = state.getVariable(partNetwork);
                 if(variable != null) {
+                    EvaluationProfiler profiler = EvaluationProfiler.getInstance();
+                    if (profiler.isEnabled()) {
+                        profiler.recordRootVariable(target.getCenter(), variable);
+                    }
                     newValue = variable.getValue();
-
                 }
             } catch (EvaluationException e) {
                 state.addGlobalError(new L10NHelpers.UnlocalizedString(e.getLocalizedMessage()));
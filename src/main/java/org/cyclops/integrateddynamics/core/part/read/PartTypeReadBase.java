@@ -21,6 +21,7 @@ import org.cyclops.integrateddynamics.api.part.aspect.IAspectVariable;
 import org.cyclops.integrateddynamics.api.part.read.IPartStateReader;
 import org.cyclops.integrateddynamics.api.part.read.IPartTypeReader;
 import org.cyclops.integrateddynamics.client.gui.GuiPartReader;
+import org.cyclops.integrateddynamics.core.network.metrics.NetworkMetrics;
 import org.cyclops.integrateddynamics.core.part.PartTypeAspects;
 import org.cyclops.integrateddynamics.inventory.container.ContainerPartReader;
 import org.cyclops.integrateddynamics.part.aspect.Aspects;
@@ -78,8 +79,15 @@ public abstract class PartTypeReadBase<P extends IPartTypeReader<P, S>, S extend
     @Override
     public void update(INetwork network, IPartNetwork partNetwork, PartTarget target, S state) {
         super.update(network, partNetwork, target, state);
+        NetworkMetrics metrics = NetworkMetrics.getInstance();
         for(IAspect aspect : getUpdateAspects(AspectUpdateType.NETWORK_TICK)) {
-            aspect.update(partNetwork, this, target, state);
+            if (metrics.shouldSample()) {
+                long startTime = System.nanoTime();
+                aspect.update(partNetwork, this, target, state);
+                metrics.recordAspect(aspect, System.nanoTime() - startTime);
+            } else {
+                aspect.update(partNetwork, this, target, state);
+            }
         }
     }
 
@@ -32,6 +32,7 @@ import org.cyclops.integrateddynamics.core.helper.L10NValues;
 import org.cyclops.integrateddynamics.core.helper.NetworkHelpers;
 import org.cyclops.integrateddynamics.core.network.event.NetworkElementAddEvent;
 import org.cyclops.integrateddynamics.core.network.event.VariableContentsUpdatedEvent;
+import org.cyclops.integrateddynamics.core.network.metrics.NetworkMetrics;
 import org.cyclops.integrateddynamics.core.part.PartTypeAspects;
 import org.cyclops.integrateddynamics.core.part.event.PartWriterAspectEvent;
 import org.cyclops.integrateddynamics.inventory.container.ContainerPartWriter;
@@ -93,7 +94,14 @@ public abstract class PartTypeWriteBase<P extends IPartTypeWriter<P, S>, S exten
         super.update(network, partNetwork, target, state);
         IAspect aspect = getActiveAspect(target, state);
         if (aspect != null) {
-            aspect.update(partNetwork, this, target, state);
+            NetworkMetrics metrics = NetworkMetrics.getInstance();
+            if (metrics.shouldSample()) {
+                long startTime = System.nanoTime();
+                aspect.update(partNetwork, this, target, state);
+                metrics.recordAspect(aspect, System.nanoTime() - startTime);
+            } else {
+                aspect.update(partNetwork, this, target, state);
+            }
         }
     }
 
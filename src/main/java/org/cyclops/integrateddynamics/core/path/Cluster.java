@@ -1,6 +1,10 @@
 package org.cyclops.integrateddynamics.core.path;
 
 import com.google.common.collect.Sets;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import lombok.Data;
 import lombok.experimental.Delegate;
 import net.minecraft.nbt.NBTTagCompound;
@@ -11,6 +15,7 @@ import net.minecraft.world.World;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fml.common.FMLCommonHandler;
 import org.apache.logging.log4j.Level;
+import org.cyclops.cyclopscore.datastructure.DimPos;
 import org.cyclops.cyclopscore.helper.MinecraftHelpers;
 import org.cyclops.cyclopscore.helper.TileHelpers;
 import org.cyclops.cyclopscore.persist.nbt.INBTSerializable;
@@ -20,6 +25,7 @@ import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
 import org.cyclops.integrateddynamics.capability.path.PathElementConfig;
 import org.cyclops.integrateddynamics.capability.path.SidedPathElement;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Set;
 import java.util.TreeSet;
@@ -47,49 +53,170 @@ public class Cluster implements Collection<ISidedPathElement>, INBTSerializable
 
     @Override
     public NBTTagCompound toNBT() {
-        NBTTagCompound tag = new NBTTagCompound();
-        NBTTagList list = new NBTTagList();
-
-        for(ISidedPathElement e : elements) {
-            NBTTagCompound elementTag = new NBTTagCompound();
-            elementTag.setInteger("dimension", e.getPathElement().getPosition().getDimensionId());
-            elementTag.setLong("pos", e.getPathElement().getPosition().getBlockPos().toLong());
-            if (e.getSide() != null) {
-                elementTag.setInteger("side", e.getSide().ordinal());
-            }
-            list.appendTag(elementTag);
-        }
-
-        tag.setTag("list", list);
-        return tag;
+        return writeElements(elements);
     }
 
     @Override
     public void fromNBT(NBTTagCompound tag) {
-        NBTTagList list = tag.getTagList("list", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal());
-
-        for(int i = 0; i < list.tagCount(); i++) {
-            NBTTagCompound elementTag = list.getCompoundTagAt(i);
-            int dimensionId = elementTag.getInteger("dimension");
-            BlockPos pos = BlockPos.fromLong(elementTag.getLong("pos"));
-            EnumFacing side = null;
-            if (elementTag.hasKey("side", Constants.NBT.TAG_INT)) {
-                side = EnumFacing.VALUES[elementTag.getInteger("side")];
+        readElements(tag, (dimensionId, pos, side) -> {
+            ISidedPathElement element = resolveElement(dimensionId, pos, side);
+            if (element != null) {
+                elements.add(element);
             }
+        });
+    }
 
-            if(!net.minecraftforge.common.DimensionManager.isDimensionRegistered(dimensionId)) {
-                IntegratedDynamics.clog(Level.WARN, String.format("Skipped loading part from a network at the " +
-                        "invalid dimension id %s.", dimensionId));
+    /**
+     * Find the path element at the given stored position.
+     * @param dimensionId The dimension id.
+     * @param posLong The packed block position.
+     * @param side The side, can be null.
+     * @return The sided path element, or null if it could not be found.
+     */
+    @Nullable
+    public static ISidedPathElement resolveElement(int dimensionId, long posLong, @Nullable EnumFacing side) {
+        BlockPos pos = BlockPos.fromLong(posLong);
+        if(!net.minecraftforge.common.DimensionManager.isDimensionRegistered(dimensionId)) {
+            IntegratedDynamics.clog(Level.WARN, String.format("Skipped loading part from a network at the " +
+                    "invalid dimension id %s.", dimensionId));
+        } else {
+            World world = FMLCommonHandler.instance().getMinecraftServerInstance().getWorld(dimensionId);
+            IPathElement pathElement = TileHelpers.getCapability(world, pos, side, PathElementConfig.CAPABILITY);
+            if(pathElement == null) {
+                IntegratedDynamics.clog(Level.WARN, String.format("Skipped loading part from a network at " +
+                        "position %s in world %s because it has no valid path element.", pos, dimensionId));
             } else {
-                World world = FMLCommonHandler.instance().getMinecraftServerInstance().getWorld(dimensionId);
-                IPathElement pathElement = TileHelpers.getCapability(world, pos, side, PathElementConfig.CAPABILITY);
-                if(pathElement == null) {
-                    IntegratedDynamics.clog(Level.WARN, String.format("Skipped loading part from a network at " +
-                            "position %s in world %s because it has no valid path element.", pos, dimensionId));
-                } else {
-                    elements.add(SidedPathElement.of(pathElement, side));
+                return SidedPathElement.of(pathElement, side);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write the given path elements in the compact format.
+     * Elements are grouped per dimension, with their positions in an int array of (high, low) pairs
+     * and their sides in a parallel byte array, where -1 indicates that there is no side.
+     * @param elements The path elements.
+     * @return The NBT tag.
+     */
+    public static NBTTagCompound writeElements(Collection<ISidedPathElement> elements) {
+        return new Snapshot(elements).toNBT();
+    }
+
+    /**
+     * Read path element positions from the given tag.
+     * This supports both the compact format and the older format with one tag per element.
+     * @param tag The NBT tag.
+     * @param consumer The consumer that will receive each element position.
+     */
+    public static void readElements(NBTTagCompound tag, IElementPositionConsumer consumer) {
+        if (tag.hasKey("dimensions", Constants.NBT.TAG_LIST)) {
+            NBTTagList dimensions = tag.getTagList("dimensions", Constants.NBT.TAG_COMPOUND);
+            for (int i = 0; i < dimensions.tagCount(); i++) {
+                NBTTagCompound dimensionTag = dimensions.getCompoundTagAt(i);
+                int dimensionId = dimensionTag.getInteger("dimension");
+                int[] positions = dimensionTag.getIntArray("positions");
+                byte[] sides = dimensionTag.getByteArray("sides");
+                for (int j = 0; j < sides.length; j++) {
+                    long pos = ((long) positions[j * 2] << 32) | (positions[j * 2 + 1] & 0xFFFFFFFFL);
+                    EnumFacing side = sides[j] >= 0 ? EnumFacing.VALUES[sides[j]] : null;
+                    consumer.accept(dimensionId, pos, side);
                 }
             }
+        } else {
+            NBTTagList list = tag.getTagList("list", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal());
+            for(int i = 0; i < list.tagCount(); i++) {
+                NBTTagCompound elementTag = list.getCompoundTagAt(i);
+                EnumFacing side = null;
+                if (elementTag.hasKey("side", Constants.NBT.TAG_INT)) {
+                    side = EnumFacing.VALUES[elementTag.getInteger("side")];
+                }
+                consumer.accept(elementTag.getInteger("dimension"), elementTag.getLong("pos"), side);
+            }
         }
     }
+
+    /**
+     * An immutable copy of the positions and sides of path elements,
+     * which can be written to NBT from any thread.
+     */
+    public static class Snapshot {
+
+        private final int[] dimensionIds;
+        private final long[] positions;
+        private final byte[] sides;
+
+        /**
+         * Copy the positions of the given path elements.
+         * @param elements The path elements.
+         */
+        public Snapshot(Collection<ISidedPathElement> elements) {
+            int size = elements.size();
+            this.dimensionIds = new int[size];
+            this.positions = new long[size];
+            this.sides = new byte[size];
+            int i = 0;
+            for (ISidedPathElement e : elements) {
+                DimPos position = e.getPathElement().getPosition();
+                dimensionIds[i] = position.getDimensionId();
+                positions[i] = position.getBlockPos().toLong();
+                sides[i] = e.getSide() != null ? (byte) e.getSide().ordinal() : -1;
+                i++;
+            }
+        }
+
+        /**
+         * @return The number of path elements.
+         */
+        public int size() {
+            return positions.length;
+        }
+
+        /**
+         * Write the path elements in the compact format.
+         * @return The NBT tag.
+         */
+        public NBTTagCompound toNBT() {
+            TIntObjectMap<TIntList> dimensionElements = new TIntObjectHashMap<>();
+            for (int i = 0; i < positions.length; i++) {
+                TIntList indexes = dimensionElements.get(dimensionIds[i]);
+                if (indexes == null) {
+                    indexes = new TIntArrayList();
+                    dimensionElements.put(dimensionIds[i], indexes);
+                }
+                indexes.add(i);
+            }
+
+            NBTTagList dimensions = new NBTTagList();
+            for (int dimensionId : dimensionElements.keys()) {
+                TIntList indexes = dimensionElements.get(dimensionId);
+                int[] dimensionPositions = new int[indexes.size() * 2];
+                byte[] dimensionSides = new byte[indexes.size()];
+                for (int i = 0; i < indexes.size(); i++) {
+                    int index = indexes.get(i);
+                    long pos = positions[index];
+                    dimensionPositions[i * 2] = (int) (pos >> 32);
+                    dimensionPositions[i * 2 + 1] = (int) pos;
+                    dimensionSides[i] = sides[index];
+                }
+                NBTTagCompound dimensionTag = new NBTTagCompound();
+                dimensionTag.setInteger("dimension", dimensionId);
+                dimensionTag.setIntArray("positions", dimensionPositions);
+                dimensionTag.setByteArray("sides", dimensionSides);
+                dimensions.appendTag(dimensionTag);
+            }
+
+            NBTTagCompound tag = new NBTTagCompound();
+            tag.setTag("dimensions", dimensions);
+            return tag;
+        }
+
+    }
+
+    /**
+     * Receives the stored positions of path elements.
+     */
+    public static interface IElementPositionConsumer {
+        public void accept(int dimensionId, long pos, @Nullable EnumFacing side);
+    }
 }
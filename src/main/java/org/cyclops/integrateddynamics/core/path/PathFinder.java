@@ -1,12 +1,23 @@
 package org.cyclops.integrateddynamics.core.path;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import gnu.trove.impl.Constants;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import org.cyclops.cyclopscore.datastructure.DimPos;
 import org.cyclops.integrateddynamics.api.path.IPathElement;
 import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
 
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 import java.util.TreeSet;
+import java.util.function.Predicate;
 
 /**
  * Algorithm to construct paths/clusters of {@link IPathElement}s.
@@ -14,35 +25,162 @@ import java.util.TreeSet;
  */
 public final class PathFinder {
 
-    protected static TreeSet<ISidedPathElement> getConnectedElements(ISidedPathElement head, Set<DimPos> visitedPositions) {
+    /**
+     * Find all elements connected to the given head using an iterative breadth-first search.
+     * Visited positions are stored as packed longs in primitive sets per dimension,
+     * so the search depth is not limited by the stack size.
+     * @param head The path element to start from.
+     * @return The connected elements, including the head.
+     */
+    protected static TreeSet<ISidedPathElement> getConnectedElements(ISidedPathElement head) {
         TreeSet<ISidedPathElement> elements = Sets.newTreeSet();
+        TIntObjectMap<TLongSet> visitedPositions = new TIntObjectHashMap<>();
+        Deque<ISidedPathElement> queue = new ArrayDeque<>();
 
-        // Make sure to add our head
-        if(!visitedPositions.contains(head.getPathElement().getPosition())) {
-            elements.add(head);
-            visitedPositions.add(head.getPathElement().getPosition());
+        markVisited(visitedPositions, head.getPathElement().getPosition());
+        queue.add(head);
+        ISidedPathElement element;
+        while ((element = queue.poll()) != null) {
+            elements.add(element);
+            for (ISidedPathElement neighbour : element.getPathElement().getReachableElements()) {
+                if (markVisited(visitedPositions, neighbour.getPathElement().getPosition())) {
+                    queue.add(neighbour);
+                }
+            }
+        }
+
+        return elements;
+    }
+
+    private static boolean markVisited(TIntObjectMap<TLongSet> visitedPositions, DimPos position) {
+        TLongSet dimensionPositions = visitedPositions.get(position.getDimensionId());
+        if (dimensionPositions == null) {
+            dimensionPositions = new TLongHashSet();
+            visitedPositions.put(position.getDimensionId(), dimensionPositions);
         }
+        return dimensionPositions.add(position.getBlockPos().toLong());
+    }
+
+    public static Cluster getConnectedCluster(ISidedPathElement head) {
+        return new Cluster(getConnectedElements(head));
+    }
 
-        // Add neighbours that haven't been checked yet.
-        for(ISidedPathElement neighbour : head.getPathElement().getReachableElements()) {
-            if(!visitedPositions.contains(neighbour.getPathElement().getPosition())) {
-                elements.add(neighbour);
-                visitedPositions.add(neighbour.getPathElement().getPosition());
+    /**
+     * Find the clusters that have become disconnected from each other after a connection between path elements
+     * was removed.
+     *
+     * A separate search is started from each head in lockstep.
+     * When two searches meet, they are merged, and when a search runs out of elements,
+     * its cluster is complete and disconnected from all others.
+     * Searching stops as soon as a single search remains,
+     * so only the smaller disconnected parts are traversed, never the remaining main cluster.
+     *
+     * @param heads The path elements that were adjacent to the removed connection.
+     * @param filter Only path elements matching this filter will be traversed.
+     * @return The clusters that were split off, this excludes the last remaining cluster.
+     */
+    public static List<Cluster> getDisconnectedClusters(List<ISidedPathElement> heads,
+                                                        Predicate<ISidedPathElement> filter) {
+        int count = heads.size();
+        int[] parents = new int[count];
+        List<Deque<ISidedPathElement>> queues = Lists.newArrayListWithCapacity(count);
+        List<TreeSet<ISidedPathElement>> components = Lists.newArrayListWithCapacity(count);
+        TIntObjectMap<TLongIntMap> visitedPositions = new TIntObjectHashMap<>();
+        int active = 0;
+
+        for (int i = 0; i < count; i++) {
+            ISidedPathElement head = heads.get(i);
+            parents[i] = i;
+            int visitor = getVisitor(visitedPositions, head.getPathElement().getPosition());
+            if (visitor >= 0) {
+                // Duplicate head, this search is immediately part of the previous one.
+                parents[i] = findRoot(parents, visitor);
+                queues.add(null);
+                components.add(null);
+            } else {
+                setVisitor(visitedPositions, head.getPathElement().getPosition(), i);
+                Deque<ISidedPathElement> queue = new ArrayDeque<>();
+                queue.add(head);
+                TreeSet<ISidedPathElement> component = Sets.newTreeSet();
+                component.add(head);
+                queues.add(queue);
+                components.add(component);
+                active++;
             }
         }
 
-        // Loop over the added neighbours to recursively check their neighbours.
-        Set<ISidedPathElement> neighbourElements = Sets.newHashSet();
-        for(ISidedPathElement addedElement : elements) {
-            neighbourElements.addAll(getConnectedElements(addedElement, visitedPositions));
+        List<Cluster> disconnected = Lists.newArrayList();
+        while (active > 1) {
+            for (int i = 0; i < count && active > 1; i++) {
+                Deque<ISidedPathElement> queue = queues.get(i);
+                if (parents[i] != i || queue == null) {
+                    continue;
+                }
+                ISidedPathElement element = queue.poll();
+                if (element == null) {
+                    // This search is exhausted, so its cluster is not connected to any of the others.
+                    disconnected.add(new Cluster(components.get(i)));
+                    queues.set(i, null);
+                    components.set(i, null);
+                    active--;
+                    continue;
+                }
+                for (ISidedPathElement neighbour : element.getPathElement().getReachableElements()) {
+                    if (!filter.test(neighbour)) {
+                        continue;
+                    }
+                    DimPos position = neighbour.getPathElement().getPosition();
+                    int visitor = getVisitor(visitedPositions, position);
+                    if (visitor < 0) {
+                        setVisitor(visitedPositions, position, i);
+                        queue.add(neighbour);
+                        components.get(i).add(neighbour);
+                    } else {
+                        int root = findRoot(parents, visitor);
+                        if (root != i && queues.get(root) != null) {
+                            // Two searches met, merge the other one into this one.
+                            TreeSet<ISidedPathElement> component = components.get(i);
+                            TreeSet<ISidedPathElement> otherComponent = components.get(root);
+                            if (otherComponent.size() > component.size()) {
+                                components.set(i, otherComponent);
+                                otherComponent.addAll(component);
+                            } else {
+                                component.addAll(otherComponent);
+                            }
+                            queue.addAll(queues.get(root));
+                            parents[root] = i;
+                            queues.set(root, null);
+                            components.set(root, null);
+                            active--;
+                        }
+                    }
+                }
+            }
         }
-        elements.addAll(neighbourElements);
+        return disconnected;
+    }
 
-        return elements;
+    private static int getVisitor(TIntObjectMap<TLongIntMap> visitedPositions, DimPos position) {
+        TLongIntMap dimensionPositions = visitedPositions.get(position.getDimensionId());
+        return dimensionPositions == null ? -1 : dimensionPositions.get(position.getBlockPos().toLong());
     }
 
-    public static Cluster getConnectedCluster(ISidedPathElement head) {
-        return new Cluster(getConnectedElements(head, Sets.<DimPos>newTreeSet()));
+    private static void setVisitor(TIntObjectMap<TLongIntMap> visitedPositions, DimPos position, int visitor) {
+        TLongIntMap dimensionPositions = visitedPositions.get(position.getDimensionId());
+        if (dimensionPositions == null) {
+            dimensionPositions = new TLongIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR,
+                    Constants.DEFAULT_LONG_NO_ENTRY_VALUE, -1);
+            visitedPositions.put(position.getDimensionId(), dimensionPositions);
+        }
+        dimensionPositions.put(position.getBlockPos().toLong(), visitor);
+    }
+
+    private static int findRoot(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
     }
 
 }
@@ -0,0 +1,142 @@
+package org.cyclops.integrateddynamics.core.persist.world;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraftforge.common.util.Constants;
+import org.apache.logging.log4j.Level;
+import org.cyclops.integrateddynamics.IntegratedDynamics;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Writes snapshots of networks to a separate file on a background thread,
+ * so that serializing and compressing them does not pause the server thread.
+ * The file is replaced atomically, so that it always contains a complete save.
+ * Each write is tagged with a generation, so that a reader can detect that the file is not the one it expects,
+ * for example when the server stopped before a write was completed.
+ * @author rubensworks
+ */
+public final class NetworkStorageWriter {
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Integrated Dynamics network writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static Future<?> lastWrite = null;
+    private static volatile boolean lastWriteFailed = false;
+
+    private NetworkStorageWriter() {
+
+    }
+
+    /**
+     * Schedule writing the given network snapshots to a file.
+     * Writes are done in the order in which they were scheduled.
+     * @param file The file to write to.
+     * @param generation The generation of this write, which is stored in the file.
+     * @param snapshots The network snapshots.
+     */
+    public static synchronized void write(File file, long generation, List<Supplier<NBTTagCompound>> snapshots) {
+        lastWrite = WRITER.submit(() -> {
+            long startTime = System.nanoTime();
+            NBTTagList list = new NBTTagList();
+            for (Supplier<NBTTagCompound> snapshot : snapshots) {
+                list.appendTag(snapshot.get());
+            }
+            NBTTagCompound tag = new NBTTagCompound();
+            tag.setLong("generation", generation);
+            tag.setTag("networks", list);
+            try {
+                writeAtomically(file, tag);
+            } catch (IOException e) {
+                lastWriteFailed = true;
+                IntegratedDynamics.clog(Level.ERROR, String.format("Failed to save networks to %s: %s", file, e.getMessage()));
+                e.printStackTrace();
+                return;
+            }
+            lastWriteFailed = false;
+            IntegratedDynamics.clog(Level.DEBUG, String.format("Saved %s networks in %s ms",
+                    snapshots.size(), (System.nanoTime() - startTime) / 1000000));
+        });
+    }
+
+    /**
+     * Block until all scheduled writes are done.
+     */
+    public static synchronized void awaitWrites() {
+        if (lastWrite != null) {
+            try {
+                lastWrite.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+            lastWrite = null;
+        }
+    }
+
+    /**
+     * @return If the last completed write failed, so that the file does not contain the last scheduled generation.
+     */
+    public static boolean hasLastWriteFailed() {
+        return lastWriteFailed;
+    }
+
+    /**
+     * Read the network tags from the given file, after all scheduled writes are done.
+     * @param file The file to read from.
+     * @param generation The generation that the file is expected to contain.
+     * @return The list of network tags.
+     * @throws IOException If the file does not exist, could not be read, or contains another generation.
+     */
+    public static NBTTagList read(File file, long generation) throws IOException {
+        awaitWrites();
+        if (!file.exists()) {
+            throw new IOException(String.format("The file %s does not exist", file));
+        }
+        NBTTagCompound tag;
+        try (InputStream inputStream = new FileInputStream(file)) {
+            tag = CompressedStreamTools.readCompressed(inputStream);
+        }
+        if (tag.getLong("generation") != generation) {
+            throw new IOException(String.format("The file %s contains generation %s instead of %s",
+                    file, tag.getLong("generation"), generation));
+        }
+        return tag.getTagList("networks", Constants.NBT.TAG_COMPOUND);
+    }
+
+    protected static void writeAtomically(File file, NBTTagCompound tag) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (OutputStream outputStream = new FileOutputStream(tempFile)) {
+            CompressedStreamTools.writeCompressed(tag, outputStream);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
@@ -1,17 +1,30 @@
 package org.cyclops.integrateddynamics.core.persist.world;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
+import net.minecraftforge.common.DimensionManager;
+import org.apache.logging.log4j.Level;
 import org.cyclops.cyclopscore.helper.MinecraftHelpers;
 import org.cyclops.cyclopscore.init.ModBase;
 import org.cyclops.cyclopscore.persist.nbt.NBTPersist;
 import org.cyclops.cyclopscore.persist.world.WorldStorage;
+import org.cyclops.integrateddynamics.GeneralConfig;
+import org.cyclops.integrateddynamics.IntegratedDynamics;
+import org.cyclops.integrateddynamics.Reference;
 import org.cyclops.integrateddynamics.api.network.INetwork;
 import org.cyclops.integrateddynamics.core.network.Network;
+import org.cyclops.integrateddynamics.core.network.NetworkRestorer;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * World NBT storage for all active networks.
@@ -23,6 +36,9 @@ public class NetworkWorldStorage extends WorldStorage {
 
     @NBTPersist
     private Set<INetwork> networks = Sets.newHashSet();
+    private volatile List<INetwork> networksSnapshot = null;
+    private long networksFileGeneration = 0;
+    private boolean networksFileUnavailable = false;
 
     private NetworkWorldStorage(ModBase mod) {
         super(mod);
@@ -35,8 +51,58 @@ public class NetworkWorldStorage extends WorldStorage {
         return INSTANCE;
     }
 
+    @Override
+    public void writeGeneratedFieldsToNBT(NBTTagCompound tag) {
+        if (GeneralConfig.asyncNetworkSave && !networksFileUnavailable) {
+            // Only snapshots are taken on the server thread, they are serialized and written by the writer thread.
+            List<INetwork> networks = getNetworks();
+            List<Supplier<NBTTagCompound>> snapshots = Lists.newArrayListWithCapacity(networks.size());
+            for (INetwork network : networks) {
+                if (network instanceof Network) {
+                    snapshots.add(((Network) network).createSnapshot());
+                } else {
+                    NBTTagCompound networkTag = network.toNBT();
+                    snapshots.add(() -> networkTag);
+                }
+            }
+            boolean lastWriteFailed = NetworkStorageWriter.hasLastWriteFailed();
+            // The world refers to this generation, so that a file that was not written completely is detected when loading.
+            networksFileGeneration++;
+            NetworkStorageWriter.write(getNetworksFile(), networksFileGeneration, snapshots);
+            if (!lastWriteFailed) {
+                tag.setBoolean("networksFile", true);
+                tag.setLong("networksFileGeneration", networksFileGeneration);
+                return;
+            }
+            // Also save inline until a write to the file succeeds again, so that the world never refers to a failed file.
+            IntegratedDynamics.clog(Level.WARN, "The last network save to a file failed, saving networks in the world data as well.");
+        }
+        super.writeGeneratedFieldsToNBT(tag);
+    }
+
     @Override
     public void readGeneratedFieldsFromNBT(NBTTagCompound tag) {
+        if (tag.getBoolean("networksFile")) {
+            networks = Sets.newHashSet();
+            networksFileGeneration = tag.getLong("networksFileGeneration");
+            File file = getNetworksFile();
+            try {
+                NBTTagList list = NetworkStorageWriter.read(file, networksFileGeneration);
+                for (int i = 0; i < list.tagCount(); i++) {
+                    Network network = new Network();
+                    network.fromNBT(list.getCompoundTagAt(i));
+                    addLoadedNetwork(network);
+                }
+            } catch (IOException e) {
+                // Keep the file out of the way of the next save, so that it can still be recovered manually.
+                IntegratedDynamics.clog(Level.FATAL, String.format("Failed to load the networks of this world: %s",
+                        e.getMessage()));
+                e.printStackTrace();
+                backupNetworksFile(file);
+            }
+            invalidateSnapshot();
+            return;
+        }
         // TODO: backwards compat, remove in next major MC update.
         if (tag.hasKey("networks", MinecraftHelpers.NBTTag_Types.NBTTagCompound.ordinal())
                 && "org.cyclops.integrateddynamics.core.network.PartNetwork".equals(tag.getCompoundTag("networks").getString("elementType"))) {
@@ -48,17 +114,34 @@ public class NetworkWorldStorage extends WorldStorage {
                     NBTTagCompound entryTag = list.getCompoundTagAt(i);
                     Network network = new Network();
                     network.fromNBT(entryTag.getCompoundTag("element"));
-                    networks.add(network);
+                    addLoadedNetwork(network);
                 }
             }
         } else {
             super.readGeneratedFieldsFromNBT(tag);
         }
+        invalidateSnapshot();
+    }
+
+    /**
+     * Add a loaded network, and give it a new id if another network already has its id.
+     * @param network A loaded network.
+     */
+    protected void addLoadedNetwork(Network network) {
+        if (!networks.add(network)) {
+            network.assignNewId();
+            networks.add(network);
+        }
     }
 
     @Override
-    public void reset() {
+    public synchronized void reset() {
+        NetworkStorageWriter.awaitWrites();
         networks.clear();
+        networksFileGeneration = 0;
+        networksFileUnavailable = false;
+        NetworkRestorer.getInstance().reset();
+        invalidateSnapshot();
     }
 
     @Override
@@ -66,12 +149,31 @@ public class NetworkWorldStorage extends WorldStorage {
         return "Networks";
     }
 
+    protected void backupNetworksFile(File file) {
+        if (file.exists()) {
+            File backupFile = new File(file.getPath() + "." + System.currentTimeMillis() + ".bak");
+            if (file.renameTo(backupFile)) {
+                IntegratedDynamics.clog(Level.FATAL, String.format("Moved the unloadable networks file to %s", backupFile));
+            } else {
+                IntegratedDynamics.clog(Level.FATAL, String.format("Could not move the unloadable networks file %s, " +
+                        "saving networks in the world data instead", file));
+                networksFileUnavailable = true;
+            }
+        }
+    }
+
+    protected File getNetworksFile() {
+        return new File(DimensionManager.getCurrentSaveRootDirectory(), "data/" + Reference.MOD_ID + "_networks.dat");
+    }
+
     /**
      * Add a network that needs persistence.
      * @param network The network.
      */
     public synchronized void addNewNetwork(INetwork network) {
-        networks.add(network);
+        if (networks.add(network)) {
+            invalidateSnapshot();
+        }
     }
 
     /**
@@ -80,26 +182,50 @@ public class NetworkWorldStorage extends WorldStorage {
      * @param network The network.
      */
     public synchronized void removeInvalidatedNetwork(INetwork network) {
-        networks.remove(network);
+        if (networks.remove(network)) {
+            invalidateSnapshot();
+        }
     }
 
     /**
-     * @return A thread-safe copy of the current network set.
+     * The returned list is an immutable snapshot that is only recreated after networks were added or removed,
+     * so it can be iterated safely while networks are being modified.
+     * @return A thread-safe snapshot of the current networks, ordered by network id.
      */
-    public synchronized Set<INetwork> getNetworks() {
-        return Collections.unmodifiableSet(Sets.newHashSet(networks));
+    public List<INetwork> getNetworks() {
+        List<INetwork> snapshot = this.networksSnapshot;
+        if (snapshot == null) {
+            snapshot = createSnapshot();
+        }
+        return snapshot;
+    }
+
+    private synchronized List<INetwork> createSnapshot() {
+        List<INetwork> snapshot = this.networksSnapshot;
+        if (snapshot == null) {
+            INetwork[] networksArray = networks.toArray(new INetwork[networks.size()]);
+            Arrays.sort(networksArray, Comparator.comparingInt(INetwork::getId));
+            snapshot = Collections.unmodifiableList(Arrays.asList(networksArray));
+            this.networksSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    private void invalidateSnapshot() {
+        this.networksSnapshot = null;
     }
 
     @Override
     public void afterLoad() {
-        for(INetwork network : networks) {
+        invalidateSnapshot();
+        for(INetwork network : getNetworks()) {
             network.afterServerLoad();
         }
     }
 
     @Override
     public void beforeSave() {
-        for(INetwork network : networks) {
+        for(INetwork network : getNetworks()) {
             network.beforeServerStop();
         }
     }
@@ -0,0 +1,14 @@
+package org.cyclops.integrateddynamics.core.profiling;
+
+/**
+ * A profiling event that was started, and of which the duration lasts until it is committed.
+ * @author rubensworks
+ */
+public interface IProfilingEvent {
+
+    /**
+     * End this event and record it.
+     */
+    public void commit();
+
+}
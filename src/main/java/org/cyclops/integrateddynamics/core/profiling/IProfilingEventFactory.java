@@ -0,0 +1,58 @@
+package org.cyclops.integrateddynamics.core.profiling;
+
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.integrateddynamics.api.evaluate.operator.IOperator;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.cyclops.integrateddynamics.api.network.INetworkElement;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+
+import javax.annotation.Nullable;
+
+/**
+ * Starts profiling events.
+ * Each method returns null if its event type is not being recorded,
+ * in which case nothing else is done.
+ * @author rubensworks
+ */
+public interface IProfilingEventFactory {
+
+    /**
+     * @param network The network that is being updated.
+     * @return An event for the update of a network in a tick.
+     */
+    @Nullable
+    public IProfilingEvent beginNetworkTick(INetwork network);
+
+    /**
+     * @param network The network in which the element is being updated.
+     * @param element The element that is being updated.
+     * @return An event for the update of a network element.
+     */
+    @Nullable
+    public IProfilingEvent beginElementUpdate(INetwork network, INetworkElement element);
+
+    /**
+     * @param networkId The id of the network that is being observed, or -1 if unknown.
+     * @param component The ingredient component that is being observed.
+     * @param channel The channel.
+     * @param pos The position that is being observed.
+     * @return An event for calculating the ingredient changes at a position.
+     */
+    @Nullable
+    public IProfilingEvent beginObserverDiff(int networkId, IngredientComponent<?, ?> component, int channel, PartPos pos);
+
+    /**
+     * @param operator The operator that is being evaluated.
+     * @return An event for an operator evaluation.
+     */
+    @Nullable
+    public IProfilingEvent beginOperatorEvaluation(IOperator operator);
+
+    /**
+     * @param network The network that is being built from its cables.
+     * @return An event for building a network.
+     */
+    @Nullable
+    public IProfilingEvent beginNetworkRebuild(INetwork network);
+
+}
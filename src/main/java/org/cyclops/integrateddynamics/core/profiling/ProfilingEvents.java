@@ -0,0 +1,90 @@
+package org.cyclops.integrateddynamics.core.profiling;
+
+import org.apache.logging.log4j.Level;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.integrateddynamics.IntegratedDynamics;
+import org.cyclops.integrateddynamics.api.evaluate.operator.IOperator;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.cyclops.integrateddynamics.api.network.INetworkElement;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+
+import javax.annotation.Nullable;
+
+/**
+ * Access to the profiling events of this mod.
+ *
+ * When running on a Java version with Java Flight Recorder, and the mod was built with the JFR events,
+ * events are emitted as JFR events while a recording is active.
+ * Otherwise, no events are created at all.
+ * @author rubensworks
+ */
+public final class ProfilingEvents {
+
+    private static final String JFR_FACTORY = "org.cyclops.integrateddynamics.core.profiling.jfr.JfrProfilingEventFactory";
+    private static final IProfilingEventFactory FACTORY = createFactory();
+
+    private ProfilingEvents() {
+
+    }
+
+    /**
+     * @return The profiling event factory.
+     */
+    public static IProfilingEventFactory get() {
+        return FACTORY;
+    }
+
+    private static IProfilingEventFactory createFactory() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder");
+        } catch (ClassNotFoundException e) {
+            return new Disabled();
+        }
+        try {
+            IProfilingEventFactory factory = (IProfilingEventFactory) Class.forName(JFR_FACTORY).newInstance();
+            IntegratedDynamics.clog(Level.INFO, "Registered Java Flight Recorder events");
+            return factory;
+        } catch (Throwable e) {
+            // The JFR events were not included in this build, or can not be loaded.
+            return new Disabled();
+        }
+    }
+
+    /**
+     * A factory that never creates events.
+     */
+    private static class Disabled implements IProfilingEventFactory {
+
+        @Nullable
+        @Override
+        public IProfilingEvent beginNetworkTick(INetwork network) {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public IProfilingEvent beginElementUpdate(INetwork network, INetworkElement element) {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public IProfilingEvent beginObserverDiff(int networkId, IngredientComponent<?, ?> component, int channel, PartPos pos) {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public IProfilingEvent beginOperatorEvaluation(IOperator operator) {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public IProfilingEvent beginNetworkRebuild(INetwork network) {
+            return null;
+        }
+
+    }
+
+}
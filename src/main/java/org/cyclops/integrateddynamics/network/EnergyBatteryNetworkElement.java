@@ -11,6 +11,7 @@ import org.cyclops.integrateddynamics.api.network.IEnergyNetwork;
 import org.cyclops.integrateddynamics.api.network.INetwork;
 import org.cyclops.integrateddynamics.api.network.INetworkElement;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+import org.cyclops.integrateddynamics.api.network.IPositionedNetworkElement;
 import org.cyclops.integrateddynamics.api.part.PartPos;
 import org.cyclops.integrateddynamics.core.helper.NetworkHelpers;
 import org.cyclops.integrateddynamics.core.network.NetworkElementBase;
@@ -24,7 +25,7 @@ import java.util.List;
  */
 @EqualsAndHashCode(callSuper = false)
 @Data
-public class EnergyBatteryNetworkElement extends NetworkElementBase {
+public class EnergyBatteryNetworkElement extends NetworkElementBase implements IPositionedNetworkElement {
 
     private final DimPos pos;
 
@@ -128,4 +129,9 @@ public class EnergyBatteryNetworkElement extends NetworkElementBase {
         return this.getClass().getCanonicalName().compareTo(o.getClass().getCanonicalName());
     }
 
+    @Override
+    public DimPos getPosition() {
+        return this.pos;
+    }
+
 }
@@ -6,6 +6,7 @@ import org.cyclops.cyclopscore.datastructure.DimPos;
 import org.cyclops.integrateddynamics.api.network.INetwork;
 import org.cyclops.integrateddynamics.api.network.INetworkElement;
 import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+import org.cyclops.integrateddynamics.api.network.IPositionedNetworkElement;
 import org.cyclops.integrateddynamics.core.network.NetworkElementBase;
 
 /**
@@ -14,7 +15,7 @@ import org.cyclops.integrateddynamics.core.network.NetworkElementBase;
  */
 @EqualsAndHashCode(callSuper = false)
 @Data
-public class MechanicalMachineNetworkElement extends NetworkElementBase {
+public class MechanicalMachineNetworkElement extends NetworkElementBase implements IPositionedNetworkElement {
 
     private final DimPos pos;
 
@@ -52,4 +53,9 @@ public class MechanicalMachineNetworkElement extends NetworkElementBase {
         return this.getClass().getCanonicalName().compareTo(o.getClass().getCanonicalName());
     }
 
+    @Override
+    public DimPos getPosition() {
+        return this.pos;
+    }
+
 }
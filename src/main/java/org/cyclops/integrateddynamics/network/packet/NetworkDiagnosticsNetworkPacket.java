@@ -8,11 +8,13 @@ import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 import org.cyclops.cyclopscore.network.CodecField;
 import org.cyclops.cyclopscore.network.PacketCodec;
+import org.cyclops.integrateddynamics.IntegratedDynamics;
 import org.cyclops.integrateddynamics.core.network.diagnostics.GuiNetworkDiagnostics;
 import org.cyclops.integrateddynamics.core.network.diagnostics.RawNetworkData;
 
 /**
  * Packet for subscribing a network update to a player.
+ * This contains either the full network data, or only the changes since the previously sent data.
  * @author rubensworks
  *
  */
@@ -37,11 +39,20 @@ public class NetworkDiagnosticsNetworkPacket extends PacketCodec {
 	@Override
 	@SideOnly(Side.CLIENT)
 	public void actionClient(World world, EntityPlayer player) {
-		RawNetworkData networkData = RawNetworkData.fromNbt(this.networkData);
-		if (networkData.getParts().isEmpty()) {
-			// Force observers to be cleared when no parts are present.
-			networkData.getObservers().clear();
+		RawNetworkData networkData;
+		if (this.networkData.getBoolean("delta")) {
+			RawNetworkData previous = GuiNetworkDiagnostics.getNetworkData(this.networkData.getInteger("id"));
+			if (previous == null) {
+				// The full network was not received, for example because diagnostics were reopened.
+				IntegratedDynamics._instance.getPacketHandler().sendToServer(
+						new NetworkDiagnosticsResendPacket(this.networkData.getInteger("id")));
+				return;
+			}
+			networkData = RawNetworkData.applyDeltaNbt(previous, this.networkData);
+		} else {
+			networkData = RawNetworkData.fromNbt(this.networkData);
 		}
+		// Store exactly what the server sent, as later deltas refer to this data.
 		GuiNetworkDiagnostics.setNetworkData(networkData.getId(), networkData.isKilled() ? null : networkData);
 	}
 
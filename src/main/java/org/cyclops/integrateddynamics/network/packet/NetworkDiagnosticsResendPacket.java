@@ -0,0 +1,47 @@
+package org.cyclops.integrateddynamics.network.packet;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+import org.cyclops.cyclopscore.network.CodecField;
+import org.cyclops.cyclopscore.network.PacketCodec;
+import org.cyclops.integrateddynamics.core.network.diagnostics.NetworkDiagnostics;
+
+/**
+ * Packet for requesting the full data of a network again,
+ * when a change was received for a network that the client does not know.
+ * @author rubensworks
+ *
+ */
+public class NetworkDiagnosticsResendPacket extends PacketCodec {
+
+    @CodecField
+    private int networkId;
+
+    public NetworkDiagnosticsResendPacket() {
+
+    }
+
+    public NetworkDiagnosticsResendPacket(int networkId) {
+		this.networkId = networkId;
+    }
+
+	@Override
+	public boolean isAsync() {
+		return false;
+	}
+
+	@Override
+	@SideOnly(Side.CLIENT)
+	public void actionClient(World world, EntityPlayer player) {
+		
+	}
+
+	@Override
+	public void actionServer(World world, EntityPlayerMP player) {
+		NetworkDiagnostics.getInstance().resendNetwork(player, networkId);
+	}
+	
+}
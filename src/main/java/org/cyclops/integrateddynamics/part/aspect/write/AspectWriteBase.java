@@ -18,6 +18,7 @@ import org.cyclops.integrateddynamics.api.part.aspect.IAspectWrite;
 import org.cyclops.integrateddynamics.api.part.aspect.property.IAspectProperties;
 import org.cyclops.integrateddynamics.api.part.write.IPartStateWriter;
 import org.cyclops.integrateddynamics.api.part.write.IPartTypeWriter;
+import org.cyclops.integrateddynamics.core.network.diagnostics.EvaluationProfiler;
 import org.cyclops.integrateddynamics.part.aspect.AspectBase;
 import org.cyclops.integrateddynamics.part.aspect.Aspects;
 
@@ -53,6 +54,10 @@ public abstract class AspectWriteBase<V extends IValue, T extends IValueType<V>>
             if(writerState.isDeactivated() || writerState.checkAndResetFirstTick()) {
                 onActivate(partTypeWriter, target, writerState);
             }
+            EvaluationProfiler profiler = EvaluationProfiler.getInstance();
+            if (profiler.isEnabled()) {
+                profiler.recordRootVariable(target.getCenter(), variable);
+            }
             try {
                 write(partTypeWriter, target, writerState, variable);
             } catch (EvaluationException e) {
@@ -4,12 +4,17 @@ import net.minecraft.block.Block;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraftforge.energy.CapabilityEnergy;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
 import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
 import org.cyclops.cyclopscore.persist.nbt.NBTPersist;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
 import org.cyclops.integrateddynamics.api.network.INetworkElement;
 import org.cyclops.integrateddynamics.block.BlockEnergyBatteryBase;
 import org.cyclops.integrateddynamics.block.BlockEnergyBatteryConfig;
 import org.cyclops.integrateddynamics.capability.energystorage.IEnergyStorageCapacity;
+import org.cyclops.integrateddynamics.capability.ingredient.IngredientComponentStorageChangeNotifierConfig;
+import org.cyclops.integrateddynamics.capability.ingredient.IngredientComponentStorageChangeNotifierDefault;
 import org.cyclops.integrateddynamics.capability.networkelementprovider.NetworkElementProviderConfig;
 import org.cyclops.integrateddynamics.capability.networkelementprovider.NetworkElementProviderSingleton;
 import org.cyclops.integrateddynamics.core.helper.EnergyHelpers;
@@ -28,6 +33,9 @@ public class TileEnergyBattery extends TileCableConnectable implements IEnergySt
     @NBTPersist(useDefaultValue = false)
     private int capacity = BlockEnergyBatteryConfig.capacity;
 
+    private final IngredientComponentStorageChangeNotifierDefault changeNotifier =
+            new IngredientComponentStorageChangeNotifierDefault(IngredientComponent.ENERGY);
+
     public TileEnergyBattery() {
         addCapabilityInternal(NetworkElementProviderConfig.CAPABILITY, new NetworkElementProviderSingleton() {
             @Override
@@ -36,6 +44,7 @@ public class TileEnergyBattery extends TileCableConnectable implements IEnergySt
             }
         });
         addCapabilityInternal(CapabilityEnergy.ENERGY, this);
+        addCapabilityInternal(IngredientComponentStorageChangeNotifierConfig.CAPABILITY, changeNotifier);
     }
 
     public boolean isCreative() {
@@ -72,10 +81,38 @@ public class TileEnergyBattery extends TileCableConnectable implements IEnergySt
                 this.energy = energy;
                 markDirty();
                 sendUpdate();
+                notifyEnergyChange(lastEnergy, energy);
             }
         }
     }
 
+    /**
+     * Let the ingredient networks that listen to this battery know about an energy change.
+     * @param lastEnergy The previous energy.
+     * @param energy The new energy.
+     */
+    protected void notifyEnergyChange(int lastEnergy, int energy) {
+        if (changeNotifier.hasListeners(IngredientComponent.ENERGY)) {
+            IngredientCollectionPrototypeMap<Integer, Boolean> instances = new IngredientCollectionPrototypeMap<>(IngredientComponent.ENERGY);
+            instances.add(Math.abs(energy - lastEnergy));
+            changeNotifier.notifyChange(IngredientComponent.ENERGY, energy > lastEnergy
+                    ? IIngredientComponentStorageObservable.Change.ADDITION
+                    : IIngredientComponentStorageObservable.Change.DELETION, instances);
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        changeNotifier.invalidate();
+    }
+
+    @Override
+    public void onChunkUnload() {
+        super.onChunkUnload();
+        changeNotifier.invalidate();
+    }
+
     @Override
     protected int getUpdateBackoffTicks() {
         return 20;
@@ -0,0 +1,254 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.commoncapabilities.api.ingredient.storage.IIngredientComponentStorage;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.cyclopscore.ingredient.collection.IngredientCollectionPrototypeMap;
+import org.cyclops.integrateddynamics.api.ingredient.IIngredientComponentStorageObservable;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetwork;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients.TransferOperation;
+import org.cyclops.integrateddynamics.api.network.IPositionedAddonsNetworkIngredients.TransferResult;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test batched transfers in ingredient networks.
+ * @author rubensworks
+ */
+public class TestIngredientChannelBatch {
+
+    private static final int CHANNEL = IPositionedAddonsNetwork.DEFAULT_CHANNEL;
+    private static final PartPos POS_A = PartPos.of(DimPos.of(0, new BlockPos(0, 0, 0)), null);
+    private static final PartPos POS_B = PartPos.of(DimPos.of(0, new BlockPos(1, 0, 0)), null);
+
+    private EnergyNetworkStub network;
+
+    @Before
+    public void before() {
+        network = new EnergyNetworkStub();
+    }
+
+    private void addStorage(PartPos pos, EnergyStorageStub storage) {
+        network.addPosition(pos, 0, CHANNEL);
+        network.addStorage(pos, storage);
+        if (storage.energy > 0) {
+            IngredientCollectionPrototypeMap<Integer, Boolean> instances = new IngredientCollectionPrototypeMap<>(IngredientComponent.ENERGY, false);
+            instances.add(storage.energy);
+            network.onChange(new IIngredientComponentStorageObservable.StorageChangeEvent<>(CHANNEL,
+                    PrioritizedPartPos.of(pos, 0), IIngredientComponentStorageObservable.Change.ADDITION, false, instances));
+        }
+    }
+
+    private static List<TransferOperation<Integer, Boolean>> operations(long... quantities) {
+        List<TransferOperation<Integer, Boolean>> operations = Lists.newArrayList();
+        for (long quantity : quantities) {
+            operations.add(new TransferOperation<>(1, quantity, false));
+        }
+        return operations;
+    }
+
+    @Test
+    public void testInsertBatchCommit() {
+        EnergyStorageStub storageA = new EnergyStorageStub(100, 0);
+        EnergyStorageStub storageB = new EnergyStorageStub(100, 0);
+        addStorage(POS_A, storageA);
+        addStorage(POS_B, storageB);
+
+        TransferResult<Integer> result = network.insertBatch(CHANNEL, operations(60, 80));
+        assertThat(result.isCommitted(), is(true));
+        assertThat(result.getInstances(), is(Lists.newArrayList(60, 80)));
+        assertThat(storageA.energy + storageB.energy, is(140));
+    }
+
+    @Test
+    public void testInsertBatchRollback() {
+        EnergyStorageStub storageA = new EnergyStorageStub(100, 0);
+        EnergyStorageStub storageB = new EnergyStorageStub(100, 0);
+        addStorage(POS_A, storageA);
+        addStorage(POS_B, storageB);
+
+        TransferResult<Integer> result = network.insertBatch(CHANNEL, operations(150, 100));
+        assertThat(result.isCommitted(), is(false));
+        assertThat(result.getInstances(), is(Lists.newArrayList(0, 0)));
+        assertThat(storageA.energy, is(0));
+        assertThat(storageB.energy, is(0));
+    }
+
+    @Test
+    public void testInsertBatchPartialUndo() {
+        EnergyStorageStub storageA = new EnergyStorageStub(50, 0, false);
+        EnergyStorageStub storageB = new EnergyStorageStub(50, 0, false);
+        addStorage(POS_A, storageA);
+        addStorage(POS_B, storageB);
+
+        // Nothing can be extracted again, so all inserted instances must be returned
+        TransferResult<Integer> result = network.insertBatch(CHANNEL, operations(80, 50));
+        assertThat(result.isCommitted(), is(false));
+        assertThat(result.getInstances(), is(Lists.newArrayList(80, 20)));
+        assertThat(storageA.energy + storageB.energy, is(100));
+    }
+
+    @Test
+    public void testInsertBatchRateLimit() {
+        EnergyStorageStub storageA = new EnergyStorageStub(100, 0);
+        addStorage(POS_A, storageA);
+        network.rateLimit = 100;
+
+        TransferResult<Integer> result = network.insertBatch(CHANNEL, operations(60, 50));
+        assertThat(result.isCommitted(), is(false));
+        assertThat(result.getInstances(), is(Lists.newArrayList(0, 0)));
+        assertThat(storageA.energy, is(0));
+    }
+
+    @Test
+    public void testExtractBatchCommit() {
+        EnergyStorageStub storageA = new EnergyStorageStub(100, 50);
+        EnergyStorageStub storageB = new EnergyStorageStub(100, 50);
+        addStorage(POS_A, storageA);
+        addStorage(POS_B, storageB);
+
+        TransferResult<Integer> result = network.extractBatch(CHANNEL, operations(30, 40));
+        assertThat(result.isCommitted(), is(true));
+        assertThat(result.getInstances(), is(Lists.newArrayList(30, 40)));
+        assertThat(storageA.energy + storageB.energy, is(30));
+    }
+
+    @Test
+    public void testExtractBatchRollback() {
+        EnergyStorageStub storageA = new EnergyStorageStub(100, 50);
+        EnergyStorageStub storageB = new EnergyStorageStub(100, 50);
+        addStorage(POS_A, storageA);
+        addStorage(POS_B, storageB);
+
+        TransferResult<Integer> result = network.extractBatch(CHANNEL, operations(60, 50));
+        assertThat(result.isCommitted(), is(false));
+        assertThat(result.getInstances(), is(Lists.newArrayList(0, 0)));
+        assertThat(storageA.energy, is(50));
+        assertThat(storageB.energy, is(50));
+    }
+
+    @Test
+    public void testExtractBatchRateLimit() {
+        EnergyStorageStub storageA = new EnergyStorageStub(100, 100);
+        addStorage(POS_A, storageA);
+        network.rateLimit = 100;
+
+        TransferResult<Integer> result = network.extractBatch(CHANNEL, operations(60, 50));
+        assertThat(result.isCommitted(), is(false));
+        assertThat(result.getInstances(), is(Lists.newArrayList(0, 0)));
+        assertThat(storageA.energy, is(100));
+    }
+
+    /**
+     * An energy network of which the storages are looked up in memory instead of in a world.
+     */
+    public static class EnergyNetworkStub extends EnergyNetwork {
+
+        private final Map<PartPos, IIngredientComponentStorage<Integer, Boolean>> storages = Maps.newHashMap();
+        private long rateLimit = Long.MAX_VALUE;
+
+        public EnergyNetworkStub() {
+            super(IngredientComponent.ENERGY);
+        }
+
+        public void addStorage(PartPos pos, IIngredientComponentStorage<Integer, Boolean> storage) {
+            storages.put(pos, storage);
+        }
+
+        @Override
+        public IIngredientComponentStorage<Integer, Boolean> getPositionedStorageUnsafe(PartPos pos) {
+            return storages.get(pos);
+        }
+
+        @Override
+        public long getRateLimit() {
+            return rateLimit;
+        }
+    }
+
+    /**
+     * An in-memory energy storage.
+     */
+    public static class EnergyStorageStub implements IIngredientComponentStorage<Integer, Boolean> {
+
+        private final int capacity;
+        private final boolean canExtract;
+        private int energy;
+
+        public EnergyStorageStub(int capacity, int energy, boolean canExtract) {
+            this.capacity = capacity;
+            this.energy = energy;
+            this.canExtract = canExtract;
+        }
+
+        public EnergyStorageStub(int capacity, int energy) {
+            this(capacity, energy, true);
+        }
+
+        @Override
+        public IngredientComponent<Integer, Boolean> getComponent() {
+            return IngredientComponent.ENERGY;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return energy > 0 ? Iterators.singletonIterator(energy) : Collections.emptyIterator();
+        }
+
+        @Override
+        public Iterator<Integer> iterator(@Nonnull Integer prototype, Boolean matchCondition) {
+            return getComponent().getMatcher().matches(prototype, energy, matchCondition)
+                    ? iterator() : Collections.emptyIterator();
+        }
+
+        @Override
+        public long getMaxQuantity() {
+            return capacity;
+        }
+
+        @Override
+        public Integer insert(@Nonnull Integer ingredient, boolean simulate) {
+            int inserted = Math.min(ingredient, capacity - energy);
+            if (!simulate) {
+                energy += inserted;
+            }
+            return ingredient - inserted;
+        }
+
+        @Override
+        public Integer extract(@Nonnull Integer prototype, Boolean matchCondition, boolean simulate) {
+            if (matchCondition && prototype > energy) {
+                return 0;
+            }
+            return extract(prototype, simulate);
+        }
+
+        @Override
+        public Integer extract(long maxQuantity, boolean simulate) {
+            if (!canExtract) {
+                return 0;
+            }
+            int extracted = (int) Math.min(maxQuantity, energy);
+            if (!simulate) {
+                energy -= extracted;
+            }
+            return extracted;
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import net.minecraft.util.math.BlockPos;
+import org.apache.commons.lang3.tuple.Pair;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the planning of extractions from indexed quantities.
+ * @author rubensworks
+ */
+public class TestIngredientExtractionPlanner {
+
+    private static final PartPos POS_A = PartPos.of(DimPos.of(0, new BlockPos(0, 0, 0)), null);
+    private static final PartPos POS_B = PartPos.of(DimPos.of(0, new BlockPos(1, 0, 0)), null);
+    private static final PartPos POS_C = PartPos.of(DimPos.of(0, new BlockPos(2, 0, 0)), null);
+    private static final PartPos POS_EMPTY = PartPos.of(DimPos.of(0, new BlockPos(3, 0, 0)), null);
+
+    private IngredientPositionsIndex<Integer, Boolean> index;
+    private IngredientExtractionPlanner<Integer, Boolean> planner;
+
+    @Before
+    public void before() {
+        index = new IngredientPositionsIndex<>(IngredientComponent.ENERGY);
+        planner = new IngredientExtractionPlanner<>(index);
+    }
+
+    private void addEnergy(PartPos pos, int quantity) {
+        index.add(quantity);
+        index.addPosition(quantity, PrioritizedPartPos.of(pos, 0));
+    }
+
+    private static Iterator<PartPos> positions(PartPos... positions) {
+        return Lists.newArrayList(positions).iterator();
+    }
+
+    private static List<Pair<PartPos, Long>> steps(Object... steps) {
+        List<Pair<PartPos, Long>> list = Lists.newArrayList();
+        for (int i = 0; i < steps.length; i += 2) {
+            list.add(Pair.of((PartPos) steps[i], (Long) steps[i + 1]));
+        }
+        return list;
+    }
+
+    @Test
+    public void testPlanEmptyIndex() {
+        IngredientExtractionPlanner.Plan<Integer> plan = planner.plan(10, false, 10, positions(POS_A, POS_B));
+        assertThat(plan.getQuantity(), is(0L));
+        assertThat(plan.getPositions(), is(Collections.emptyList()));
+    }
+
+    @Test
+    public void testPlanSinglePosition() {
+        addEnergy(POS_A, 10);
+        addEnergy(POS_B, 20);
+
+        IngredientExtractionPlanner.Plan<Integer> plan = planner.plan(5, false, 5, positions(POS_A, POS_B));
+        assertThat(plan.getInstance(), is(1));
+        assertThat(plan.getQuantity(), is(5L));
+        assertThat(plan.getPositions(), is(steps(POS_A, 5L)));
+    }
+
+    @Test
+    public void testPlanMultiplePositions() {
+        addEnergy(POS_A, 10);
+        addEnergy(POS_B, 20);
+        addEnergy(POS_C, 5);
+
+        IngredientExtractionPlanner.Plan<Integer> plan = planner.plan(25, false, 25, positions(POS_A, POS_B, POS_C));
+        assertThat(plan.getQuantity(), is(25L));
+        assertThat(plan.getPositions(), is(steps(POS_A, 10L, POS_B, 15L)));
+    }
+
+    @Test
+    public void testPlanPositionOrder() {
+        addEnergy(POS_A, 10);
+        addEnergy(POS_B, 20);
+        addEnergy(POS_C, 5);
+
+        IngredientExtractionPlanner.Plan<Integer> plan = planner.plan(10, false, 10, positions(POS_C, POS_B, POS_A));
+        assertThat(plan.getQuantity(), is(10L));
+        assertThat(plan.getPositions(), is(steps(POS_C, 5L, POS_B, 5L)));
+    }
+
+    @Test
+    public void testPlanSkipsEmptyPositions() {
+        addEnergy(POS_A, 10);
+
+        IngredientExtractionPlanner.Plan<Integer> plan = planner.plan(10, false, 10, positions(POS_EMPTY, POS_A));
+        assertThat(plan.getQuantity(), is(10L));
+        assertThat(plan.getPositions(), is(steps(POS_A, 10L)));
+    }
+
+    @Test
+    public void testPlanInsufficient() {
+        addEnergy(POS_A, 10);
+        addEnergy(POS_B, 20);
+
+        IngredientExtractionPlanner.Plan<Integer> plan = planner.plan(100, false, 100, positions(POS_A, POS_B));
+        assertThat(plan.getQuantity(), is(30L));
+        assertThat(plan.getPositions(), is(steps(POS_A, 10L, POS_B, 20L)));
+    }
+
+    @Test
+    public void testPlanOnlyGivenPositions() {
+        addEnergy(POS_A, 10);
+        addEnergy(POS_B, 20);
+
+        IngredientExtractionPlanner.Plan<Integer> plan = planner.plan(30, false, 30, positions(POS_B));
+        assertThat(plan.getQuantity(), is(20L));
+        assertThat(plan.getPositions(), is(steps(POS_B, 20L)));
+    }
+
+    @Test
+    public void testPlanAfterRemovedQuantity() {
+        addEnergy(POS_A, 10);
+        addEnergy(POS_B, 20);
+        index.remove(8);
+        index.removePositionQuantity(8, PrioritizedPartPos.of(POS_A, 0));
+
+        IngredientExtractionPlanner.Plan<Integer> plan = planner.plan(10, false, 10, positions(POS_A, POS_B));
+        assertThat(plan.getPositions(), is(steps(POS_A, 2L, POS_B, 8L)));
+    }
+
+}
@@ -0,0 +1,110 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.commoncapabilities.api.ingredient.IngredientComponent;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.part.PartPos;
+import org.cyclops.integrateddynamics.api.part.PrioritizedPartPos;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the quantities per position in the ingredient positions index.
+ * @author rubensworks
+ */
+public class TestIngredientPositionsIndex {
+
+    private static final PartPos POS_A = PartPos.of(DimPos.of(0, new BlockPos(0, 0, 0)), null);
+    private static final PartPos POS_B = PartPos.of(DimPos.of(0, new BlockPos(1, 0, 0)), null);
+
+    private IngredientPositionsIndex<Integer, Boolean> index;
+
+    @Before
+    public void before() {
+        index = new IngredientPositionsIndex<>(IngredientComponent.ENERGY);
+    }
+
+    @Test
+    public void testHasPositionQuantities() {
+        assertThat(index.hasPositionQuantities(), is(true));
+        assertThat(new IngredientPositionsIndexEmpty<>(IngredientComponent.ENERGY).hasPositionQuantities(), is(false));
+    }
+
+    @Test
+    public void testGetPositionQuantityEmpty() {
+        assertThat(index.getPositionQuantity(1, POS_A), is(0L));
+    }
+
+    @Test
+    public void testAddPosition() {
+        index.addPosition(10, PrioritizedPartPos.of(POS_A, 0));
+        index.addPosition(5, PrioritizedPartPos.of(POS_A, 0));
+        index.addPosition(20, PrioritizedPartPos.of(POS_B, 0));
+
+        assertThat(index.getPositionQuantity(1, POS_A), is(15L));
+        assertThat(index.getPositionQuantity(1, POS_B), is(20L));
+    }
+
+    @Test
+    public void testRemovePositionQuantity() {
+        index.addPosition(10, PrioritizedPartPos.of(POS_A, 0));
+        index.addPosition(20, PrioritizedPartPos.of(POS_B, 0));
+
+        index.removePositionQuantity(4, PrioritizedPartPos.of(POS_A, 0));
+        assertThat(index.getPositionQuantity(1, POS_A), is(6L));
+        assertThat(index.getPositionQuantity(1, POS_B), is(20L));
+
+        index.removePositionQuantity(100, PrioritizedPartPos.of(POS_A, 0));
+        assertThat(index.getPositionQuantity(1, POS_A), is(0L));
+    }
+
+    @Test
+    public void testRemovePositionQuantityPrunesEmpty() {
+        index.addPosition(10, PrioritizedPartPos.of(POS_A, 0));
+
+        index.removePositionQuantity(10, PrioritizedPartPos.of(POS_A, 0));
+        assertThat(index.getPositionQuantity(1, POS_A), is(0L));
+        assertThat(index.getPositionInstances(POS_A).hasNext(), is(false));
+    }
+
+    @Test
+    public void testRemovePositionQuantityUnknown() {
+        index.removePositionQuantity(4, PrioritizedPartPos.of(POS_A, 0));
+        assertThat(index.getPositionQuantity(1, POS_A), is(0L));
+    }
+
+    @Test
+    public void testRemovePosition() {
+        index.addPosition(10, PrioritizedPartPos.of(POS_A, 0));
+        index.addPosition(20, PrioritizedPartPos.of(POS_B, 0));
+
+        index.removePosition(10, PrioritizedPartPos.of(POS_A, 0));
+        assertThat(index.getPositionQuantity(1, POS_A), is(0L));
+        assertThat(index.getPositionQuantity(1, POS_B), is(20L));
+    }
+
+    @Test
+    public void testGetPositionInstances() {
+        index.addPosition(10, PrioritizedPartPos.of(POS_A, 0));
+
+        assertThat(Lists.newArrayList(index.getPositionInstances(POS_A)), is(Lists.newArrayList(1)));
+        assertThat(index.getPositionInstances(POS_B).hasNext(), is(false));
+
+        index.removePosition(10, PrioritizedPartPos.of(POS_A, 0));
+        assertThat(index.getPositionInstances(POS_A).hasNext(), is(false));
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        IngredientPositionsIndexEmpty<Integer, Boolean> empty = new IngredientPositionsIndexEmpty<>(IngredientComponent.ENERGY);
+        empty.addPosition(10, PrioritizedPartPos.of(POS_A, 0));
+        empty.removePositionQuantity(10, PrioritizedPartPos.of(POS_A, 0));
+        assertThat(empty.getPositionQuantity(1, POS_A), is(0L));
+        assertThat(empty.getPositionInstances(POS_A).hasNext(), is(false));
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.network.INetwork;
+import org.cyclops.integrateddynamics.api.network.INetworkElement;
+import org.cyclops.integrateddynamics.api.network.IPositionedNetworkElement;
+import org.cyclops.integrateddynamics.core.path.Cluster;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the identification of networks and their position index.
+ * @author rubensworks
+ */
+public class TestNetwork {
+
+    @Test
+    public void testDistinctIds() {
+        Network networkA = new Network();
+        Network networkB = new Network(new Cluster());
+        Network networkC = new Network(new Cluster());
+        assertThat("networks have distinct ids", networkA.getId(), not(networkB.getId()));
+        assertThat("networks have distinct ids", networkB.getId(), not(networkC.getId()));
+        assertThat("networks in sequence are not equal", networkA.equals(networkB), is(false));
+        assertThat("networks in sequence are not equal", networkB.equals(networkC), is(false));
+    }
+
+    @Test
+    public void testAssignNewId() {
+        Network networkA = new Network(new Cluster());
+        Network networkB = new Network(new Cluster());
+        int id = networkA.getId();
+        networkA.assignNewId();
+        assertThat("the new id differs", networkA.getId(), not(id));
+        assertThat("the new id is not taken", networkA.getId(), not(networkB.getId()));
+    }
+
+    @Test
+    public void testRemoveElementPositionOtherInstance() {
+        Network network = new Network(new Cluster());
+        DimPos pos = DimPos.of(0, new BlockPos(0, 0, 0));
+        DummyPositionedElement elementA = new DummyPositionedElement(pos);
+        DummyPositionedElement elementB = new DummyPositionedElement(DimPos.of(0, new BlockPos(1, 0, 0)));
+        network.addElementPosition(elementA);
+        network.addElementPosition(elementB);
+
+        // A new instance for the same element, as created by a network element provider
+        network.removeElementPosition(new DummyPositionedElement(pos));
+        assertThat("the indexed instance is removed", network.getElementsAt(pos).isEmpty(), is(true));
+        assertThat("other positions are untouched", network.getElementsAt(elementB.getPosition()).size(), is(1));
+    }
+
+    /**
+     * A positioned element that is only equal to itself, but compares by position.
+     */
+    private static class DummyPositionedElement extends NetworkElementBase implements IPositionedNetworkElement {
+
+        private final DimPos pos;
+
+        public DummyPositionedElement(DimPos pos) {
+            this.pos = pos;
+        }
+
+        @Override
+        public DimPos getPosition() {
+            return this.pos;
+        }
+
+        @Override
+        public void setPriorityAndChannel(INetwork network, int priority, int channel) {
+
+        }
+
+        @Override
+        public int getPriority() {
+            return 0;
+        }
+
+        @Override
+        public int getChannel() {
+            return 0;
+        }
+
+        @Override
+        public boolean canRevalidate(INetwork network) {
+            return true;
+        }
+
+        @Override
+        public int compareTo(INetworkElement o) {
+            if (o instanceof DummyPositionedElement) {
+                return getPosition().compareTo(((DummyPositionedElement) o).getPosition());
+            }
+            return this.getClass().getCanonicalName().compareTo(o.getClass().getCanonicalName());
+        }
+    }
+
+}
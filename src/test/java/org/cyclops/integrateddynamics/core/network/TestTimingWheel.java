@@ -0,0 +1,160 @@
+package org.cyclops.integrateddynamics.core.network;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the timing wheel scheduler.
+ * @author rubensworks
+ */
+public class TestTimingWheel {
+
+    private TimingWheel<Integer> wheel;
+
+    @Before
+    public void before() {
+        wheel = new TimingWheel<>(0);
+    }
+
+    private List<Integer> advance() {
+        List<Integer> elements = Lists.newArrayList();
+        for (TimingWheel.Entry<Integer> entry : wheel.advance()) {
+            elements.add(entry.getElement());
+        }
+        return elements;
+    }
+
+    private long advanceUntilDue(int element) {
+        for (int i = 0; i < 1000000; i++) {
+            long tick = wheel.getTick();
+            if (advance().contains(element)) {
+                return tick;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testDueNow() {
+        wheel.schedule(1, 0);
+        assertThat("element is due in the current tick", advance(), is(Lists.newArrayList(1)));
+        assertThat("element is not due anymore", advance().isEmpty(), is(true));
+        assertThat("wheel is empty", wheel.size(), is(0));
+    }
+
+    @Test
+    public void testPastIsDueNow() {
+        wheel.schedule(1, 10);
+        advanceUntilDue(1);
+        wheel.schedule(2, 3);
+        assertThat("past ticks are moved to the current tick", advance(), is(Lists.newArrayList(2)));
+    }
+
+    @Test
+    public void testOrderWithinTick() {
+        wheel.schedule(3, 5);
+        wheel.schedule(1, 5);
+        wheel.schedule(2, 5);
+        for (int i = 0; i < 5; i++) {
+            assertThat("nothing due before tick 5", advance().isEmpty(), is(true));
+        }
+        assertThat("elements are sorted within a tick", advance(), is(Lists.newArrayList(1, 2, 3)));
+    }
+
+    @Test
+    public void testCascade() {
+        long[] dueTicks = new long[]{63, 64, 65, 4095, 4096, 4097, 262143, 262144, 300000};
+        for (int i = 0; i < dueTicks.length; i++) {
+            wheel.schedule(i, dueTicks[i]);
+        }
+        for (int i = 0; i < dueTicks.length; i++) {
+            assertThat("element " + i + " is due at its tick", advanceUntilDue(i), is(dueTicks[i]));
+        }
+    }
+
+    @Test
+    public void testCascadeFromOffset() {
+        wheel = new TimingWheel<>(100);
+        wheel.schedule(1, 100 + 20);
+        wheel.schedule(2, 100 + 5000);
+        assertThat("element 1 is due at its tick", advanceUntilDue(1), is(120L));
+        assertThat("element 2 is due at its tick", advanceUntilDue(2), is(5100L));
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheel.Entry<Integer> entry = wheel.schedule(1, 100);
+        wheel.schedule(2, 100);
+        wheel.cancel(entry);
+        assertThat("cancelled entry is not counted", wheel.size(), is(1));
+        assertThat("only the other element is due", advanceUntilDue(2), is(100L));
+        assertThat("cancelled entry is cancelled", entry.isCancelled(), is(true));
+    }
+
+    @Test
+    public void testReschedule() {
+        TimingWheel.Entry<Integer> entry = wheel.schedule(1, 0);
+        wheel.advance();
+        wheel.reschedule(entry, 20);
+        assertThat("rescheduled element is due at its new tick", advanceUntilDue(1), is(20L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRescheduleScheduled() {
+        TimingWheel.Entry<Integer> entry = wheel.schedule(1, 0);
+        wheel.reschedule(entry, 20);
+    }
+
+    @Test
+    public void testNextDueTick() {
+        assertThat("empty wheel has no next tick", wheel.getNextDueTick(), is(Long.MAX_VALUE));
+        TimingWheel.Entry<Integer> entry = wheel.schedule(1, 10);
+        wheel.schedule(2, 5000);
+        assertThat("next tick is the earliest tick", wheel.getNextDueTick(), is(10L));
+        wheel.cancel(entry);
+        assertThat("next tick ignores cancelled entries", wheel.getNextDueTick(), is(5000L));
+    }
+
+    @Test
+    public void testSkip() {
+        wheel.schedule(1, 5000);
+        assertThat("no elements are due while skipping", wheel.skip(4999).isEmpty(), is(true));
+        assertThat("tick has moved", wheel.getTick(), is(4999L));
+        assertThat("element is due after skipping", advanceUntilDue(1), is(5000L));
+    }
+
+    @Test
+    public void testSkipLarge() {
+        long day = 20 * 60 * 60 * 24;
+        wheel.schedule(3, 100);
+        wheel.schedule(2, 300000);
+        wheel.schedule(1, 300000);
+        wheel.schedule(4, day + 10);
+        wheel.cancel(wheel.schedule(5, 200));
+
+        List<Integer> due = Lists.newArrayList();
+        for (TimingWheel.Entry<Integer> entry : wheel.skip(day)) {
+            due.add(entry.getElement());
+        }
+        assertThat("due elements are returned in the order they were due", due, is(Lists.newArrayList(3, 1, 2)));
+        assertThat("tick has moved", wheel.getTick(), is(day));
+        assertThat("only the later element remains", wheel.size(), is(1));
+        assertThat("later element is due at its tick", advanceUntilDue(4), is(day + 10));
+    }
+
+    @Test
+    public void testSkipLargeEmpty() {
+        wheel.cancel(wheel.schedule(1, 10));
+        assertThat("nothing is due", wheel.skip(1000000).isEmpty(), is(true));
+        assertThat("tick has moved", wheel.getTick(), is(1000000L));
+        wheel.schedule(2, 1000005);
+        assertThat("new elements are due at their tick", advanceUntilDue(2), is(1000005L));
+    }
+
+}
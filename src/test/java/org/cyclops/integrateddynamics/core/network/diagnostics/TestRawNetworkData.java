@@ -0,0 +1,83 @@
+package org.cyclops.integrateddynamics.core.network.diagnostics;
+
+import com.google.common.collect.Lists;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the delta encoding of network diagnostics data.
+ * @author rubensworks
+ */
+public class TestRawNetworkData {
+
+    private static RawPartData part(int x, long duration) {
+        return new RawPartData(0, new BlockPos(x, 0, 0), EnumFacing.NORTH, "part", duration);
+    }
+
+    private static RawObserverData observer(int x, long duration) {
+        return new RawObserverData(0, new BlockPos(x, 0, 0), null, "minecraft:itemstack", duration);
+    }
+
+    @Test
+    public void testUnchanged() {
+        RawNetworkData data = new RawNetworkData(false, 1, 10, 0,
+                Lists.newArrayList(part(0, 10), part(1, 20)), Lists.newArrayList(observer(0, 5)));
+        RawNetworkData same = new RawNetworkData(false, 1, 10, 0,
+                Lists.newArrayList(part(0, 10), part(1, 20)), Lists.newArrayList(observer(0, 5)));
+        assertThat(same.toDeltaNbt(data), nullValue());
+    }
+
+    @Test
+    public void testDelta() {
+        RawNetworkData previous = new RawNetworkData(false, 1, 10, 0,
+                Lists.newArrayList(part(0, 10), part(1, 20), part(2, 30)), Lists.newArrayList(observer(0, 5)));
+        RawNetworkData current = new RawNetworkData(false, 1, 12, 3,
+                Lists.newArrayList(part(3, 40), part(2, 31), part(0, 10)), Lists.newArrayList());
+        NBTTagCompound tag = current.toDeltaNbt(previous);
+        RawNetworkData applied = RawNetworkData.applyDeltaNbt(previous, tag);
+
+        assertThat(applied.getCables(), is(12));
+        assertThat(applied.getDeferredUpdates(), is(3));
+        assertThat(applied.getParts(), is(Lists.newArrayList(part(0, 10), part(2, 31), part(3, 40))));
+        assertThat(applied.getObservers().isEmpty(), is(true));
+        assertThat(tag.getTagList("partsAdded", 10).tagCount(), is(1));
+    }
+
+    @Test
+    public void testEvaluationsDelta() {
+        RawPartData partPrevious = new RawPartData(0, new BlockPos(0, 0, 0), EnumFacing.NORTH, "part", 10,
+                Lists.newArrayList(new RawEvaluationData("var", 1, 0, 100, Collections.emptyList())));
+        RawPartData partCurrent = new RawPartData(0, new BlockPos(0, 0, 0), EnumFacing.NORTH, "part", 10,
+                Lists.newArrayList(new RawEvaluationData("var", 2, 1, 150, Collections.emptyList())));
+        RawNetworkData previous = new RawNetworkData(false, 1, 1, 0,
+                Lists.newArrayList(partPrevious, part(1, 20)), Lists.newArrayList());
+        RawNetworkData current = new RawNetworkData(false, 1, 1, 0,
+                Lists.newArrayList(partCurrent, part(1, 20)), Lists.newArrayList());
+        NBTTagCompound tag = current.toDeltaNbt(previous);
+        RawNetworkData applied = RawNetworkData.applyDeltaNbt(previous, tag);
+
+        assertThat(tag.getTagList("partsAdded", 10).tagCount(), is(0));
+        assertThat(tag.getIntArray("partsDetailsChanged").length, is(1));
+        assertThat(applied.getParts().get(0).getEvaluations(), is(partCurrent.getEvaluations()));
+        assertThat(applied.getParts().get(1), is(part(1, 20)));
+    }
+
+    @Test
+    public void testLargeDuration() {
+        RawNetworkData previous = new RawNetworkData(false, 1, 1, 0,
+                Lists.newArrayList(part(0, 10)), Lists.newArrayList());
+        RawNetworkData current = new RawNetworkData(false, 1, 1, 0,
+                Lists.newArrayList(part(0, 5000000000L)), Lists.newArrayList());
+        RawNetworkData applied = RawNetworkData.applyDeltaNbt(previous, current.toDeltaNbt(previous));
+        assertThat(applied.getParts().get(0).getLast20TicksDurationNs(), is(5000000000L));
+    }
+
+}
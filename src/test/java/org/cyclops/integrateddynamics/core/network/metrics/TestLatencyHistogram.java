@@ -0,0 +1,47 @@
+package org.cyclops.integrateddynamics.core.network.metrics;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the latency histogram.
+ * @author rubensworks
+ */
+public class TestLatencyHistogram {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram(10);
+        assertThat(histogram.getPercentile(0.5), is(0L));
+        assertThat(histogram.getMax(), is(0L));
+        assertThat(histogram.getCount(), is(0L));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+        for (int i = 100; i > 0; i--) {
+            histogram.record(i);
+        }
+        assertThat(histogram.getPercentile(0.5), is(51L));
+        assertThat(histogram.getPercentile(0.99), is(100L));
+        assertThat(histogram.getMax(), is(100L));
+        assertThat(histogram.getCount(), is(100L));
+        assertThat(histogram.getTotal(), is(5050L));
+    }
+
+    @Test
+    public void testRingBuffer() {
+        LatencyHistogram histogram = new LatencyHistogram(4);
+        histogram.record(1000);
+        for (int i = 0; i < 4; i++) {
+            histogram.record(1);
+        }
+        assertThat(histogram.getPercentile(0.99), is(1L));
+        assertThat(histogram.getMax(), is(1000L));
+        assertThat(histogram.getCount(), is(5L));
+    }
+
+}
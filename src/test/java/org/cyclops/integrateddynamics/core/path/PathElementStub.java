@@ -0,0 +1,37 @@
+package org.cyclops.integrateddynamics.core.path;
+
+import com.google.common.collect.Sets;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.path.IPathElement;
+import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
+
+import java.util.Set;
+
+/**
+ * A path element at a fixed position, which does not require a world.
+ * @author rubensworks
+ */
+public class PathElementStub implements IPathElement {
+
+    private final DimPos position;
+    private final Set<ISidedPathElement> reachableElements = Sets.newHashSet();
+
+    public PathElementStub(DimPos position) {
+        this.position = position;
+    }
+
+    @Override
+    public DimPos getPosition() {
+        return position;
+    }
+
+    @Override
+    public Set<ISidedPathElement> getReachableElements() {
+        return reachableElements;
+    }
+
+    @Override
+    public int compareTo(IPathElement o) {
+        return getPosition().compareTo(o.getPosition());
+    }
+}
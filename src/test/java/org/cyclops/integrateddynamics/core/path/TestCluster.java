@@ -0,0 +1,65 @@
+package org.cyclops.integrateddynamics.core.path;
+
+import com.google.common.collect.Lists;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import org.cyclops.cyclopscore.datastructure.DimPos;
+import org.cyclops.integrateddynamics.api.path.ISidedPathElement;
+import org.cyclops.integrateddynamics.capability.path.SidedPathElement;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the cluster NBT formats.
+ * @author rubensworks
+ */
+public class TestCluster {
+
+    private static ISidedPathElement element(int dimension, BlockPos pos, EnumFacing side) {
+        return SidedPathElement.of(new PathElementStub(DimPos.of(dimension, pos)), side);
+    }
+
+    private static List<String> read(NBTTagCompound tag) {
+        List<String> positions = Lists.newArrayList();
+        Cluster.readElements(tag, (dimensionId, pos, side) -> positions.add(dimensionId + ":" + BlockPos.fromLong(pos) + ":" + side));
+        positions.sort(String::compareTo);
+        return positions;
+    }
+
+    @Test
+    public void testCompactRoundTrip() {
+        List<ISidedPathElement> elements = Lists.newArrayList(
+                element(0, new BlockPos(1, 2, 3), null),
+                element(0, new BlockPos(-30000000, 0, 29999999), EnumFacing.DOWN),
+                element(-1, new BlockPos(4, 255, -6), EnumFacing.EAST)
+        );
+        NBTTagCompound tag = Cluster.writeElements(elements);
+        assertThat("positions are read back", read(tag), is(Lists.newArrayList(
+                "-1:" + new BlockPos(4, 255, -6) + ":east",
+                "0:" + new BlockPos(-30000000, 0, 29999999) + ":down",
+                "0:" + new BlockPos(1, 2, 3) + ":null"
+        )));
+    }
+
+    @Test
+    public void testReadLegacy() {
+        NBTTagList list = new NBTTagList();
+        NBTTagCompound elementTag = new NBTTagCompound();
+        elementTag.setInteger("dimension", 1);
+        elementTag.setLong("pos", new BlockPos(7, 8, 9).toLong());
+        elementTag.setInteger("side", EnumFacing.UP.ordinal());
+        list.appendTag(elementTag);
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setTag("list", list);
+        assertThat("legacy positions are read", read(tag), is(Lists.newArrayList(
+                "1:" + new BlockPos(7, 8, 9) + ":up"
+        )));
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.cyclops.integrateddynamics.core.persist.world;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the generation check when reading network files.
+ * @author rubensworks
+ */
+public class TestNetworkStorageWriter {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File writeGeneration(long generation) throws IOException {
+        File file = new File(folder.getRoot(), "networks.dat");
+        NBTTagList list = new NBTTagList();
+        list.appendTag(new NBTTagCompound());
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setLong("generation", generation);
+        tag.setTag("networks", list);
+        NetworkStorageWriter.writeAtomically(file, tag);
+        return file;
+    }
+
+    @Test
+    public void testReadGeneration() throws IOException {
+        File file = writeGeneration(3);
+        assertThat(NetworkStorageWriter.read(file, 3).tagCount(), is(1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadOtherGeneration() throws IOException {
+        File file = writeGeneration(2);
+        NetworkStorageWriter.read(file, 3);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadMissing() throws IOException {
+        NetworkStorageWriter.read(new File(folder.getRoot(), "missing.dat"), 1);
+    }
+
+}